@@ -0,0 +1,47 @@
+package org.greatsql.greatsqlmcp.benchmark;
+
+import org.greatsql.greatsqlmcp.GreatSQLMCPApplication;
+import org.greatsql.greatsqlmcp.benchmark.jdbc.FakeDriver;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// 以FakeDriver代替MySQL驱动启动完整的应用上下文，连接池、服务和控制器都是生产代码。
+// 基准测试不启动Web服务器，直接调用控制器方法；负载测试在随机端口上启动完整的HTTP服务。日志只保留警告，避免输出影响测量
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(String... extraArgs) {
+        return run(WebApplicationType.NONE, extraArgs);
+    }
+
+    // 监听的端口可通过local.server.port属性取得
+    public static ConfigurableApplicationContext startServer(String... extraArgs) {
+        String[] args = new String[extraArgs.length + 1];
+        args[0] = "--server.port=0";
+        System.arraycopy(extraArgs, 0, args, 1, extraArgs.length);
+        return run(WebApplicationType.SERVLET, args);
+    }
+
+    private static ConfigurableApplicationContext run(WebApplicationType type, String... extraArgs) {
+        FakeDriver.register();
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        SpringApplication application = new SpringApplication(GreatSQLMCPApplication.class);
+        application.setWebApplicationType(type);
+        String[] args = {
+                "--greatsql.url=" + FakeDriver.URL,
+                "--greatsql.user=bench",
+                "--greatsql.password=bench",
+                "--mcp.auth.enabled=false",
+                // 不启动Spring AI的stdio传输，否则读取标准输入的线程会阻止基准测试进程退出
+                "--spring.ai.mcp.server.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.greatsql=WARN"};
+        String[] all = new String[args.length + extraArgs.length];
+        System.arraycopy(args, 0, all, 0, args.length);
+        System.arraycopy(extraArgs, 0, all, args.length, extraArgs.length);
+        return application.run(all);
+    }
+}
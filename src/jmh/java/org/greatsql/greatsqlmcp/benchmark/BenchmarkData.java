@@ -0,0 +1,185 @@
+package org.greatsql.greatsqlmcp.benchmark;
+
+import org.greatsql.greatsqlmcp.benchmark.jdbc.FakeColumn;
+import org.greatsql.greatsqlmcp.benchmark.jdbc.FakeDatabase;
+import org.greatsql.greatsqlmcp.benchmark.jdbc.FakeTable;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// 基准测试使用的固定数据：随机数种子固定，每次运行生成的结果完全相同。
+// 全局变量和状态的规模、取值接近一台GreatSQL 8.0实例的实际情况
+public final class BenchmarkData {
+    public static final String ORDERS_QUERY = "SELECT * FROM bench_orders";
+
+    private static final String[] STATUSES = {"NEW", "PAID", "SHIPPED", "DONE", "REFUNDED"};
+
+    private static final String[] THREAD_STATES = {
+            "", "executing", "Sending to client", "waiting for handler commit", "Creating sort index",
+            "Waiting for an event from Coordinator", "Waiting on empty queue", "starting"};
+
+    private BenchmarkData() {
+    }
+
+    // 查询结果使用的订单表，rows行，note列一半为NULL
+    public static FakeTable orders(int rows) {
+        Random random = new Random(42);
+        FakeColumn[] columns = {
+                FakeColumn.bigint("id"),
+                FakeColumn.varchar("customer"),
+                FakeColumn.decimal("amount"),
+                FakeColumn.integer("quantity"),
+                FakeColumn.doubleColumn("discount"),
+                FakeColumn.varchar("status"),
+                FakeColumn.timestamp("created_at"),
+                FakeColumn.varchar("note")};
+        Object[][] data = new Object[rows][];
+        long base = Timestamp.valueOf("2025-07-01 00:00:00").getTime();
+        for (int i = 0; i < rows; i++) {
+            data[i] = new Object[]{
+                    (long) i + 1,
+                    "customer_" + random.nextInt(100_000),
+                    BigDecimal.valueOf(random.nextInt(10_000_000), 2),
+                    1 + random.nextInt(20),
+                    random.nextInt(30) / 100.0,
+                    STATUSES[random.nextInt(STATUSES.length)],
+                    new Timestamp(base + random.nextInt(86_400) * 1000L * 30),
+                    i % 2 == 0 ? null : "备注\"" + random.nextInt(1000) + "\"\n第二行"};
+        }
+        return new FakeTable(columns, data);
+    }
+
+    public static FakeTable globalStatus() {
+        Random random = new Random(7);
+        Map<String, String> status = new LinkedHashMap<>();
+        status.put("Created_tmp_disk_tables", "1532");
+        status.put("Created_tmp_tables", "48210");
+        status.put("Innodb_buffer_pool_wait_free", "0");
+        status.put("Innodb_log_waits", "3");
+        status.put("Innodb_row_lock_current_waits", "1");
+        status.put("Handler_read_rnd", "1882311");
+        status.put("Handler_read_rnd_next", "902341877");
+        status.put("Handler_read_first", "52311");
+        status.put("Handler_read_key", "1234098712");
+        status.put("Handler_read_last", "812");
+        status.put("Handler_read_next", "2309812311");
+        status.put("Handler_read_prev", "11234");
+        status.put("Select_full_join", "27");
+        status.put("Select_scan", "190233");
+        status.put("Sort_merge_passes", "12");
+        status.put("Threads_connected", "87");
+        status.put("Threads_cached", "3");
+        status.put("Threads_created", "9021");
+        status.put("Open_tables", "3980");
+        status.put("Opened_tables", "88123");
+        status.put("Open_table_definitions", "1870");
+        status.put("Opened_table_definitions", "30211");
+        // 非数值的状态变量，采样时跳过
+        status.put("Innodb_buffer_pool_dump_status", "Dumping of buffer pool not started");
+        status.put("Ssl_cipher", "");
+        status.put("Rpl_semi_sync_source_status", "OFF");
+        for (int i = 0; status.size() < 480; i++) {
+            status.put("Com_stmt_" + i, Long.toString(random.nextLong(1L << 40)));
+        }
+        return variableTable(status);
+    }
+
+    public static FakeTable globalVariables() {
+        Random random = new Random(11);
+        Map<String, String> variables = new LinkedHashMap<>();
+        variables.put("max_connections", "100");
+        variables.put("table_open_cache", "4000");
+        variables.put("table_definition_cache", "2000");
+        variables.put("thread_cache_size", "9");
+        variables.put("innodb_buffer_pool_size", "134217728");
+        variables.put("innodb_flush_log_at_trx_commit", "2");
+        variables.put("sync_binlog", "0");
+        variables.put("innodb_io_capacity", "200");
+        variables.put("innodb_io_capacity_max", "2000");
+        variables.put("innodb_log_buffer_size", "16777216");
+        variables.put("innodb_log_file_size", "50331648");
+        variables.put("innodb_log_files_in_group", "2");
+        variables.put("innodb_redo_log_capacity", "104857600");
+        variables.put("innodb_thread_concurrency", "0");
+        variables.put("binlog_format", "ROW");
+        variables.put("long_query_time", "10.000000");
+        variables.put("slow_query_log", "OFF");
+        variables.put("innodb_adaptive_hash_index", "ON");
+        variables.put("innodb_doublewrite_pages", "4");
+        variables.put("innodb_flush_method", "fsync");
+        variables.put("innodb_open_files", "4000");
+        variables.put("innodb_use_fdatasync", "OFF");
+        variables.put("join_buffer_size", "262144");
+        variables.put("read_buffer_size", "131072");
+        variables.put("read_rnd_buffer_size", "262144");
+        variables.put("sort_buffer_size", "262144");
+        variables.put("replica_parallel_type", "LOGICAL_CLOCK");
+        variables.put("replica_parallel_workers", "4");
+        for (int i = 0; variables.size() < 640; i++) {
+            variables.put("bench_variable_" + i, random.nextBoolean() ? Integer.toString(random.nextInt(1 << 20)) : "ON");
+        }
+        return variableTable(variables);
+    }
+
+    public static FakeTable processlist() {
+        Random random = new Random(3);
+        FakeColumn[] columns = {
+                FakeColumn.bigint("ID"),
+                FakeColumn.varchar("USER"),
+                FakeColumn.varchar("HOST"),
+                FakeColumn.varchar("DB"),
+                FakeColumn.varchar("COMMAND"),
+                FakeColumn.bigint("TIME"),
+                FakeColumn.varchar("STATE"),
+                FakeColumn.varchar("INFO")};
+        Object[][] data = new Object[64][];
+        for (int i = 0; i < data.length; i++) {
+            String state = THREAD_STATES[random.nextInt(THREAD_STATES.length)];
+            data[i] = new Object[]{(long) i + 1, "app", "10.0.0." + i + ":53211", "mcp", "Query",
+                    (long) random.nextInt(30), state, state.isEmpty() ? null : "SELECT * FROM t" + i};
+        }
+        return new FakeTable(columns, data);
+    }
+
+    // listTables读取的表清单
+    public static FakeTable tables() {
+        FakeColumn[] columns = {
+                FakeColumn.varchar("TABLE_NAME"),
+                FakeColumn.varchar("TABLE_SCHEMA"),
+                FakeColumn.bigint("TABLE_ROWS"),
+                FakeColumn.timestamp("CREATE_TIME"),
+                FakeColumn.varchar("TABLE_COMMENT")};
+        Object[][] data = new Object[40][];
+        Timestamp created = Timestamp.valueOf("2025-06-01 08:00:00");
+        for (int i = 0; i < data.length; i++) {
+            data[i] = new Object[]{"bench_table_" + i, "mcp", (long) i * 1000, created, ""};
+        }
+        data[0][0] = "bench_orders";
+        return new FakeTable(columns, data);
+    }
+
+    // 登记各工具会执行的查询，orderRows为executeQuery返回的行数
+    public static void register(int orderRows) {
+        FakeDatabase.clear();
+        FakeDatabase.register("bench_orders", orders(orderRows));
+        FakeDatabase.register("performance_schema.global_status", globalStatus());
+        FakeDatabase.register("performance_schema.global_variables", globalVariables());
+        FakeDatabase.register("performance_schema.processlist", processlist());
+        FakeDatabase.register("INFORMATION_SCHEMA.TABLES", tables());
+        FakeDatabase.register("trx_rseg_history_len", new FakeTable(
+                new FakeColumn[]{FakeColumn.bigint("COUNT"), FakeColumn.varchar("COMMENT")},
+                new Object[][]{{1200L, "Length of the TRX_RSEG_HISTORY list"}}));
+    }
+
+    private static FakeTable variableTable(Map<String, String> values) {
+        List<Object[]> rows = new ArrayList<>(values.size());
+        values.forEach((name, value) -> rows.add(new Object[]{name, value}));
+        return new FakeTable(
+                new FakeColumn[]{FakeColumn.varchar("VARIABLE_NAME"), FakeColumn.varchar("VARIABLE_VALUE")},
+                rows.toArray(Object[][]::new));
+    }
+}
@@ -0,0 +1,42 @@
+package org.greatsql.greatsqlmcp.benchmark;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.springframework.mock.web.MockHttpServletResponse;
+import java.io.ByteArrayOutputStream;
+
+// MockHttpServletResponse的输出流逐字节写入且每个字节都会flush，远慢于Tomcat的输出缓冲，
+// 会掩盖被测代码本身的开销。这里改为整块写入内存
+public class BenchmarkResponse extends MockHttpServletResponse {
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(8192);
+
+    private final ServletOutputStream outputStream = new ServletOutputStream() {
+        @Override
+        public void write(int b) {
+            body.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            body.write(b, off, len);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+    };
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    public byte[] body() {
+        return body.toByteArray();
+    }
+}
@@ -0,0 +1,31 @@
+package org.greatsql.greatsqlmcp.benchmark.jdbc;
+
+import java.sql.Types;
+
+// 结果集的一列：typeName与GreatSQL返回的类型名一致，nullable和signed影响列式格式选择的向量类型
+public record FakeColumn(String label, int type, String typeName, boolean nullable, boolean signed) {
+
+    public static FakeColumn bigint(String label) {
+        return new FakeColumn(label, Types.BIGINT, "BIGINT", false, true);
+    }
+
+    public static FakeColumn integer(String label) {
+        return new FakeColumn(label, Types.INTEGER, "INT", false, true);
+    }
+
+    public static FakeColumn decimal(String label) {
+        return new FakeColumn(label, Types.DECIMAL, "DECIMAL", true, true);
+    }
+
+    public static FakeColumn doubleColumn(String label) {
+        return new FakeColumn(label, Types.DOUBLE, "DOUBLE", false, true);
+    }
+
+    public static FakeColumn varchar(String label) {
+        return new FakeColumn(label, Types.VARCHAR, "VARCHAR", true, false);
+    }
+
+    public static FakeColumn timestamp(String label) {
+        return new FakeColumn(label, Types.TIMESTAMP, "DATETIME", true, false);
+    }
+}
@@ -0,0 +1,181 @@
+package org.greatsql.greatsqlmcp.benchmark.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// 连接和语句使用动态代理实现，每次调用只经过一次反射分派，与逐行读取结果集相比开销可以忽略；
+// 没有特别处理的方法(commit、setQueryTimeout等)直接返回默认值
+final class FakeConnections {
+
+    private FakeConnections() {
+    }
+
+    static Connection connection() {
+        return (Connection) Proxy.newProxyInstance(FakeConnections.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler());
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    private static Object unwrap(Object proxy, Class<?> iface) throws SQLException {
+        if (iface.isInstance(proxy)) {
+            return proxy;
+        }
+        throw new SQLException("不是" + iface.getName() + "的包装类");
+    }
+
+    private static boolean returnsResult(String sql) {
+        String head = sql.stripLeading();
+        return head.regionMatches(true, 0, "SELECT", 0, 6)
+                || head.regionMatches(true, 0, "WITH", 0, 4)
+                || head.regionMatches(true, 0, "SHOW", 0, 4);
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private boolean closed;
+        private boolean autoCommit = true;
+        private boolean readOnly;
+        private int isolation = Connection.TRANSACTION_REPEATABLE_READ;
+        private int networkTimeout;
+        private String catalog;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "prepareStatement" -> statement((Connection) proxy, (String) args[0], PreparedStatement.class);
+                case "createStatement" -> statement((Connection) proxy, null, Statement.class);
+                case "isValid" -> !closed;
+                case "isClosed" -> closed;
+                case "close" -> {
+                    closed = true;
+                    yield null;
+                }
+                case "getAutoCommit" -> autoCommit;
+                case "setAutoCommit" -> {
+                    autoCommit = (Boolean) args[0];
+                    yield null;
+                }
+                case "isReadOnly" -> readOnly;
+                case "setReadOnly" -> {
+                    readOnly = (Boolean) args[0];
+                    yield null;
+                }
+                case "getTransactionIsolation" -> isolation;
+                case "setTransactionIsolation" -> {
+                    isolation = (Integer) args[0];
+                    yield null;
+                }
+                case "getNetworkTimeout" -> networkTimeout;
+                case "setNetworkTimeout" -> {
+                    networkTimeout = (Integer) args[1];
+                    yield null;
+                }
+                case "getCatalog" -> catalog;
+                case "setCatalog" -> {
+                    catalog = (String) args[0];
+                    yield null;
+                }
+                case "unwrap" -> unwrap(proxy, (Class<?>) args[0]);
+                case "isWrapperFor" -> ((Class<?>) args[0]).isInstance(proxy);
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                case "toString" -> "FakeConnection@" + Integer.toHexString(System.identityHashCode(proxy));
+                default -> defaultValue(method.getReturnType());
+            };
+        }
+
+        private static Object statement(Connection connection, String sql, Class<? extends Statement> type) {
+            return Proxy.newProxyInstance(FakeConnections.class.getClassLoader(),
+                    new Class<?>[]{type}, new StatementHandler(connection, sql));
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Connection connection;
+        private final String preparedSql;
+        private FakeResultSet resultSet;
+        private int updateCount = -1;
+        private boolean closed;
+
+        private StatementHandler(Connection connection, String preparedSql) {
+            this.connection = connection;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+            return switch (method.getName()) {
+                case "executeQuery" -> {
+                    execute((Statement) proxy, sql);
+                    yield resultSet;
+                }
+                case "execute" -> {
+                    if (returnsResult(sql)) {
+                        yield execute((Statement) proxy, sql);
+                    }
+                    update();
+                    yield false;
+                }
+                case "executeUpdate" -> (int) update();
+                case "executeLargeUpdate" -> update();
+                case "executeBatch" -> new int[0];
+                case "getResultSet" -> resultSet;
+                case "getUpdateCount" -> updateCount;
+                case "getMoreResults" -> false;
+                case "getConnection" -> connection;
+                case "getParameterMetaData" -> parameterMetaData(sql);
+                case "isClosed" -> closed;
+                case "close" -> {
+                    closed = true;
+                    yield null;
+                }
+                case "unwrap" -> unwrap(proxy, (Class<?>) args[0]);
+                case "isWrapperFor" -> ((Class<?>) args[0]).isInstance(proxy);
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                case "toString" -> "FakeStatement: " + sql;
+                default -> defaultValue(method.getReturnType());
+            };
+        }
+
+        private boolean execute(Statement statement, String sql) {
+            FakeDatabase.awaitLatency();
+            resultSet = new FakeResultSet(FakeDatabase.lookup(sql), statement);
+            updateCount = -1;
+            return true;
+        }
+
+        private long update() {
+            FakeDatabase.awaitLatency();
+            resultSet = null;
+            updateCount = 0;
+            return 0;
+        }
+
+        private static ParameterMetaData parameterMetaData(String sql) {
+            int count = (int) sql.chars().filter(c -> c == '?').count();
+            return (ParameterMetaData) Proxy.newProxyInstance(FakeConnections.class.getClassLoader(),
+                    new Class<?>[]{ParameterMetaData.class},
+                    (proxy, method, args) -> "getParameterCount".equals(method.getName())
+                            ? count : defaultValue(method.getReturnType()));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.greatsql.greatsqlmcp.benchmark.jdbc;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+// 按SQL片段登记查询结果：语句文本包含某个片段即返回对应的结果，按登记顺序匹配，
+// 都不匹配时返回空结果集。优化器提示等改写不影响匹配
+public final class FakeDatabase {
+    private static final List<Map.Entry<String, FakeTable>> TABLES = new CopyOnWriteArrayList<>();
+
+    // 每条语句执行前等待的时间，模拟数据库和网络的往返耗时，负载测试中使连接池的占用接近实际情况
+    private static volatile long latencyNanos;
+
+    private FakeDatabase() {
+    }
+
+    public static void setLatencyMicros(long micros) {
+        latencyNanos = Math.max(0, micros) * 1000;
+    }
+
+    public static void register(String sqlFragment, FakeTable table) {
+        TABLES.add(Map.entry(sqlFragment, table));
+    }
+
+    public static void clear() {
+        TABLES.clear();
+    }
+
+    static void awaitLatency() {
+        long nanos = latencyNanos;
+        if (nanos > 0) {
+            LockSupport.parkNanos(nanos);
+        }
+    }
+
+    static FakeTable lookup(String sql) {
+        if (sql != null) {
+            for (Map.Entry<String, FakeTable> entry : TABLES) {
+                if (sql.contains(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return FakeTable.EMPTY;
+    }
+}
@@ -0,0 +1,67 @@
+package org.greatsql.greatsqlmcp.benchmark.jdbc;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+// 进程内的JDBC驱动，查询结果取自FakeDatabase，不需要真实的数据库即可驱动连接池和各工具的完整调用路径
+public final class FakeDriver implements Driver {
+    public static final String URL = "jdbc:greatsql-fake://localhost";
+
+    private static final String PREFIX = "jdbc:greatsql-fake:";
+
+    private static boolean registered;
+
+    // 连接池通过DriverManager按URL查找驱动，使用前先登记
+    public static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        try {
+            DriverManager.registerDriver(new FakeDriver());
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        registered = true;
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) {
+        return acceptsURL(url) ? FakeConnections.connection() : null;
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
@@ -0,0 +1,137 @@
+package org.greatsql.greatsqlmcp.benchmark.jdbc;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+final class FakeResultSetMetaData implements ResultSetMetaData {
+    private final FakeColumn[] columns;
+
+    FakeResultSetMetaData(FakeColumn[] columns) {
+        this.columns = columns;
+    }
+
+    private FakeColumn column(int column) throws SQLException {
+        if (column < 1 || column > columns.length) {
+            throw new SQLException("列序号超出范围：" + column);
+        }
+        return columns[column - 1];
+    }
+
+    @Override
+    public int getColumnCount() throws SQLException {
+        return columns.length;
+    }
+
+    @Override
+    public boolean isAutoIncrement(int column) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean isCaseSensitive(int column) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean isSearchable(int column) throws SQLException {
+        return true;
+    }
+
+    @Override
+    public boolean isCurrency(int column) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public int isNullable(int column) throws SQLException {
+        return column(column).nullable() ? columnNullable : columnNoNulls;
+    }
+
+    @Override
+    public boolean isSigned(int column) throws SQLException {
+        return column(column).signed();
+    }
+
+    @Override
+    public int getColumnDisplaySize(int column) throws SQLException {
+        return 255;
+    }
+
+    @Override
+    public String getColumnLabel(int column) throws SQLException {
+        return column(column).label();
+    }
+
+    @Override
+    public String getColumnName(int column) throws SQLException {
+        return column(column).label();
+    }
+
+    @Override
+    public String getSchemaName(int column) throws SQLException {
+        return "";
+    }
+
+    @Override
+    public int getPrecision(int column) throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public int getScale(int column) throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public String getTableName(int column) throws SQLException {
+        return "";
+    }
+
+    @Override
+    public String getCatalogName(int column) throws SQLException {
+        return "";
+    }
+
+    @Override
+    public int getColumnType(int column) throws SQLException {
+        return column(column).type();
+    }
+
+    @Override
+    public String getColumnTypeName(int column) throws SQLException {
+        return column(column).typeName();
+    }
+
+    @Override
+    public boolean isReadOnly(int column) throws SQLException {
+        return true;
+    }
+
+    @Override
+    public boolean isWritable(int column) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean isDefinitelyWritable(int column) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public String getColumnClassName(int column) throws SQLException {
+        return Object.class.getName();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("不是" + iface.getName() + "的包装类");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
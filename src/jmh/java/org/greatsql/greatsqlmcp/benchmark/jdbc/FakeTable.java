@@ -0,0 +1,7 @@
+package org.greatsql.greatsqlmcp.benchmark.jdbc;
+
+// 一个固定的查询结果，每次执行语句都从第一行重新读取
+public record FakeTable(FakeColumn[] columns, Object[][] rows) {
+
+    public static final FakeTable EMPTY = new FakeTable(new FakeColumn[0], new Object[0][]);
+}
@@ -0,0 +1,95 @@
+package org.greatsql.greatsqlmcp.benchmark.load;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// 测量期间的堆和GC情况：GC次数和耗时、分配速率取开始和结束时的差值，堆占用每100毫秒采样一次取峰值。
+// 服务和负载生成在同一个进程内，分配和GC中包含HTTP客户端的部分，比较两次构建时这部分基本不变
+final class JvmUsage implements AutoCloseable {
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "load-heap-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, long[]> gcAtStart = new LinkedHashMap<>();
+    private final long allocatedAtStart;
+    private final long startNanos;
+    private volatile long peakHeapUsed;
+
+    private JvmUsage() {
+        for (GarbageCollectorMXBean collector : collectors) {
+            gcAtStart.put(collector.getName(), new long[]{collector.getCollectionCount(), collector.getCollectionTime()});
+        }
+        allocatedAtStart = threads.getTotalThreadAllocatedBytes();
+        startNanos = System.nanoTime();
+        sampler.scheduleAtFixedRate(this::sample, 0, 100, TimeUnit.MILLISECONDS);
+    }
+
+    static JvmUsage start() {
+        return new JvmUsage();
+    }
+
+    private void sample() {
+        long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        if (used > peakHeapUsed) {
+            peakHeapUsed = used;
+        }
+    }
+
+    Map<String, Object> summarize() {
+        sample();
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        Map<String, Object> summary = new LinkedHashMap<>();
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        summary.put("heapMaxMb", megabytes(heap.getMax()));
+        summary.put("heapPeakUsedMb", megabytes(peakHeapUsed));
+        summary.put("heapAfterGcMb", megabytes(usedAfterGc()));
+        summary.put("allocationMbPerSecond",
+                RunStats.round((threads.getTotalThreadAllocatedBytes() - allocatedAtStart) / seconds / (1 << 20)));
+        long pauseMillis = 0;
+        Map<String, Object> gc = new LinkedHashMap<>();
+        for (GarbageCollectorMXBean collector : collectors) {
+            long[] start = gcAtStart.get(collector.getName());
+            long count = collector.getCollectionCount() - start[0];
+            long millis = collector.getCollectionTime() - start[1];
+            pauseMillis += millis;
+            gc.put(collector.getName(), Map.of("count", count, "timeMs", millis));
+        }
+        summary.put("gcTimeMsPerSecond", RunStats.round(pauseMillis / seconds));
+        summary.put("gc", gc);
+        return summary;
+    }
+
+    // 各堆内存池最近一次GC后的占用之和，近似存活对象的大小
+    private static long usedAfterGc() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && usage != null) {
+                used += usage.getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static double megabytes(long bytes) {
+        return RunStats.round(bytes / (double) (1 << 20));
+    }
+
+    @Override
+    public void close() {
+        sampler.shutdownNow();
+    }
+}
@@ -0,0 +1,120 @@
+package org.greatsql.greatsqlmcp.benchmark.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// 通过HTTP调用/mcp接口，每个请求在一个虚拟线程上同步发送。开环模式下同时在途的请求不超过concurrency个，
+// 其余请求排队，排队时间计入耗时；排队数量超过max-pending时丢弃并计数，避免服务过载时无限堆积
+final class LoadGenerator {
+    private final LoadOptions options;
+    private final URI uri;
+    private final Workload workload;
+    private final HttpClient client;
+    private final AtomicLong sequence = new AtomicLong();
+
+    LoadGenerator(LoadOptions options, URI uri, Workload workload) {
+        this.options = options;
+        this.uri = uri;
+        this.workload = workload;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    // 运行指定秒数，返回时所有已发出的请求都已完成
+    RunStats run(int seconds) {
+        RunStats stats = new RunStats(workload.names());
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (options.openLoop()) {
+                openLoop(executor, stats, end);
+            } else {
+                for (int i = 0; i < options.concurrency(); i++) {
+                    executor.execute(() -> {
+                        while (System.nanoTime() < end) {
+                            send(stats, workload.pick(sequence.getAndIncrement()), System.nanoTime());
+                        }
+                    });
+                }
+            }
+        }
+        return stats;
+    }
+
+    // 按计划时刻发送，不因前面的请求变慢而推迟后面的请求
+    private void openLoop(ExecutorService executor, RunStats stats, long end) {
+        Semaphore inFlight = new Semaphore(options.concurrency());
+        AtomicInteger pending = new AtomicInteger();
+        double intervalNanos = 1_000_000_000L / options.rate();
+        long start = System.nanoTime();
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            if (intended >= end) {
+                return;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (pending.get() >= options.maxPending()) {
+                stats.drop();
+                continue;
+            }
+            Workload.Operation operation = workload.pick(sequence.getAndIncrement());
+            pending.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    inFlight.acquireUninterruptibly();
+                    try {
+                        send(stats, operation, intended);
+                    } finally {
+                        inFlight.release();
+                    }
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private void send(RunStats stats, Workload.Operation operation, long startNanos) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(operation.body()));
+        if (options.auth() != null) {
+            request.header("Authorization", options.auth());
+        }
+        boolean failed;
+        long bytes = 0;
+        try {
+            HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            bytes = response.body().length;
+            failed = response.statusCode() != 200 || isError(response.body());
+        } catch (IOException e) {
+            failed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        stats.record(operation.name(), System.nanoTime() - startNanos, failed, bytes);
+    }
+
+    // JSON-RPC错误，或工具以{"error": ...}返回的业务错误(位于content的text中，引号已转义)
+    private static boolean isError(byte[] body) {
+        String text = new String(body, StandardCharsets.ISO_8859_1);
+        return text.contains("\"error\":{") || text.contains("\"text\":\"{\\\"error\\\"");
+    }
+}
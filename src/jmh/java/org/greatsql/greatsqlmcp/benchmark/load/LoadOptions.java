@@ -0,0 +1,94 @@
+package org.greatsql.greatsqlmcp.benchmark.load;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// 负载测试参数，命令行格式为--name=value。rate大于0时按固定到达速率发送请求(开环)，
+// 请求耗时从计划发送的时刻算起，服务端变慢时排队等待的时间同样计入；rate为0时由concurrency个客户端依次连续发送(闭环)
+record LoadOptions(String url, String auth, int concurrency, double rate, int warmupSeconds, int durationSeconds,
+                   Map<String, Integer> mix, int rows, long dbLatencyMicros, int maxPending, String label,
+                   Path out, Path baseline) {
+
+    static final String DEFAULT_MIX = "tools/list=1,listTables=2,executeQuery=4,trackNotableStats=1,findImproperVars=1";
+
+    private static final Set<String> KNOWN = Set.of(
+            "concurrency", "rate", "warmup", "duration", "mix", "rows", "db-latency-us", "max-pending",
+            "label", "out", "baseline");
+
+    static LoadOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("参数格式应为--name=value: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        int concurrency = Integer.parseInt(values.getOrDefault("concurrency", "32"));
+        LoadOptions options = new LoadOptions(
+                values.remove("url"),
+                values.remove("auth"),
+                concurrency,
+                Double.parseDouble(values.getOrDefault("rate", "0")),
+                Integer.parseInt(values.getOrDefault("warmup", "10")),
+                Integer.parseInt(values.getOrDefault("duration", "30")),
+                parseMix(values.getOrDefault("mix", DEFAULT_MIX)),
+                Integer.parseInt(values.getOrDefault("rows", "100")),
+                Long.parseLong(values.getOrDefault("db-latency-us", "500")),
+                Integer.parseInt(values.getOrDefault("max-pending", String.valueOf(concurrency * 64))),
+                values.getOrDefault("label", "local"),
+                Path.of(values.getOrDefault("out", "target/load-result.json")),
+                values.containsKey("baseline") ? Path.of(values.get("baseline")) : null);
+        for (String name : values.keySet()) {
+            if (!KNOWN.contains(name)) {
+                throw new IllegalArgumentException("未知的参数: --" + name);
+            }
+        }
+        if (options.concurrency <= 0 || options.durationSeconds <= 0 || options.rate < 0) {
+            throw new IllegalArgumentException("concurrency和duration必须大于0，rate不能小于0");
+        }
+        return options;
+    }
+
+    boolean openLoop() {
+        return rate > 0;
+    }
+
+    // 不指定url时在本进程内启动服务，连接假数据库，此时才能报告服务端的堆和GC情况
+    boolean inProcess() {
+        return url == null;
+    }
+
+    // 报告中记录的参数，对比两次结果时参数不同会给出提示
+    Map<String, Object> describe() {
+        Map<String, Object> described = new LinkedHashMap<>();
+        described.put("target", inProcess() ? "in-process" : url);
+        described.put("mode", openLoop() ? "open-loop" : "closed-loop");
+        described.put("concurrency", concurrency);
+        described.put("rate", rate);
+        described.put("warmupSeconds", warmupSeconds);
+        described.put("durationSeconds", durationSeconds);
+        described.put("mix", mix);
+        described.put("rows", rows);
+        described.put("dbLatencyMicros", dbLatencyMicros);
+        return described;
+    }
+
+    // 例如tools/list=1,executeQuery=4，权重为各操作在请求中所占的比例
+    private static Map<String, Integer> parseMix(String text) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String item : text.split(",")) {
+            String[] parts = item.trim().split("=");
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+            if (weight > 0) {
+                mix.put(parts[0].trim(), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("mix至少需要一个权重大于0的操作");
+        }
+        return mix;
+    }
+}
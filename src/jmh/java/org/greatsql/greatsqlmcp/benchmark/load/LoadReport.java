@@ -0,0 +1,93 @@
+package org.greatsql.greatsqlmcp.benchmark.load;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// 输出测试结果，以及与另一次结果(例如修改前的构建)的逐项对比
+final class LoadReport {
+    // 对比的指标：路径、名称，以及数值增大是否代表变好
+    private static final List<Metric> METRICS = List.of(
+            new Metric("result.qps", "QPS", true),
+            new Metric("result.errorRate", "错误率", false),
+            new Metric("result.dropped", "丢弃请求数", false),
+            new Metric("result.latencyMs.p50", "p50(ms)", false),
+            new Metric("result.latencyMs.p99", "p99(ms)", false),
+            new Metric("result.latencyMs.p999", "p999(ms)", false),
+            new Metric("result.responseMbPerSecond", "响应MB/s", true),
+            new Metric("jvm.allocationMbPerSecond", "分配MB/s", false),
+            new Metric("jvm.gcTimeMsPerSecond", "GC ms/s", false),
+            new Metric("jvm.heapPeakUsedMb", "堆峰值MB", false),
+            new Metric("jvm.heapAfterGcMb", "GC后堆MB", false));
+
+    private LoadReport() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static void print(Map<String, Object> report, PrintStream out) {
+        Map<String, Object> result = (Map<String, Object>) report.get("result");
+        out.printf("%n%-20s %10s %10s %8s %10s %10s %10s%n", "操作", "请求数", "QPS", "错误", "p50(ms)", "p99(ms)", "p999(ms)");
+        Map<String, Object> operations = (Map<String, Object>) result.get("operations");
+        operations.forEach((name, stats) -> printRow(out, name, (Map<String, Object>) stats));
+        printRow(out, "合计", result);
+        out.printf("丢弃请求: %s，响应 %s MB/s%n", result.get("dropped"), result.get("responseMbPerSecond"));
+        if (report.get("jvm") instanceof Map<?, ?> jvm) {
+            out.printf("堆峰值 %s MB / 上限 %s MB，GC后 %s MB，分配 %s MB/s，GC %s ms/s%n",
+                    jvm.get("heapPeakUsedMb"), jvm.get("heapMaxMb"), jvm.get("heapAfterGcMb"),
+                    jvm.get("allocationMbPerSecond"), jvm.get("gcTimeMsPerSecond"));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void printRow(PrintStream out, String name, Map<String, Object> stats) {
+        Map<String, Object> latency = (Map<String, Object>) stats.get("latencyMs");
+        out.printf("%-20s %10s %10s %8s %10s %10s %10s%n", name, stats.get("requests"), stats.get("qps"),
+                stats.get("errors"), latency.get("p50"), latency.get("p99"), latency.get("p999"));
+    }
+
+    static void compare(Map<String, Object> baseline, Map<String, Object> current, PrintStream out) {
+        out.printf("%n对比基准 %s (%s)%n", baseline.get("label"), baseline.get("timestamp"));
+        if (!Objects.equals(baseline.get("options"), current.get("options"))) {
+            out.println("注意：两次测试的参数不同，结果不能直接比较");
+            out.println("  基准: " + baseline.get("options"));
+            out.println("  本次: " + current.get("options"));
+        }
+        out.printf("%-14s %12s %12s %10s%n", "指标", "基准", "本次", "变化");
+        for (Metric metric : METRICS) {
+            Object before = lookup(baseline, metric.path);
+            Object after = lookup(current, metric.path);
+            if (!(before instanceof Number b) || !(after instanceof Number a)) {
+                continue;
+            }
+            out.printf("%-14s %12s %12s %10s%n", metric.name, before, after, change(b.doubleValue(), a.doubleValue(), metric.higherIsBetter));
+        }
+    }
+
+    // 变化百分比，变差时在后面标出
+    private static String change(double before, double after, boolean higherIsBetter) {
+        if (before == after) {
+            return "0%";
+        }
+        if (before == 0) {
+            return higherIsBetter ? "+" : "+ 变差";
+        }
+        double percent = (after - before) / before * 100;
+        boolean worse = higherIsBetter ? after < before : after > before;
+        return String.format("%+.1f%%%s", percent, worse ? " 变差" : "");
+    }
+
+    private static Object lookup(Map<String, Object> report, String path) {
+        Object value = report;
+        for (String key : path.split("\\.")) {
+            if (!(value instanceof Map<?, ?> map)) {
+                return null;
+            }
+            value = map.get(key);
+        }
+        return value;
+    }
+
+    private record Metric(String path, String name, boolean higherIsBetter) {
+    }
+}
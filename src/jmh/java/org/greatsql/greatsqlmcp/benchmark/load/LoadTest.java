@@ -0,0 +1,82 @@
+package org.greatsql.greatsqlmcp.benchmark.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.greatsql.greatsqlmcp.benchmark.BenchmarkApplication;
+import org.greatsql.greatsqlmcp.benchmark.BenchmarkData;
+import org.greatsql.greatsqlmcp.benchmark.jdbc.FakeDatabase;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.net.URI;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// /mcp接口的端到端负载测试：在本进程内以假数据库启动完整的服务(或通过--url指定已运行的服务)，
+// 按mix中的操作比例持续发送请求，报告QPS、耗时分位数、错误率和堆/GC情况，结果写入JSON文件，
+// 指定--baseline时与之前的结果逐项对比。运行方式见README
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+        ConfigurableApplicationContext context = null;
+        URI uri;
+        if (options.inProcess()) {
+            BenchmarkData.register(options.rows());
+            FakeDatabase.setLatencyMicros(options.dbLatencyMicros());
+            context = BenchmarkApplication.startServer();
+            uri = URI.create("http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port") + "/mcp");
+        } else {
+            uri = URI.create(options.url());
+        }
+
+        try {
+            LoadGenerator generator = new LoadGenerator(options, uri, new Workload(options.mix(), objectMapper));
+            System.out.printf("目标 %s，%s%n", uri, options.describe());
+            if (options.warmupSeconds() > 0) {
+                System.out.printf("预热 %d 秒...%n", options.warmupSeconds());
+                generator.run(options.warmupSeconds());
+            }
+
+            System.out.printf("测量 %d 秒...%n", options.durationSeconds());
+            JvmUsage jvm = options.inProcess() ? JvmUsage.start() : null;
+            long start = System.nanoTime();
+            RunStats stats = generator.run(options.durationSeconds());
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("label", options.label());
+            report.put("timestamp", Instant.now().toString());
+            report.put("java", Runtime.version().toString());
+            report.put("options", options.describe());
+            report.put("result", stats.summarize(seconds));
+            if (jvm != null) {
+                report.put("jvm", jvm.summarize());
+                jvm.close();
+            }
+
+            if (options.out().getParent() != null) {
+                Files.createDirectories(options.out().getParent());
+            }
+            objectMapper.writeValue(options.out().toFile(), report);
+            LoadReport.print(report, System.out);
+            System.out.println("结果已写入 " + options.out());
+
+            if (options.baseline() != null) {
+                // 经过一次JSON往返，数值类型与基准文件读出的一致
+                Map<String, Object> current = objectMapper.readValue(objectMapper.writeValueAsBytes(report), Map.class);
+                LoadReport.compare(objectMapper.readValue(options.baseline().toFile(), Map.class), current, System.out);
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.greatsql.greatsqlmcp.benchmark.load;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// 一个阶段(预热或正式测量)的统计。保留每个请求的耗时而不是分桶计数，分位数是精确值，
+// 两次构建之间较小的差异也能比较出来；测量几十秒的请求数量，内存开销可以忽略
+final class RunStats {
+    private final Map<String, OperationStats> operations = new LinkedHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    RunStats(List<String> names) {
+        for (String name : names) {
+            operations.put(name, new OperationStats());
+        }
+    }
+
+    void record(String operation, long latencyNanos, boolean failed, long responseBytes) {
+        OperationStats stats = operations.get(operation);
+        stats.latencies.add(latencyNanos);
+        stats.bytes.add(responseBytes);
+        if (failed) {
+            stats.errors.increment();
+        }
+    }
+
+    // 开环模式下等待发送的请求超过上限，不再发送，单独计数
+    void drop() {
+        dropped.increment();
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    // 汇总结果，耗时单位为毫秒
+    Map<String, Object> summarize(double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        Samples all = new Samples();
+        long errors = 0;
+        long bytes = 0;
+        Map<String, Object> perOperation = new LinkedHashMap<>();
+        for (Map.Entry<String, OperationStats> entry : operations.entrySet()) {
+            OperationStats stats = entry.getValue();
+            long[] sorted = stats.latencies.sorted();
+            all.addAll(sorted);
+            errors += stats.errors.sum();
+            bytes += stats.bytes.sum();
+            perOperation.put(entry.getKey(), describe(sorted, stats.errors.sum(), seconds));
+        }
+        long[] sorted = all.sorted();
+        summary.putAll(describe(sorted, errors, seconds));
+        summary.put("dropped", dropped.sum());
+        summary.put("responseMbPerSecond", round(bytes / seconds / (1 << 20)));
+        summary.put("operations", perOperation);
+        return summary;
+    }
+
+    private static Map<String, Object> describe(long[] sorted, long errors, double seconds) {
+        Map<String, Object> described = new LinkedHashMap<>();
+        described.put("requests", sorted.length);
+        described.put("qps", round(sorted.length / seconds));
+        described.put("errors", errors);
+        described.put("errorRate", sorted.length == 0 ? 0.0 : round((double) errors / sorted.length));
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("p50", millis(quantile(sorted, 0.5)));
+        latency.put("p99", millis(quantile(sorted, 0.99)));
+        latency.put("p999", millis(quantile(sorted, 0.999)));
+        latency.put("max", millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+        latency.put("mean", millis(sorted.length == 0 ? 0 : (long) Arrays.stream(sorted).average().orElse(0)));
+        described.put("latencyMs", latency);
+        return described;
+    }
+
+    // 最近秩法，与LatencyHistogram的分位数定义一致
+    private static long quantile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.max(1, Math.ceil(quantile * sorted.length));
+        return sorted[rank - 1];
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static final class OperationStats {
+        private final Samples latencies = new Samples();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+    }
+
+    private static final class Samples {
+        private long[] values = new long[1024];
+        private int size;
+
+        synchronized void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        synchronized void addAll(long[] more) {
+            if (size + more.length > values.length) {
+                values = Arrays.copyOf(values, Math.max(size * 2, size + more.length));
+            }
+            System.arraycopy(more, 0, values, size, more.length);
+            size += more.length;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.greatsql.greatsqlmcp.benchmark.load;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.greatsql.greatsqlmcp.benchmark.BenchmarkData;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// 按mix的权重生成请求序列：各操作按权重展开成一个固定顺序的周期，第n个请求取周期中的第n个，
+// 每次运行的请求组成和顺序都相同。tools/list以外的名称都作为tools/call调用的工具名
+final class Workload {
+    // 内置操作的调用参数，其他工具不带参数调用
+    private static final Map<String, Map<String, Object>> ARGUMENTS = Map.of(
+            "listTables", Map.of("database", "mcp"),
+            "describeSchema", Map.of("database", "mcp"),
+            "executeQuery", Map.of("database", "mcp", "query", BenchmarkData.ORDERS_QUERY));
+
+    private final Template[] cycle;
+
+    private final List<String> names;
+
+    Workload(Map<String, Integer> mix, ObjectMapper objectMapper) throws JsonProcessingException {
+        List<Template> expanded = new ArrayList<>();
+        names = List.copyOf(mix.keySet());
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            Template template = new Template(entry.getKey(), request(entry.getKey(), objectMapper));
+            for (int i = 0; i < entry.getValue(); i++) {
+                expanded.add(template);
+            }
+        }
+        Collections.shuffle(expanded, new Random(17));
+        cycle = expanded.toArray(Template[]::new);
+    }
+
+    // 请求的序号作为JSON-RPC请求ID：服务端按调用方和请求ID登记正在执行的调用，并发的请求不能共用ID
+    Operation pick(long sequence) {
+        Template template = cycle[(int) (sequence % cycle.length)];
+        return new Operation(template.name(), template.body(sequence));
+    }
+
+    List<String> names() {
+        return names;
+    }
+
+    private static byte[] request(String name, ObjectMapper objectMapper) throws JsonProcessingException {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("jsonrpc", "2.0");
+        if ("tools/list".equals(name)) {
+            request.put("method", "tools/list");
+        } else {
+            request.put("method", "tools/call");
+            request.put("params", Map.of(
+                    "name", name,
+                    "arguments", ARGUMENTS.getOrDefault(name, Map.of())));
+        }
+        return objectMapper.writeValueAsBytes(request);
+    }
+
+    record Operation(String name, byte[] body) {
+    }
+
+    // 不含id的请求体，只在开头插入id，其余部分不重复序列化
+    private record Template(String name, byte[] request) {
+        byte[] body(long id) {
+            byte[] prefix = ("{\"id\":" + id + ",").getBytes(StandardCharsets.UTF_8);
+            byte[] body = Arrays.copyOf(prefix, prefix.length + request.length - 1);
+            System.arraycopy(request, 1, body, prefix.length, request.length - 1);
+            return body;
+        }
+    }
+}
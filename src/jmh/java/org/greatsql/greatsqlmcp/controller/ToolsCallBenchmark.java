@@ -0,0 +1,101 @@
+package org.greatsql.greatsqlmcp.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.greatsql.greatsqlmcp.benchmark.BenchmarkApplication;
+import org.greatsql.greatsqlmcp.benchmark.BenchmarkData;
+import org.greatsql.greatsqlmcp.benchmark.BenchmarkResponse;
+import org.greatsql.greatsqlmcp.benchmark.jdbc.FakeDatabase;
+import org.greatsql.greatsqlmcp.service.DatabaseService;
+import org.greatsql.greatsqlmcp.service.QueryBudget;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// /mcp接口的完整调用：请求分派、从连接池取连接、执行查询、流式写出JSON-RPC响应，
+// 以及改为流式写出之前先序列化结果再序列化一次外层响应的做法，作为对照
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ToolsCallBenchmark {
+    @Param({"100", "10000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private McpController controller;
+
+    private DatabaseService databaseService;
+
+    private ObjectMapper objectMapper;
+
+    private QueryBudget budget;
+
+    private Map<String, Object> toolsCall;
+
+    private Map<String, Object> toolsList;
+
+    private final MockHttpServletRequest httpRequest = new MockHttpServletRequest();
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkData.register(rows);
+        context = BenchmarkApplication.start();
+        controller = context.getBean(McpController.class);
+        databaseService = context.getBean(DatabaseService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        budget = new QueryBudget(30000, 10000, 16777216);
+        toolsCall = request("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/call\",\"params\":{\"name\":\"executeQuery\","
+                + "\"arguments\":{\"database\":\"mcp\",\"query\":\"" + BenchmarkData.ORDERS_QUERY + "\"}}}");
+        toolsList = request("{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/list\"}");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        FakeDatabase.clear();
+    }
+
+    @Benchmark
+    public byte[] toolsCallExecuteQuery() {
+        BenchmarkResponse response = new BenchmarkResponse();
+        controller.handleMcpPathRequest(toolsCall, null, null, httpRequest, response);
+        return response.body();
+    }
+
+    @Benchmark
+    public byte[] toolsCallDoubleSerialization() throws Exception {
+        Object result = databaseService.executeQuery("mcp", BenchmarkData.ORDERS_QUERY, null, List.of(), budget);
+        String text = objectMapper.writeValueAsString(result);
+        return objectMapper.writeValueAsBytes(Map.of(
+                "jsonrpc", "2.0",
+                "id", 1,
+                "result", Map.of("content", List.of(Map.of("type", "text", "text", text)))));
+    }
+
+    @Benchmark
+    public Object toolsList() {
+        return controller.handleMcpPathRequest(toolsList, null, null, httpRequest, new BenchmarkResponse());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> request(String json) throws Exception {
+        return objectMapper.readValue(json, Map.class);
+    }
+}
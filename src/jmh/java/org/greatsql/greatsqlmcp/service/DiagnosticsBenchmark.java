@@ -0,0 +1,75 @@
+package org.greatsql.greatsqlmcp.service;
+
+import org.greatsql.greatsqlmcp.benchmark.BenchmarkApplication;
+import org.greatsql.greatsqlmcp.benchmark.BenchmarkData;
+import org.greatsql.greatsqlmcp.benchmark.jdbc.FakeDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// 诊断类工具：global_status采样解析(trackNotableStats的数据来源)、trackNotableStats本身、
+// 读取全局变量和状态的快照，以及findImproperVars对快照的各项配置检查。后台采样关闭，只测调用线程上的开销
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiagnosticsBenchmark {
+    private ConfigurableApplicationContext context;
+
+    private StatusSampler statusSampler;
+
+    private DatabaseService databaseService;
+
+    private DiagnosticSnapshot snapshot;
+
+    @Setup
+    public void setup() throws SQLException {
+        BenchmarkData.register(100);
+        context = BenchmarkApplication.start("--greatsql.monitor.status-sampler-enabled=false");
+        statusSampler = context.getBean(StatusSampler.class);
+        databaseService = context.getBean(DatabaseService.class);
+        snapshot = databaseService.loadDiagnosticSnapshot();
+        statusSampler.sample();
+        statusSampler.sample();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        FakeDatabase.clear();
+    }
+
+    @Benchmark
+    public void sampleGlobalStatus() throws SQLException {
+        statusSampler.sample();
+    }
+
+    @Benchmark
+    public Map<String, String> trackNotableStats() {
+        return databaseService.trackNotableStats();
+    }
+
+    @Benchmark
+    public DiagnosticSnapshot loadDiagnosticSnapshot() {
+        return databaseService.loadDiagnosticSnapshot();
+    }
+
+    @Benchmark
+    public Map<String, String> findImproperVars() {
+        return databaseService.findImproperVars(snapshot);
+    }
+}
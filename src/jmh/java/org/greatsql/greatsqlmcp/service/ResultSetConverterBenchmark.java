@@ -0,0 +1,68 @@
+package org.greatsql.greatsqlmcp.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.greatsql.greatsqlmcp.benchmark.BenchmarkData;
+import org.greatsql.greatsqlmcp.benchmark.jdbc.FakeResultSet;
+import org.greatsql.greatsqlmcp.benchmark.jdbc.FakeTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+// executeQuery的结果集转换：不经过连接池和控制器，只测量逐行读取、转换和JSON序列化
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultSetConverterBenchmark {
+    @Param({"100", "10000"})
+    private int rows;
+
+    @Param({"rows", "compact", "columnar"})
+    private String format;
+
+    private FakeTable table;
+
+    private ResultFormat resultFormat;
+
+    private QueryBudget budget;
+
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setup() {
+        table = BenchmarkData.orders(rows);
+        resultFormat = ResultFormat.of(format);
+        // 与默认配置相同的执行预算，行数和字节数都不会触发截断
+        budget = new QueryBudget(30000, 10000, 16777216);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    // 先转换为Java对象再整体序列化，即结果缓存和Spring AI传输层使用的路径
+    @Benchmark
+    public String convertAndSerialize() throws Exception {
+        Object result = ResultSetConverter.convert(new FakeResultSet(table, null), resultFormat, budget.newLimit());
+        return objectMapper.writeValueAsString(result);
+    }
+
+    // /mcp接口的流式路径：边读结果集边写入JsonGenerator，不保留中间对象
+    @Benchmark
+    public void streamToGenerator() throws Exception {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(Writer.nullWriter())) {
+            ResultSetConverter.write(new FakeResultSet(table, null), resultFormat, generator, budget.newLimit());
+        }
+    }
+}
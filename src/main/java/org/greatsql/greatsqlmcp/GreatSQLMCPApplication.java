@@ -1,6 +1,9 @@
 package org.greatsql.greatsqlmcp;
 
 import org.greatsql.greatsqlmcp.service.DatabaseService;
+import org.greatsql.greatsqlmcp.service.FleetService;
+import org.greatsql.greatsqlmcp.service.HealthCheckService;
+import org.greatsql.greatsqlmcp.service.JobService;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.ToolCallbacks;
 import org.springframework.boot.SpringApplication;
@@ -18,7 +21,8 @@ public class GreatSQLMCPApplication {
     }
 
     @Bean
-    public List<ToolCallback> getToolCallbacks(DatabaseService databaseService) {
-        return List.of(ToolCallbacks.from(databaseService));
+    public List<ToolCallback> getToolCallbacks(DatabaseService databaseService, HealthCheckService healthCheckService,
+                                               JobService jobService, FleetService fleetService) {
+        return List.of(ToolCallbacks.from(databaseService, healthCheckService, jobService, fleetService));
     }
 }
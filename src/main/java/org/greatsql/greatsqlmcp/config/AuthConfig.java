@@ -12,4 +12,12 @@ public class AuthConfig {
 
     @Value("${mcp.auth.api-key:}")
     private String apiKey;
+
+    // Authorization头为"Bearer <api-key>"
+    public boolean accepts(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return false;
+        }
+        return apiKey.equals(authHeader.substring(7));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package org.greatsql.greatsqlmcp.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Getter
+public class CacheConfig {
+    // 库表元数据缓存配置，TTL为0表示不缓存
+    @Value("${greatsql.cache.metadata-ttl-ms:30000}")
+    private long metadataTtlMs;
+
+    @Value("${greatsql.cache.metadata-max-schemas:1024}")
+    private long metadataMaxSchemas;
+
+    // 只读查询结果缓存，默认关闭
+    @Value("${greatsql.cache.result-enabled:false}")
+    private boolean resultCacheEnabled;
+
+    @Value("${greatsql.cache.result-max-bytes:67108864}")
+    private long resultMaxBytes;
+
+    @Value("${greatsql.cache.result-ttl-ms:10000}")
+    private long resultTtlMs;
+}
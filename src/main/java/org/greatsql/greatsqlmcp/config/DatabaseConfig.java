@@ -1,18 +1,55 @@
 package org.greatsql.greatsqlmcp.config;
 
+import lombok.AccessLevel;
 import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import java.util.List;
 
 @Configuration
 @Getter
 public class DatabaseConfig {
-    @Value("${greatsql.url}")
-    private String jdbcUrl;
+    // 实例的连接信息(greatsql.url或greatsql.targets)按名称动态读取，见DatabaseTarget.resolve
+    @Getter(AccessLevel.NONE)
+    @Autowired
+    private Environment environment;
 
-    @Value("${greatsql.user}")
-    private String username;
+    // 连接池配置，每个实例各自一组连接池
+    @Value("${greatsql.pool.max-size:10}")
+    private int poolMaxSize;
 
-    @Value("${greatsql.password}")
-    private String password;
-}
\ No newline at end of file
+    @Value("${greatsql.pool.min-idle:2}")
+    private int poolMinIdle;
+
+    @Value("${greatsql.pool.acquire-timeout-ms:5000}")
+    private long poolAcquireTimeoutMs;
+
+    @Value("${greatsql.pool.validation-timeout-ms:2000}")
+    private long poolValidationTimeoutMs;
+
+    @Value("${greatsql.pool.idle-timeout-ms:600000}")
+    private long poolIdleTimeoutMs;
+
+    @Value("${greatsql.pool.max-lifetime-ms:1800000}")
+    private long poolMaxLifetimeMs;
+
+    @Value("${greatsql.pool.keepalive-ms:120000}")
+    private long poolKeepaliveMs;
+
+    // 每个连接缓存服务端预处理语句，相同SQL再次执行时跳过解析
+    @Value("${greatsql.pool.server-prep-stmts:true}")
+    private boolean serverPrepStmts;
+
+    @Value("${greatsql.pool.prep-stmt-cache-size:256}")
+    private int prepStmtCacheSize;
+
+    @Value("${greatsql.pool.prep-stmt-cache-sql-limit:4096}")
+    private int prepStmtCacheSqlLimit;
+
+    // 第一个为默认实例
+    public List<DatabaseTarget> getTargets() {
+        return DatabaseTarget.resolve(environment);
+    }
+}
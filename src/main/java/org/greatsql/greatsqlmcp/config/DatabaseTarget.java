@@ -0,0 +1,89 @@
+package org.greatsql.greatsqlmcp.config;
+
+import org.springframework.core.env.PropertyResolver;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// 一个GreatSQL实例的连接信息，每个实例使用独立的连接池
+public record DatabaseTarget(String name, String jdbcUrl, String username, String password, int poolMaxSize) {
+    // 只配置greatsql.url时的实例名称
+    public static final String DEFAULT_NAME = "default";
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-]+");
+
+    // 解析全部实例，第一个为默认实例(工具调用未指定target时使用)：
+    // greatsql.url存在时作为名为default的实例；greatsql.targets中的实例读取greatsql.target.<名称>.url，
+    // 未单独配置的用户名、密码和连接池大小沿用greatsql.user、greatsql.password和greatsql.pool.max-size
+    public static List<DatabaseTarget> resolve(PropertyResolver properties) {
+        String user = properties.getProperty("greatsql.user", "");
+        String password = properties.getProperty("greatsql.password", "");
+        int poolMaxSize = properties.getProperty("greatsql.pool.max-size", Integer.class, 10);
+
+        Map<String, DatabaseTarget> targets = new LinkedHashMap<>();
+        String url = properties.getProperty("greatsql.url", "");
+        if (!url.isBlank()) {
+            targets.put(DEFAULT_NAME, new DatabaseTarget(DEFAULT_NAME, url, user, password, poolMaxSize));
+        }
+        for (String name : properties.getProperty("greatsql.targets", "").split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!NAME.matcher(name).matches()) {
+                throw new IllegalStateException("实例名称只能包含字母、数字、下划线和短横线：" + name);
+            }
+            String prefix = "greatsql.target." + name + ".";
+            String targetUrl = properties.getProperty(prefix + "url", "");
+            if (targetUrl.isBlank()) {
+                throw new IllegalStateException("实例" + name + "缺少配置项" + prefix + "url");
+            }
+            DatabaseTarget target = new DatabaseTarget(name, targetUrl,
+                    properties.getProperty(prefix + "user", user),
+                    properties.getProperty(prefix + "password", password),
+                    properties.getProperty(prefix + "pool.max-size", Integer.class, poolMaxSize));
+            if (targets.putIfAbsent(name, target) != null) {
+                throw new IllegalStateException("实例名称重复：" + name);
+            }
+        }
+        if (targets.isEmpty()) {
+            throw new IllegalStateException("未配置数据库连接，需要greatsql.url或greatsql.targets");
+        }
+
+        List<DatabaseTarget> resolved = new ArrayList<>(targets.values());
+        String defaultTarget = properties.getProperty("greatsql.default-target", "").trim();
+        if (!defaultTarget.isEmpty()) {
+            DatabaseTarget first = targets.get(defaultTarget);
+            if (first == null) {
+                throw new IllegalStateException("greatsql.default-target指定的实例不存在：" + defaultTarget);
+            }
+            resolved.remove(first);
+            resolved.add(0, first);
+        }
+        return resolved;
+    }
+
+    // 同一实例的另一个节点(例如MGR从节点)：替换URL中的主机和端口，保留库名、连接参数和账户
+    public DatabaseTarget withHost(String host, int port) {
+        int start = jdbcUrl.indexOf("//");
+        if (start < 0) {
+            throw new IllegalStateException("无法识别的JDBC URL：" + jdbcUrl);
+        }
+        start += 2;
+        int end = start;
+        while (end < jdbcUrl.length() && jdbcUrl.charAt(end) != '/' && jdbcUrl.charAt(end) != '?') {
+            end++;
+        }
+        String address = host.indexOf(':') >= 0 ? "[" + host + "]:" + port : host + ":" + port;
+        return new DatabaseTarget(name, jdbcUrl.substring(0, start) + address + jdbcUrl.substring(end),
+                username, password, poolMaxSize);
+    }
+
+    // 不输出密码
+    @Override
+    public String toString() {
+        return name + "(" + jdbcUrl + ", user=" + username + ")";
+    }
+}
@@ -0,0 +1,16 @@
+package org.greatsql.greatsqlmcp.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Getter
+public class McpConfig {
+    // JSON-RPC批量请求：单个批次最多包含的请求数，以及同一批次内同时执行的请求数
+    @Value("${mcp.batch.max-size:100}")
+    private int batchMaxSize;
+
+    @Value("${mcp.batch.parallelism:4}")
+    private int batchParallelism;
+}
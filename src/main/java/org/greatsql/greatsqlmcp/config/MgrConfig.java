@@ -0,0 +1,24 @@
+package org.greatsql.greatsqlmcp.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Getter
+public class MgrConfig {
+    // MGR拓扑监控：后台定期读取各实例所在组的成员、角色、事务队列和回放延迟；开启读写分离时总是开启
+    @Value("${greatsql.mgr.topology-enabled:false}")
+    private boolean topologyEnabled;
+
+    @Value("${greatsql.mgr.refresh-ms:2000}")
+    private long refreshMs;
+
+    // 发现主节点切换后，把写连接改为指向新的主节点
+    @Value("${greatsql.mgr.failover-enabled:true}")
+    private boolean failoverEnabled;
+
+    // 切换后旧连接池等待正在执行的语句结束的最长时间，超时后关闭，仍在执行的语句随之中断
+    @Value("${greatsql.mgr.drain-timeout-ms:30000}")
+    private long drainTimeoutMs;
+}
@@ -0,0 +1,27 @@
+package org.greatsql.greatsqlmcp.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Getter
+public class MonitorConfig {
+    // 全局状态后台采样配置；关闭后台采样时，trackNotableStats和getStatusHistory在调用时按采样间隔补采
+    @Value("${greatsql.monitor.status-sampler-enabled:true}")
+    private boolean statusSamplerEnabled;
+
+    @Value("${greatsql.monitor.status-sample-interval-ms:5000}")
+    private long statusSampleIntervalMs;
+
+    @Value("${greatsql.monitor.status-history-size:720}")
+    private int statusHistorySize;
+
+    // trackNotableStats计算增量的时间窗口
+    @Value("${greatsql.monitor.track-window-ms:5000}")
+    private long trackWindowMs;
+
+    // healthCheck单项检查的超时时间
+    @Value("${greatsql.monitor.health-check-timeout-ms:10000}")
+    private long healthCheckTimeoutMs;
+}
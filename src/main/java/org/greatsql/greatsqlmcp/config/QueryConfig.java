@@ -0,0 +1,55 @@
+package org.greatsql.greatsqlmcp.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Getter
+public class QueryConfig {
+    // 分页游标配置
+    @Value("${greatsql.query.page-rows:500}")
+    private int defaultPageRows;
+
+    @Value("${greatsql.query.max-page-rows:10000}")
+    private int maxPageRows;
+
+    @Value("${greatsql.query.max-page-bytes:1048576}")
+    private long maxPageBytes;
+
+    @Value("${greatsql.query.max-open-cursors:8}")
+    private int maxOpenCursors;
+
+    @Value("${greatsql.query.cursor-idle-timeout-ms:60000}")
+    private long cursorIdleTimeoutMs;
+
+    // getTableRowCount精确模式按主键范围分片并行计数，各分片在写连接所在的节点上分别执行
+    @Value("${greatsql.query.count-parallelism:4}")
+    private int countParallelism;
+
+    @Value("${greatsql.query.count-chunk-rows:1000000}")
+    private long countChunkRows;
+
+    // 查询执行预算：服务端最长执行时间(SELECT加MAX_EXECUTION_TIME提示，其他语句依靠JDBC查询超时)、
+    // 单次调用返回的最大行数和最大字节数；调用方传入的值只能比配置更严格
+    @Value("${greatsql.query.max-execution-ms:30000}")
+    private long maxExecutionMs;
+
+    @Value("${greatsql.query.max-rows:10000}")
+    private long maxRows;
+
+    @Value("${greatsql.query.max-bytes:16777216}")
+    private long maxBytes;
+
+    // 按工具覆盖上面三项，格式: 工具名.max-execution-ms=值,工具名.max-rows=值
+    @Value("${greatsql.query.tool-budgets:}")
+    private String toolBudgets;
+
+    // executeQuery默认只执行只读语句(SELECT/SHOW/DESCRIBE/EXPLAIN等)，开启后也可以执行DML和DDL
+    @Value("${greatsql.query.allow-writes:false}")
+    private boolean allowWrites;
+
+    // 工具执行期间检测客户端是否断开的间隔，断开后取消正在执行的语句；0表示不检测
+    @Value("${greatsql.query.disconnect-check-ms:2000}")
+    private long disconnectCheckMs;
+}
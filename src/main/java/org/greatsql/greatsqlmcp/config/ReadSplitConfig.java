@@ -0,0 +1,40 @@
+package org.greatsql.greatsqlmcp.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Locale;
+
+@Configuration
+@Getter
+public class ReadSplitConfig {
+    // MGR读写分离：只读语句发往回放延迟在阈值内的ONLINE从节点，其他语句以及没有可用从节点时发往写连接所在节点；
+    // 组成员和延迟由MGR拓扑监控刷新，刷新间隔见greatsql.mgr.refresh-ms
+    @Value("${greatsql.read-split.enabled:false}")
+    private boolean enabled;
+
+    // 从节点回放延迟超过max-lag-ms，或待认证、待回放的事务数超过max-trx-queue时不再向它发送读请求
+    @Value("${greatsql.read-split.max-lag-ms:1000}")
+    private long maxLagMs;
+
+    @Value("${greatsql.read-split.max-trx-queue:100}")
+    private long maxTrxQueue;
+
+    // 每个从节点的读连接池大小，以及获取连接的超时时间，超时后该次读请求改发主节点
+    @Value("${greatsql.read-split.pool.max-size:4}")
+    private int poolMaxSize;
+
+    @Value("${greatsql.read-split.pool.acquire-timeout-ms:1000}")
+    private long poolAcquireTimeoutMs;
+
+    // 从节点读连接的group_replication_consistency，为空时沿用服务端设置；设为BEFORE时能读到此前已提交的写入
+    @Value("${greatsql.read-split.consistency:}")
+    private String consistency;
+
+    // BEFORE和BEFORE_AND_AFTER下，从节点上的读先等待此前已提交的事务回放完成，读到的结果不会落后于主节点
+    public boolean isConsistentReads() {
+        String level = consistency.trim().toUpperCase(Locale.ROOT);
+        return level.equals("BEFORE") || level.equals("BEFORE_AND_AFTER");
+    }
+}
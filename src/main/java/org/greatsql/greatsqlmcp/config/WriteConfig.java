@@ -0,0 +1,38 @@
+package org.greatsql.greatsqlmcp.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Getter
+public class WriteConfig {
+    // 批量写入配置：每个事务提交的行数，以及单次调用允许的最大行数
+    @Value("${greatsql.write.chunk-rows:1000}")
+    private int chunkRows;
+
+    @Value("${greatsql.write.max-batch-rows:100000}")
+    private int maxBatchRows;
+
+    // bulkLoad可读取的服务器本地目录，为空时只接受请求中直接携带的数据
+    @Value("${greatsql.write.load-dir:}")
+    private String loadDir;
+
+    // LOAD DATA LOCAL专用连接池的最大连接数，即同时进行的导入数
+    @Value("${greatsql.write.load-pool-size:2}")
+    private int loadPoolSize;
+
+    // 分批更新/删除的限速阈值：未清理的undo历史长度和本实例作为从库时的复制延迟超过阈值时暂停，
+    // 每隔throttle-sleep-ms重新检查，累计等待超过throttle-max-wait-ms后停止，可从结果中的lastKey继续
+    @Value("${greatsql.write.throttle-max-history-len:5000}")
+    private long throttleMaxHistoryLen;
+
+    @Value("${greatsql.write.throttle-max-replica-lag-seconds:10}")
+    private long throttleMaxReplicaLagSeconds;
+
+    @Value("${greatsql.write.throttle-sleep-ms:1000}")
+    private long throttleSleepMs;
+
+    @Value("${greatsql.write.throttle-max-wait-ms:600000}")
+    private long throttleMaxWaitMs;
+}
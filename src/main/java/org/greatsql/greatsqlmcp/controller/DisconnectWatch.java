@@ -0,0 +1,76 @@
+package org.greatsql.greatsqlmcp.controller;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// 工具执行期间定期向响应写入心跳，Servlet只有在写入时才能发现客户端已断开，
+// 写入失败即取消本次调用(或批量请求中的各个调用)正在执行的语句。心跳与其他写入都在writer上同步
+final class DisconnectWatch implements AutoCloseable {
+    private final Writer writer;
+    private final Runnable onDisconnect;
+    private final Heartbeat heartbeat;
+    private ScheduledFuture<?> future;
+    private boolean started;
+    private boolean closed;
+
+    private DisconnectWatch(Writer writer, Runnable onDisconnect, Heartbeat heartbeat) {
+        this.writer = writer;
+        this.onDisconnect = onDisconnect;
+        this.heartbeat = heartbeat;
+    }
+
+    // 第一次心跳在一个间隔之后，很快完成的调用不会提前提交响应；间隔不大于0时不检测
+    static DisconnectWatch start(ScheduledExecutorService scheduler, long intervalMs, Writer writer,
+                                 Runnable onDisconnect, Heartbeat heartbeat) {
+        DisconnectWatch watch = new DisconnectWatch(writer, onDisconnect, heartbeat);
+        if (intervalMs > 0) {
+            ScheduledFuture<?> future = scheduler.scheduleWithFixedDelay(watch::beat, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+            synchronized (writer) {
+                watch.future = future;
+            }
+        }
+        return watch;
+    }
+
+    // 是否已写出过心跳，写出后响应已提交，不能再改写状态码
+    boolean started() {
+        synchronized (writer) {
+            return started;
+        }
+    }
+
+    private void beat() {
+        synchronized (writer) {
+            if (closed) {
+                return;
+            }
+            started = true;
+            try {
+                heartbeat.write(writer);
+                writer.flush();
+            } catch (IOException e) {
+                closed = true;
+                onDisconnect.run();
+            }
+        }
+    }
+
+    // 等待正在写入的心跳结束，之后由调用方独占writer写出结果
+    @Override
+    public void close() {
+        synchronized (writer) {
+            closed = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface Heartbeat {
+        void write(Writer writer) throws IOException;
+    }
+}
@@ -0,0 +1,79 @@
+package org.greatsql.greatsqlmcp.controller;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// 把写入的字符按JSON字符串规则转义后写到下层Writer，用于把内层JSON直接嵌入外层的text字段
+class JsonStringEscapingWriter extends Writer {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+
+    JsonStringEscapingWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int end = off + len;
+        int start = off;
+        for (int i = off; i < end; i++) {
+            char c = cbuf[i];
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            if (i > start) {
+                out.write(cbuf, start, i - start);
+            }
+            writeEscaped(c);
+            start = i + 1;
+        }
+        if (end > start) {
+            out.write(cbuf, start, end - start);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        char[] chars = new char[len];
+        str.getChars(off, off + len, chars, 0);
+        write(chars, 0, len);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if (c >= 0x20 && c != '"' && c != '\\') {
+            out.write(c);
+        } else {
+            writeEscaped((char) c);
+        }
+    }
+
+    private void writeEscaped(char c) throws IOException {
+        switch (c) {
+            case '"' -> out.write("\\\"");
+            case '\\' -> out.write("\\\\");
+            case '\n' -> out.write("\\n");
+            case '\r' -> out.write("\\r");
+            case '\t' -> out.write("\\t");
+            case '\b' -> out.write("\\b");
+            case '\f' -> out.write("\\f");
+            default -> {
+                out.write("\\u00");
+                out.write(HEX[c >> 4]);
+                out.write(HEX[c & 0xF]);
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // 下层Writer由外层生成器负责关闭
+        flush();
+    }
+}
@@ -1,44 +1,143 @@
 package org.greatsql.greatsqlmcp.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.greatsql.greatsqlmcp.service.BulkWriteService;
+import org.greatsql.greatsqlmcp.service.ConnectionService;
 import org.greatsql.greatsqlmcp.service.DatabaseService;
+import org.greatsql.greatsqlmcp.service.QueryGuard;
+import org.greatsql.greatsqlmcp.service.StreamingResult;
+import org.greatsql.greatsqlmcp.service.ToolCallContext;
+import org.greatsql.greatsqlmcp.service.ToolMetrics;
+import org.springframework.http.MediaType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.greatsql.greatsqlmcp.config.AuthConfig;
+import org.greatsql.greatsqlmcp.config.McpConfig;
+import org.greatsql.greatsqlmcp.config.QueryConfig;
 import org.springframework.http.HttpStatus;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ScheduledExecutorService;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
+@Slf4j
 @RestController
 @CrossOrigin(origins = "*")
 public class McpController {
     @Autowired
     private DatabaseService databaseService;
 
+    @Autowired
+    private BulkWriteService bulkWriteService;
+
+    @Autowired
+    private ToolRegistry toolRegistry;
+
+    @Autowired
+    private QueryGuard queryGuard;
+
+    @Autowired
+    private QueryConfig queryConfig;
+
+    @Autowired
+    private ConnectionService connectionService;
+
+    @Autowired
+    private McpConfig mcpConfig;
+
+    @Autowired
+    private ToolMetrics toolMetrics;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    private static final byte[] RESPONSE_PREFIX = "{\"jsonrpc\":\"2.0\",\"id\":".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] RESULT_FIELD = ",\"result\":".getBytes(StandardCharsets.UTF_8);
+
+    private byte[] initializeResult;
+
+    // 写出工具结果用的副本：ObjectMapper默认在每次writeValue后flush，结果集逐个值调用writeObject时
+    // 每个值都会一直flush到Servlet输出流，关闭后只在写完整个响应时flush一次
+    private ObjectMapper streamingMapper;
+
+    // 工具执行期间写心跳检测客户端断开
+    private ScheduledExecutorService heartbeatScheduler;
+
+    // 执行批量请求中的各个请求，并发数由每个批次自己限制
+    private final ExecutorService batchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // 正在执行的tools/call请求，供notifications/cancelled取消。JSON-RPC请求ID只在单个客户端内唯一，
+    // 按调用方标识加请求ID索引；没有ID的请求无法被取消，不登记
+    private final Map<String, ToolCallContext> inFlightCalls = new ConcurrentHashMap<>();
+
     @PostConstruct
-    public void init() {
+    public void init() throws IOException {
         objectMapper.registerModule(new JavaTimeModule());
+        initializeResult = objectMapper.writeValueAsBytes(handleInitialize());
+        streamingMapper = objectMapper.copy().disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        // 需要流式输出结果的executeQuery和可以直接使用已解析行数据的batchInsert不经过@Tool方法
+        toolRegistry.override("executeQuery", arguments -> databaseService.streamQuery(
+                (String) arguments.get("database"), (String) arguments.get("query"),
+                (String) arguments.get("format"), toParams(arguments.get("params")),
+                queryGuard.budget("executeQuery", ToolRegistry.toLong(arguments.get("timeoutMs")),
+                        ToolRegistry.toLong(arguments.get("maxRows")), ToolRegistry.toLong(arguments.get("maxBytes")))));
+        toolRegistry.override("batchInsert", arguments -> databaseService.batchInsert(
+                (String) arguments.get("database"), (String) arguments.get("tableName"), toList(arguments.get("rows")),
+                (String) arguments.get("columns"), ToolRegistry.toInteger(arguments.get("chunkRows"))));
+        heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("greatsql-mcp-heartbeat").daemon(true).factory());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        heartbeatScheduler.shutdownNow();
+        batchExecutor.shutdownNow();
     }
 
     @Autowired
     private AuthConfig authConfig;
 
+    // 请求体为JSON对象时按单个请求处理，为JSON数组时按JSON-RPC批量请求处理
     @PostMapping("/mcp")
     public ResponseEntity<?> handleMcpPathRequest(
-            @RequestBody Map<String, Object> request,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+            @RequestBody Object body,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestHeader(value = "Accept", required = false) String accept,
+            HttpServletRequest httpRequest,
+            HttpServletResponse httpResponse) {
 
         if (authConfig.isAuthEnabled()) {
-            if (authHeader == null || !checkApiKey(authHeader)) {
+            if (!authConfig.accepts(authHeader)) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of(
                                 "jsonrpc", "2.0",
-                                "id", request.getOrDefault("id", "unknown"),
+                                "id", body instanceof Map<?, ?> request && request.get("id") != null ? request.get("id") : "unknown",
                                 "error", Map.of(
                                         "code", -32001,
                                         "message", "认证失败：无效的API Key"
@@ -47,19 +146,57 @@ public class McpController {
             }
         }
 
-        return handleMcpRequest(request);
+        String caller = caller(httpRequest);
+        if (body instanceof List<?> batch) {
+            return handleBatchRequest(batch, caller, httpResponse);
+        }
+        if (!(body instanceof Map<?, ?>)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "请求体必须是JSON对象或数组"));
+        }
+        return handleMcpRequest((Map<String, Object>) body, caller, accept, httpResponse);
+    }
+
+    // 调用方标识：优先使用MCP会话ID，其次是Authorization头，都没有时使用客户端地址
+    private static String caller(HttpServletRequest httpRequest) {
+        String session = httpRequest.getHeader("Mcp-Session-Id");
+        if (session != null && !session.isBlank()) {
+            return "session:" + session;
+        }
+        String authorization = httpRequest.getHeader("Authorization");
+        if (authorization != null && !authorization.isBlank()) {
+            return "auth:" + authorization;
+        }
+        return "addr:" + httpRequest.getRemoteAddr();
     }
 
-    private boolean checkApiKey(String authHeader) {
-        if (authHeader == null|| !authHeader.startsWith("Bearer ")) {
-            return false;
+    private static String callKey(String caller, Object id) {
+        return id == null ? null : caller + '\u0000' + id;
+    }
+
+    // 同一调用方的同一请求ID已有调用在执行时返回false，不覆盖已登记的调用
+    private boolean register(String callKey, ToolCallContext context) {
+        return callKey == null || inFlightCalls.putIfAbsent(callKey, context) == null;
+    }
+
+    private void unregister(String callKey, ToolCallContext context) {
+        if (callKey != null) {
+            inFlightCalls.remove(callKey, context);
         }
-        String apiKey = authHeader.substring(7);
-        return authConfig.getApiKey().equals(apiKey);
     }
 
+    private static Map<String, Object> duplicateIdError(Object id) {
+        return Map.of(
+                "jsonrpc", "2.0",
+                "id", id,
+                "error", Map.of(
+                        "code", -32600,
+                        "message", "无效的请求：请求ID " + id + " 已有正在执行的调用"
+                )
+        );
+    }
 
-    private ResponseEntity<?> handleMcpRequest(Map<String, Object> request) {
+    private ResponseEntity<?> handleMcpRequest(Map<String, Object> request, String caller, String accept,
+                                               HttpServletResponse httpResponse) {
         try {
             String method = (String) request.get("method");
             if (method == null) {
@@ -69,29 +206,37 @@ public class McpController {
             Object id = request.get("id");
             Map<String, Object> params = (Map<String, Object>) request.get("params");
 
-            Object result = switch (method) {
-                case "initialize" -> handleInitialize(params);
-                case "tools/list" -> handleToolsList();
-                case "tools/call" -> handleToolsCall(params);
-                default -> Map.of("error", "未知的方法: " + method);
-            };
-
-            if (result == null) {
-                result = Map.of("error", "方法执行返回null");
+            if ("tools/call".equals(method)) {
+                // 工具结果直接写入响应流，已由本方法完成响应
+                Object progressToken = progressToken(params);
+                String callKey = callKey(caller, id);
+                if (progressToken != null && accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE)) {
+                    handleToolsCallWithProgress(httpResponse, id != null ? id : "unknown", callKey, progressToken, params);
+                } else {
+                    handleToolsCallWithHeartbeat(httpResponse, id != null ? id : "unknown", callKey, params);
+                }
+                return null;
             }
 
-            Map<String, Object> response = Map.of(
-                    "jsonrpc", "2.0",
-                    "id", id != null ? id : "unknown",
-                    "result", result
-            );
+            if (method.startsWith("notifications/")) {
+                // 通知不需要响应
+                if ("notifications/cancelled".equals(method)) {
+                    cancelToolCall(caller, params);
+                }
+                return ResponseEntity.accepted().build();
+            }
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(methodResponse(id != null ? id : "unknown", method));
 
         } catch (Exception e) {
-            System.err.println("处理MCP请求时出错: " + e.getMessage());
-            e.printStackTrace();
+            log.error("处理MCP请求时出错: {}", e.getMessage(), e);
 
+            if (httpResponse.isCommitted()) {
+                // 响应已开始输出，无法再改写为错误响应
+                return null;
+            }
             return ResponseEntity.ok(Map.of(
                     "jsonrpc", "2.0",
                     "id", request.getOrDefault("id", "unknown"),
@@ -103,336 +248,450 @@ public class McpController {
         }
     }
 
-    private Object handleInitialize(Map<String, Object> params) {
-        return Map.of(
-                "protocolVersion", "2024-11-05",
-                "capabilities", Map.of("tools", Map.of()),
-                "serverInfo", Map.of(
-                        "name", "greatsql-mcp",
-                        "version", "1.0.0"
-                )
-        );
+    // initialize和tools/list的结果启动后不变，使用预先序列化的字节，只有id需要每次序列化
+    private byte[] methodResponse(Object id, String method) throws IOException {
+        byte[] result = switch (method) {
+            case "initialize" -> initializeResult;
+            case "tools/list" -> toolRegistry.toolsList();
+            default -> objectMapper.writeValueAsBytes(Map.of("error", "未知的方法: " + method));
+        };
+        ByteArrayOutputStream response = new ByteArrayOutputStream(result.length + 64);
+        response.write(RESPONSE_PREFIX);
+        response.write(objectMapper.writeValueAsBytes(id));
+        response.write(RESULT_FIELD);
+        response.write(result);
+        response.write('}');
+        return response.toByteArray();
     }
 
-    private Object handleToolsList() {
-        return Map.of(
-                "tools", new Object[]{
-                        Map.of(
-                                "name", "listDatabases",
-                                "description", "列出服务器上所有可用的数据库",
-                                "inputSchema", Map.of(
-                                        "type", "object",
-                                        "properties", Map.of(),
-                                        "required", new String[]{}
-                                )
-                        ),
-                        Map.of(
-                                "name", "listTables",
-                                "description", "列出指定数据库中的所有表",
-                                "inputSchema", Map.of(
-                                        "type", "object",
-                                        "properties", Map.of(
-                                                "database", Map.of(
-                                                        "type", "string",
-                                                        "description", "数据库名称"
-                                                )
-                                        ),
-                                        "required", new String[]{"database"}
-                                )
-                        ),
-                        Map.of(
-                                "name", "executeQuery",
-                                "description", "在指定数据库中执行SQL查询",
-                                "inputSchema", Map.of(
-                                        "type", "object",
-                                        "properties", Map.of(
-                                                "database", Map.of(
-                                                        "type", "string",
-                                                        "description", "数据库名称"
-                                                ),
-                                                "query", Map.of(
-                                                        "type", "string",
-                                                        "description", "SQL查询语句"
-                                                )
-                                        ),
-                                        "required", new String[]{"database", "query"}
-                                )
-                        ),
-                        Map.of(
-                                "name", "getTableRowCount",
-                                "description", "获取指定表的数据行数",
-                                "inputSchema", Map.of(
-                                        "type", "object",
-                                        "properties", Map.of(
-                                                "database", Map.of(
-                                                        "type", "string",
-                                                        "description", "数据库名称"
-                                                ),
-                                                "tableName", Map.of(
-                                                        "type", "string",
-                                                        "description", "表名"
-                                                )
-                                        ),
-                                        "required", new String[]{"database", "tableName"}
-                                )
-                        ),
-                        Map.of(
-                                "name", "insertData",
-                                "description", "向指定表插入数据",
-                                "inputSchema", Map.of(
-                                        "type", "object",
-                                        "properties", Map.of(
-                                                "database", Map.of(
-                                                        "type", "string",
-                                                        "description", "数据库名称"
-                                                ),
-                                                "tableName", Map.of(
-                                                        "type", "string",
-                                                        "description", "表名"
-                                                ),
-                                                "columns", Map.of(
-                                                        "type", "string",
-                                                        "description", "字段名列表，用逗号分隔"
-                                                ),
-                                                "values", Map.of(
-                                                        "type", "string",
-                                                        "description", "对应字段的值列表，用逗号分隔"
-                                                )
-                                        ),
-                                        "required", new String[]{"database", "tableName", "columns", "values"}
-                                )
-                        ),
-                        Map.of(
-                                "name", "updateData",
-                                "description", "更新指定表的数据",
-                                "inputSchema", Map.of(
-                                        "type", "object",
-                                        "properties", Map.of(
-                                                "database", Map.of(
-                                                        "type", "string",
-                                                        "description", "数据库名称"
-                                                ),
-                                                "tableName", Map.of(
-                                                        "type", "string",
-                                                        "description", "表名"
-                                                ),
-                                                "setClause", Map.of(
-                                                        "type", "string",
-                                                        "description", "更新的字段和值，格式: field1=value1,field2=value2"
-                                                ),
-                                                "whereClause", Map.of(
-                                                        "type", "string",
-                                                        "description", "WHERE条件，格式: field=value"
-                                                )
-                                        ),
-                                        "required", new String[]{"database", "tableName", "setClause", "whereClause"}
-                                )
-                        ),
-                        Map.of(
-                                "name", "deleteData",
-                                "description", "删除指定表的数据",
-                                "inputSchema", Map.of(
-                                        "type", "object",
-                                        "properties", Map.of(
-                                                "database", Map.of(
-                                                        "type", "string",
-                                                        "description", "数据库名称"
-                                                ),
-                                                "tableName", Map.of(
-                                                        "type", "string",
-                                                        "description", "表名"
-                                                ),
-                                                "whereClause", Map.of(
-                                                        "type", "string",
-                                                        "description", "WHERE条件，格式: field=value"
-                                                )
-                                        ),
-                                        "required", new String[]{"database", "tableName", "whereClause"}
-                                )
-                        ),
-                        Map.of(
-                                "name", "createDB",
-                                "description", "创建新数据库",
-                                "inputSchema", Map.of(
-                                        "type", "object",
-                                        "properties", Map.of(
-                                                "databaseName", Map.of(
-                                                        "type", "string",
-                                                        "description", "数据库名称"
-                                                )
-                                        ),
-                                        "required", new String[]{"databaseName"}
-                                )
-                        ),
-                        Map.of(
-                                "name", "checkCriticalTransactions",
-                                "description", "检查当前是否有活跃的大事务或长事务",
-                                "inputSchema", Map.of(
-                                        "type", "object",
-                                        "properties", Map.of(),
-                                        "required", new String[]{}
-                                )
-                        ),
-                        Map.of(
-                                "name", "avgSQLRT",
-                                "description", "计算SQL请求平均响应耗时",
-                                "inputSchema", Map.of(
-                                        "type", "object",
-                                        "properties", Map.of(),
-                                        "required", new String[]{}
-                                )
-                        ),
-                        Map.of(
-                                "name", "trackNotableStats",
-                                "description", "关注需要注意的数据库状态，包括线程危险状态和全局状态指标",
-                                "inputSchema", Map.of(
-                                        "type", "object",
-                                        "properties", Map.of(),
-                                        "required", new String[]{}
-                                )
-                        ),
-                        Map.of(
-                                "name", "checkMGRStatus",
-                                "description", "监控MGR集群状态",
-                                "inputSchema", Map.of(
-                                        "type", "object",
-                                        "properties", Map.of(),
-                                        "required", new String[]{}
-                                )
-                        ),
-                        Map.of(
-                                "name", "findAbnormalMemoryIssue",
-                                "description", "检查数据库中是否存在内存异常情况",
-                                "inputSchema", Map.of(
-                                        "type", "object",
-                                        "properties", Map.of(),
-                                        "required", new String[]{}
-                                )
-                        ),
-                        Map.of(
-                                "name", "findImproperVars",
-                                "description", "检查数据库系统参数配置是否合理",
-                                "inputSchema", Map.of(
-                                        "type", "object",
-                                        "properties", Map.of(),
-                                        "required", new String[]{}
-                                )
-                        ),
-                        Map.of(
-                                "name", "monitorReplicationLag",
-                                "description", "监控主从复制延迟",
-                                "inputSchema", Map.of(
-                                        "type", "object",
-                                        "properties", Map.of(),
-                                        "required", new String[]{}
-                                )
-                        )
-                }
-        );
-    }
-    private Object handleToolsCall(Map<String, Object> params) throws Exception {
-        if (params == null) {
-            return Map.of("error", "参数不能为空");
+    // JSON-RPC批量请求：同一批次内最多batchParallelism个请求并发执行，响应按请求顺序合并为一个数组返回，
+    // 通知没有对应的响应。批量请求中的tools/call不推送进度，结果先在内存中序列化
+    private ResponseEntity<?> handleBatchRequest(List<?> batch, String caller, HttpServletResponse httpResponse) {
+        if (batch.isEmpty() || batch.size() > mcpConfig.getBatchMaxSize()) {
+            return ResponseEntity.ok(Map.of(
+                    "jsonrpc", "2.0",
+                    "id", "unknown",
+                    "error", Map.of(
+                            "code", -32600,
+                            "message", "批量请求必须包含1到" + mcpConfig.getBatchMaxSize() + "个请求"
+                    )
+            ));
         }
 
-        String name = (String) params.get("name");
-        if (name == null) {
-            return Map.of("error", "工具名称不能为空");
+        ToolCallContext[] contexts = new ToolCallContext[batch.size()];
+        for (int i = 0; i < contexts.length; i++) {
+            contexts[i] = newContext(batch.get(i) instanceof Map<?, ?> element ? element.get("params") : null, null);
         }
+        String[] responses = new String[batch.size()];
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            for (int i = next.getAndIncrement(); i < responses.length; i = next.getAndIncrement()) {
+                responses[i] = handleBatchElement(batch.get(i), caller, contexts[i]);
+            }
+        };
 
-        Map<String, Object> arguments = (Map<String, Object>) params.get("arguments");
-        if (arguments == null) {
-            arguments = Map.of();
-        }
+        try {
+            httpResponse.setStatus(HttpServletResponse.SC_OK);
+            httpResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            httpResponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(httpResponse.getOutputStream(), StandardCharsets.UTF_8), 8192);
+            DisconnectWatch watch = DisconnectWatch.start(heartbeatScheduler, queryConfig.getDisconnectCheckMs(), writer,
+                    () -> Arrays.stream(contexts).forEach(ToolCallContext::cancel), w -> w.write(' '));
 
-        Object result = switch (name) {
-            case "listDatabases" -> databaseService.listDatabases();
-            case "avgSQLRT" -> databaseService.avgSQLRT();
-            case "listTables" -> {
-                String database = (String) arguments.get("database");
-                if (database == null) {
-                    yield Map.of("error", "数据库名称不能为空");
+            int workers = Math.max(1, Math.min(mcpConfig.getBatchParallelism(), batch.size()));
+            List<Future<?>> futures = new ArrayList<>(workers);
+            try {
+                for (int i = 0; i < workers; i++) {
+                    futures.add(batchExecutor.submit(worker));
                 }
-                yield databaseService.listTables(database);
-            }
-            case "executeQuery" -> {
-                String database = (String) arguments.get("database");
-                String query = (String) arguments.get("query");
-                if (database == null || query == null) {
-                    yield Map.of("error", "数据库名称和查询语句不能为空");
+                for (Future<?> future : futures) {
+                    future.get();
                 }
-                yield databaseService.executeQuery(database, query);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Arrays.stream(contexts).forEach(ToolCallContext::cancel);
+                futures.forEach(future -> future.cancel(true));
+                throw e;
+            } finally {
+                watch.close();
             }
-            case "getTableRowCount" -> {
-                String database = (String) arguments.get("database");
-                String tableName = (String) arguments.get("tableName");
-                if (database == null || tableName == null) {
-                    yield Map.of("error", "数据库名称和表名不能为空");
+
+            StringJoiner body = new StringJoiner(",", "[", "]");
+            for (String response : responses) {
+                if (response != null) {
+                    body.add(response);
                 }
-                yield databaseService.getTableRowCount(database, tableName);
             }
-            case "insertData" -> {
-                String database = (String) arguments.get("database");
-                String tableName = (String) arguments.get("tableName");
-                String columns = (String) arguments.get("columns");
-                String values = (String) arguments.get("values");
-                if (database == null || tableName == null || columns == null || values == null) {
-                    yield Map.of("error", "所有参数都不能为空");
-                }
-                yield databaseService.insertData(database, tableName, columns, values);
+            if (body.length() == 2 && !watch.started()) {
+                // 全部是通知
+                return ResponseEntity.accepted().build();
             }
-            case "updateData" -> {
-                String database = (String) arguments.get("database");
-                String tableName = (String) arguments.get("tableName");
-                String setClause = (String) arguments.get("setClause");
-                String whereClause = (String) arguments.get("whereClause");
-                if (database == null || tableName == null || setClause == null || whereClause == null) {
-                    yield Map.of("error", "所有参数都不能为空");
+            writer.write(body.toString());
+            writer.flush();
+            return null;
+        } catch (Exception e) {
+            log.error("处理MCP批量请求时出错: {}", e.getMessage(), e);
+            if (httpResponse.isCommitted()) {
+                return null;
+            }
+            return ResponseEntity.ok(Map.of(
+                    "jsonrpc", "2.0",
+                    "id", "unknown",
+                    "error", Map.of(
+                            "code", -32603,
+                            "message", "内部服务器错误: " + e.getMessage()
+                    )
+            ));
+        }
+    }
+
+    // 批量请求中的单个请求，返回序列化后的响应，通知返回null；出错只影响该请求自己的响应
+    private String handleBatchElement(Object element, String caller, ToolCallContext context) {
+        Object id = element instanceof Map<?, ?> map && map.get("id") != null ? map.get("id") : "unknown";
+        try {
+            if (!(element instanceof Map<?, ?> map) || !(map.get("method") instanceof String method)) {
+                return errorResponse(id, -32600, "无效的请求：method不能为空");
+            }
+            Map<String, Object> params = (Map<String, Object>) map.get("params");
+            if (method.startsWith("notifications/")) {
+                if ("notifications/cancelled".equals(method)) {
+                    cancelToolCall(caller, params);
                 }
-                yield databaseService.updateData(database, tableName, setClause, whereClause);
+                return null;
+            }
+            if (!"tools/call".equals(method)) {
+                return new String(methodResponse(id, method), StandardCharsets.UTF_8);
+            }
+
+            String callKey = callKey(caller, map.get("id"));
+            if (!register(callKey, context)) {
+                return objectMapper.writeValueAsString(duplicateIdError(id));
+            }
+            long start = System.nanoTime();
+            boolean failed = true;
+            String response = null;
+            try {
+                Object toolResult = ToolCallContext.callWith(context, () -> handleToolsCall(params));
+                StringWriter writer = new StringWriter();
+                boolean completed = writeToolsCallEnvelope(writer, id, toolResult, context);
+                response = writer.toString();
+                failed = !completed || isError(toolResult);
+                return response;
+            } finally {
+                unregister(callKey, context);
+                // 批量响应在内存中拼接，按字符数近似计为字节数
+                recordToolCall(params, start, failed, context, response != null ? response.length() : 0);
             }
-            case "deleteData" -> {
-                String database = (String) arguments.get("database");
-                String tableName = (String) arguments.get("tableName");
-                String whereClause = (String) arguments.get("whereClause");
-                if (database == null || tableName == null || whereClause == null) {
-                    yield Map.of("error", "所有参数都不能为空");
+        } catch (Exception e) {
+            return errorResponse(id, -32603, "内部服务器错误: " + e.getMessage());
+        }
+    }
+
+    private String errorResponse(Object id, int code, String message) {
+        try {
+            return objectMapper.writeValueAsString(Map.of(
+                    "jsonrpc", "2.0",
+                    "id", id,
+                    "error", Map.of(
+                            "code", code,
+                            "message", message
+                    )
+            ));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 工具执行较久时在JSON正文前写入空白作为心跳(JSON允许前导空白)，写入失败说明客户端已断开，
+    // 取消正在执行的语句；心跳写出后响应已提交，出错时只能在正文中返回JSON-RPC错误
+    private void handleToolsCallWithHeartbeat(HttpServletResponse httpResponse, Object id, String callKey,
+                                              Map<String, Object> params) throws Exception {
+        httpResponse.setStatus(HttpServletResponse.SC_OK);
+        httpResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        httpResponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        CountingOutputStream out = new CountingOutputStream(httpResponse.getOutputStream());
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+        ToolCallContext context = newContext(params, null);
+        if (!register(callKey, context)) {
+            writer.write(objectMapper.writeValueAsString(duplicateIdError(id)));
+            writer.flush();
+            return;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            DisconnectWatch watch = DisconnectWatch.start(heartbeatScheduler, queryConfig.getDisconnectCheckMs(),
+                    writer, context::cancel, w -> w.write(' '));
+            Object toolResult;
+            try {
+                toolResult = ToolCallContext.callWith(context, () -> handleToolsCall(params));
+            } catch (Exception e) {
+                watch.close();
+                if (!watch.started()) {
+                    throw e;
                 }
-                yield databaseService.deleteData(database, tableName, whereClause);
+                writer.write(objectMapper.writeValueAsString(Map.of(
+                        "jsonrpc", "2.0",
+                        "id", id,
+                        "error", Map.of(
+                                "code", -32603,
+                                "message", "内部服务器错误: " + e.getMessage()
+                        )
+                )));
+                writer.flush();
+                return;
             }
-            case "createDB" -> {
-                String databaseName = (String) arguments.get("databaseName");
-                if (databaseName == null) {
-                    yield Map.of("error", "数据库名称不能为空");
+            watch.close();
+            boolean completed = writeToolsCallEnvelope(writer, id, toolResult, context);
+            writer.flush();
+            failed = !completed || isError(toolResult);
+        } finally {
+            unregister(callKey, context);
+            recordToolCall(params, start, failed, context, out.count());
+        }
+    }
+
+    // 单次写出 {"jsonrpc","id","result":{"content":[{"type":"text","text":"..."}]}}，
+    // text字段的内容边生成边转义，不再先序列化为字符串再整体序列化一次。
+    // 流式结果边读结果集边写出，这段时间计入fetch阶段，其余计入serialize阶段。
+    // 开始写出text之后读取或序列化结果出错时，已写出的部分无法撤回：结束text字符串，追加一段错误说明并标记isError，
+    // 响应仍是完整的JSON-RPC消息。返回false表示结果以错误结束
+    boolean writeToolsCallEnvelope(Writer writer, Object id, Object toolResult, ToolCallContext context) throws IOException {
+        long start = System.nanoTime();
+        long fetchNanos = 0;
+        try {
+            JsonGenerator envelope = streamingMapper.getFactory().createGenerator(writer);
+            envelope.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            envelope.writeStartObject();
+            envelope.writeStringField("jsonrpc", "2.0");
+            envelope.writeFieldName("id");
+            envelope.writeObject(id);
+            envelope.writeObjectFieldStart("result");
+            envelope.writeArrayFieldStart("content");
+            envelope.writeStartObject();
+            envelope.writeStringField("type", "text");
+            envelope.writeFieldName("text");
+            envelope.writeRawValue("\"");
+            envelope.flush();
+
+            JsonGenerator text = streamingMapper.getFactory().createGenerator(new JsonStringEscapingWriter(writer));
+            String failure = null;
+            long fetchStart = System.nanoTime();
+            try {
+                if (toolResult instanceof StreamingResult streamingResult) {
+                    streamingResult.writeTo(text);
+                    fetchNanos = System.nanoTime() - fetchStart;
+                    context.recordPhase(ToolCallContext.Phase.FETCH, fetchNanos);
+                    context.addRows(streamingResult.rowCount());
+                } else {
+                    text.writeObject(toolResult);
                 }
-                yield databaseService.createDB(databaseName);
+            } catch (Exception e) {
+                log.warn("输出工具结果时出错，已写出的部分结果以错误结束：{}", e.getMessage());
+                failure = e.getMessage();
+            }
+            // 生成器中缓冲的部分照常写出，text中的内容都经过转义，任意位置截断都仍是合法的JSON字符串
+            text.flush();
+
+            envelope.writeRaw('"');
+            envelope.writeEndObject();
+            // 结果被截断等提示作为单独的一段文本，不混入结果JSON
+            String notice = failure != null ? "结果输出中断：" + failure
+                    : toolResult instanceof StreamingResult streamingResult ? streamingResult.notice() : null;
+            if (notice != null) {
+                envelope.writeStartObject();
+                envelope.writeStringField("type", "text");
+                envelope.writeStringField("text", notice);
+                envelope.writeEndObject();
             }
-            case "monitorReplicationLag" -> databaseService.monitorReplicationLag();
-            case "checkCriticalTransactions" -> {
-                yield databaseService.checkCriticalTransactions();
+            envelope.writeEndArray();
+            if (failure != null) {
+                envelope.writeBooleanField("isError", true);
             }
-            case "trackNotableStats" -> {
-                yield databaseService.trackNotableStats();
+            envelope.writeEndObject();
+            envelope.writeEndObject();
+            envelope.close();
+            return failure == null;
+        } finally {
+            if (toolResult instanceof StreamingResult streamingResult) {
+                streamingResult.close();
             }
-            case "checkMGRStatus" -> {
-                yield databaseService.checkMGRStatus();
+            context.recordPhase(ToolCallContext.Phase.SERIALIZE, System.nanoTime() - start - fetchNanos);
+        }
+    }
+
+    // 未注册的工具名统一记为unknown，避免指标标签随客户端输入增长
+    private void recordToolCall(Map<String, Object> params, long startNanos, boolean failed,
+                                ToolCallContext context, long responseBytes) {
+        Object name = params != null ? params.get("name") : null;
+        String tool = name instanceof String text && toolRegistry.contains(text) ? text : "unknown";
+        toolMetrics.record(tool, System.nanoTime() - startNanos, failed, context, responseBytes);
+    }
+
+    // 工具以{"error": ...}返回的业务错误同样计为出错
+    private static boolean isError(Object toolResult) {
+        return toolResult instanceof Map<?, ?> map && map.containsKey("error");
+    }
+
+    // 客户端在_meta中携带progressToken且接受SSE时，以text/event-stream返回，
+    // 先推送notifications/progress通知，最后一条消息为工具调用结果
+    private void handleToolsCallWithProgress(HttpServletResponse httpResponse, Object id, String callKey,
+                                             Object progressToken, Map<String, Object> params) throws IOException {
+        httpResponse.setStatus(HttpServletResponse.SC_OK);
+        httpResponse.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        httpResponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        httpResponse.setHeader("Cache-Control", "no-cache");
+        CountingOutputStream out = new CountingOutputStream(httpResponse.getOutputStream());
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+
+        ToolCallContext context = newContext(params, (progress, total, message) -> {
+            Map<String, Object> notification = new LinkedHashMap<>();
+            notification.put("progressToken", progressToken);
+            notification.put("progress", progress);
+            if (total != null) {
+                notification.put("total", total);
             }
-            case "findAbnormalMemoryIssue" -> {
-                yield databaseService.findAbnormalMemoryIssue();
+            if (message != null) {
+                notification.put("message", message);
             }
-            case "findImproperVars" -> {
-                yield databaseService.findImproperVars();
+            try {
+                writeEvent(writer, Map.of(
+                        "jsonrpc", "2.0",
+                        "method", "notifications/progress",
+                        "params", notification
+                ));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-            default -> Map.of("error", "未知的工具: " + name);
-        };
-        return Map.of(
-                "content", new Object[]{
-                        Map.of(
-                                "type", "text",
-                                "text", objectMapper.writeValueAsString(result)
+        });
+
+        if (!register(callKey, context)) {
+            writeEvent(writer, duplicateIdError(id));
+            return;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object toolResult;
+            DisconnectWatch watch = DisconnectWatch.start(heartbeatScheduler, queryConfig.getDisconnectCheckMs(),
+                    writer, context::cancel, w -> w.write(": ping\n\n"));
+            try {
+                toolResult = ToolCallContext.callWith(context, () -> handleToolsCall(params));
+            } catch (Exception e) {
+                watch.close();
+                writeEvent(writer, Map.of(
+                        "jsonrpc", "2.0",
+                        "id", id,
+                        "error", Map.of(
+                                "code", -32603,
+                                "message", "内部服务器错误: " + e.getMessage()
                         )
-                }
+                ));
+                return;
+            }
+
+            watch.close();
+            writer.write("event: message\ndata: ");
+            boolean completed = writeToolsCallEnvelope(writer, id, toolResult, context);
+            writer.write("\n\n");
+            writer.flush();
+            failed = !completed || isError(toolResult);
+        } finally {
+            unregister(callKey, context);
+            recordToolCall(params, start, failed, context, out.count());
+        }
+    }
+
+    // notifications/cancelled：终止该请求在数据库中正在执行的语句，工具随之以错误结束并释放处理线程；
+    // 只能取消同一调用方发起的请求，请求已完成或不存在时忽略
+    private void cancelToolCall(String caller, Map<String, Object> params) {
+        if (params == null || params.get("requestId") == null) {
+            return;
+        }
+        ToolCallContext context = inFlightCalls.get(callKey(caller, params.get("requestId")));
+        if (context != null) {
+            context.cancel();
+        }
+    }
+
+    // 进度通知与心跳来自不同线程，在writer上同步
+    private void writeEvent(Writer writer, Object message) throws IOException {
+        String json = objectMapper.writeValueAsString(message);
+        synchronized (writer) {
+            writer.write("event: message\ndata: ");
+            writer.write(json);
+            writer.write("\n\n");
+            writer.flush();
+        }
+    }
+
+    private static Object progressToken(Map<String, Object> params) {
+        if (params != null && params.get("_meta") instanceof Map<?, ?> meta) {
+            return meta.get("progressToken");
+        }
+        return null;
+    }
+
+    private Object handleInitialize() {
+        return Map.of(
+                "protocolVersion", "2024-11-05",
+                "capabilities", Map.of("tools", Map.of()),
+                "serverInfo", Map.of(
+                        "name", "greatsql-mcp",
+                        "version", "1.0.0"
+                )
         );
     }
 
+    // 调用的目标实例由arguments.target指定，取消时在同一实例上执行KILL QUERY
+    private ToolCallContext newContext(Object params, ToolCallContext.ProgressListener progressListener) {
+        String target = null;
+        if (params instanceof Map<?, ?> map && map.get("arguments") instanceof Map<?, ?> arguments
+                && arguments.get("target") instanceof String name && !name.isBlank()) {
+            target = name;
+        }
+        return new ToolCallContext(target, progressListener, connectionService.canceller(target));
+    }
+
+    private Object handleToolsCall(Map<String, Object> params) throws Exception {
+        if (params == null) {
+            return Map.of("error", "参数不能为空");
+        }
+
+        String target = ToolCallContext.current().target();
+        if (target != null && !connectionService.hasTarget(target)) {
+            return Map.of("error", "未知的目标实例: " + target);
+        }
+
+        String name = (String) params.get("name");
+        if (name == null) {
+            return Map.of("error", "工具名称不能为空");
+        }
+
+        Map<String, Object> arguments = (Map<String, Object>) params.get("arguments");
+        if (arguments == null) {
+            arguments = Map.of();
+        }
+
+        return toolRegistry.call(name, arguments);
+    }
+
+    // 绑定参数可以直接传JSON数组，也可以传JSON数组格式的字符串
+    @SuppressWarnings("unchecked")
+    private List<Object> toParams(Object value) {
+        if (value instanceof List<?> list) {
+            return (List<Object>) list;
+        }
+        return databaseService.parseParams((String) value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> toList(Object value) {
+        if (value instanceof List<?> list) {
+            return (List<Object>) list;
+        }
+        return bulkWriteService.parseRows((String) value);
+    }
 }
@@ -0,0 +1,33 @@
+package org.greatsql.greatsqlmcp.controller;
+
+import org.greatsql.greatsqlmcp.config.AuthConfig;
+import org.greatsql.greatsqlmcp.service.ToolMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import java.io.IOException;
+import java.io.StringWriter;
+
+// Prometheus抓取接口，输出按工具统计的调用指标；开启认证时与/mcp使用同一个API Key
+@RestController
+public class MetricsController {
+    @Autowired
+    private ToolMetrics toolMetrics;
+
+    @Autowired
+    private AuthConfig authConfig;
+
+    @GetMapping(value = "/metrics", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public ResponseEntity<String> metrics(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) throws IOException {
+        if (authConfig.isAuthEnabled() && !authConfig.accepts(authHeader)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        StringWriter out = new StringWriter(8192);
+        toolMetrics.writePrometheus(out);
+        return ResponseEntity.ok(out.toString());
+    }
+}
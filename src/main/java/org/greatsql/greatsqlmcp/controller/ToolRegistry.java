@@ -0,0 +1,275 @@
+package org.greatsql.greatsqlmcp.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.greatsql.greatsqlmcp.service.DatabaseService;
+import org.greatsql.greatsqlmcp.service.FleetService;
+import org.greatsql.greatsqlmcp.service.HealthCheckService;
+import org.greatsql.greatsqlmcp.service.JobService;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// /mcp接口的工具注册表：启动时从@Tool/@ToolParam注解生成工具定义和调用器，与Spring AI传输层的ToolCallbacks
+// 使用同一份元数据。tools/list的结果只序列化一次，tools/call按名称取到已绑定参数提取方式的调用器
+@Component
+class ToolRegistry {
+    // 这些字符串参数的值本身是JSON，/mcp接口也接受直接传入JSON数组或对象
+    private static final Map<String, String> JSON_ARGUMENT_TYPES = Map.of(
+            "executeQuery.params", "array",
+            "batchInsert.rows", "array",
+            "submitJob.arguments", "object");
+
+    // 可选的target参数不对应方法参数，由控制器放入ToolCallContext，工具内获取连接时按它选择实例
+    private static final Map<String, Object> TARGET_PROPERTY = Map.of(
+            "type", "string",
+            "description", "目标实例名称，不指定时使用默认实例，可选值见listTargets");
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Autowired
+    private HealthCheckService healthCheckService;
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private FleetService fleetService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<String, RegisteredTool> tools = new HashMap<>();
+
+    private byte[] toolsList;
+
+    @PostConstruct
+    public void init() throws ReflectiveOperationException, JsonProcessingException {
+        List<Map<String, Object>> definitions = new ArrayList<>();
+        for (Object bean : List.of(databaseService, healthCheckService, jobService, fleetService)) {
+            Method[] methods = AopUtils.getTargetClass(bean).getMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for (Method method : methods) {
+                Tool tool = method.getAnnotation(Tool.class);
+                if (tool == null) {
+                    continue;
+                }
+                RegisteredTool registered = register(bean, method, tool);
+                // 针对单个实例执行的工具接受target；任务查询/取消和跨实例的工具不需要
+                registered.targeted = bean == databaseService || bean == healthCheckService
+                        || "submitJob".equals(registered.name);
+                if (tools.putIfAbsent(registered.name, registered) != null) {
+                    throw new IllegalStateException("工具名称重复: " + registered.name);
+                }
+                definitions.add(registered.definition());
+            }
+        }
+        toolsList = objectMapper.writeValueAsBytes(Map.of("tools", definitions));
+    }
+
+    // 预先序列化的tools/list结果，调用方不能修改
+    byte[] toolsList() {
+        return toolsList;
+    }
+
+    // 调用方式与@Tool方法不同的工具(例如需要流式输出结果)由控制器替换调用器，工具定义和必填参数校验不变
+    void override(String name, ToolInvoker invoker) {
+        RegisteredTool tool = tools.get(name);
+        if (tool == null) {
+            throw new IllegalArgumentException("未知的工具: " + name);
+        }
+        tool.invoker = invoker;
+    }
+
+    boolean contains(String name) {
+        return tools.containsKey(name);
+    }
+
+    Object call(String name, Map<String, Object> arguments) throws Exception {
+        RegisteredTool tool = tools.get(name);
+        if (tool == null) {
+            return Map.of("error", "未知的工具: " + name);
+        }
+        for (Argument argument : tool.arguments) {
+            if (argument.required && arguments.get(argument.name) == null) {
+                return Map.of("error", "参数" + argument.name + "不能为空");
+            }
+        }
+        return tool.invoker.invoke(arguments);
+    }
+
+    private RegisteredTool register(Object bean, Method method, Tool tool) throws ReflectiveOperationException {
+        String name = tool.name().isEmpty() ? method.getName() : tool.name();
+        Parameter[] parameters = method.getParameters();
+        Argument[] arguments = new Argument[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter parameter = parameters[i];
+            if (!parameter.isNamePresent()) {
+                throw new IllegalStateException("编译时需要保留参数名(-parameters): " + method);
+            }
+            ToolParam param = parameter.getAnnotation(ToolParam.class);
+            String jsonType = JSON_ARGUMENT_TYPES.getOrDefault(name + "." + parameter.getName(), jsonType(parameter.getType()));
+            arguments[i] = new Argument(parameter.getName(), param == null || param.required(),
+                    param == null ? "" : param.description(), jsonType, converter(parameter.getType()));
+        }
+
+        // 绑定到服务实例并统一为(Object[])Object，调用时不再经过反射
+        MethodHandle handle = MethodHandles.publicLookup().unreflect(method)
+                .bindTo(bean)
+                .asSpreader(Object[].class, parameters.length)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+        ToolInvoker invoker = values -> {
+            Object[] args = new Object[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                Object value = values.get(arguments[i].name);
+                args[i] = value == null ? null : arguments[i].converter.apply(value);
+            }
+            try {
+                return (Object) handle.invokeExact(args);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        };
+        return new RegisteredTool(name, tool.description(), arguments, invoker);
+    }
+
+    private static String jsonType(Class<?> type) {
+        if (type == String.class) {
+            return "string";
+        }
+        if (type == Integer.class || type == Long.class || type == int.class || type == long.class) {
+            return "integer";
+        }
+        if (type == Double.class || type == double.class) {
+            return "number";
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return "boolean";
+        }
+        if (List.class.isAssignableFrom(type) || type.isArray()) {
+            return "array";
+        }
+        return "object";
+    }
+
+    private Function<Object, Object> converter(Class<?> type) {
+        if (type == String.class) {
+            return this::toText;
+        }
+        if (type == Integer.class || type == int.class) {
+            return ToolRegistry::toInteger;
+        }
+        if (type == Long.class || type == long.class) {
+            return ToolRegistry::toLong;
+        }
+        if (type == Double.class || type == double.class) {
+            return value -> value instanceof Number number ? number.doubleValue() : Double.valueOf(value.toString().trim());
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return value -> value instanceof Boolean bool ? bool : Boolean.valueOf(value.toString().trim());
+        }
+        return value -> objectMapper.convertValue(value, type);
+    }
+
+    // 字符串参数：数字主键等标量转为文本，JSON数组和对象序列化为JSON文本
+    private Object toText(Object value) {
+        if (value instanceof String text) {
+            return text;
+        }
+        if (value instanceof Map<?, ?> || value instanceof List<?>) {
+            try {
+                return objectMapper.writeValueAsString(value);
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("无法序列化参数：" + e.getOriginalMessage(), e);
+            }
+        }
+        return String.valueOf(value);
+    }
+
+    static Integer toInteger(Object value) {
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        if (value instanceof String text && !text.isBlank()) {
+            return Integer.valueOf(text.trim());
+        }
+        return null;
+    }
+
+    static Long toLong(Object value) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value instanceof String text && !text.isBlank()) {
+            return Long.valueOf(text.trim());
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    interface ToolInvoker {
+        Object invoke(Map<String, Object> arguments) throws Exception;
+    }
+
+    private record Argument(String name, boolean required, String description, String jsonType,
+                            Function<Object, Object> converter) {
+    }
+
+    private static final class RegisteredTool {
+        private final String name;
+        private final String description;
+        private final Argument[] arguments;
+        private volatile ToolInvoker invoker;
+        private boolean targeted;
+
+        private RegisteredTool(String name, String description, Argument[] arguments, ToolInvoker invoker) {
+            this.name = name;
+            this.description = description;
+            this.arguments = arguments;
+            this.invoker = invoker;
+        }
+
+        private Map<String, Object> definition() {
+            Map<String, Object> properties = new LinkedHashMap<>();
+            List<String> required = new ArrayList<>();
+            for (Argument argument : arguments) {
+                properties.put(argument.name, Map.of(
+                        "type", argument.jsonType,
+                        "description", argument.description));
+                if (argument.required) {
+                    required.add(argument.name);
+                }
+            }
+            if (targeted) {
+                properties.put("target", TARGET_PROPERTY);
+            }
+            Map<String, Object> definition = new LinkedHashMap<>();
+            definition.put("name", name);
+            definition.put("description", description);
+            definition.put("inputSchema", Map.of(
+                    "type", "object",
+                    "properties", properties,
+                    "required", required));
+            return definition;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.greatsql.greatsqlmcp.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkLoadResult {
+    private String tableName;
+    private String format;
+    // inline表示数据直接由请求携带，否则为服务器本地文件路径
+    private String source;
+    private List<String> columns;
+    private long rowsLoaded;
+    private long bytesRead;
+    private long warningCount;
+    // 只保留前若干条告警明细
+    private List<String> warnings = new ArrayList<>();
+    private long elapsedMs;
+    private double rowsPerSecond;
+    private double bytesPerSecond;
+}
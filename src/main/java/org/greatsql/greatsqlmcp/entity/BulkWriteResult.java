@@ -0,0 +1,29 @@
+package org.greatsql.greatsqlmcp.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkWriteResult {
+    private String tableName;
+    private Long totalRows;
+    // 已提交的影响行数，失败批次之前的批次不会回滚
+    private long affectedRows;
+    private boolean completed;
+    // 未完成时的原因：FAILED、CANCELLED、THROTTLED
+    private String stopReason;
+    // 按主键分批时最后一个已提交批次的主键上界，作为resumeAfter继续执行
+    private String lastKey;
+    // 因undo历史长度或复制延迟暂停的累计时间
+    private Long throttledMs;
+    private long elapsedMs;
+    private double rowsPerSecond;
+    // 按主键分批时批次数可能很多，chunks只保留最近的若干批，chunkCount为实际执行的批次数
+    private Integer chunkCount;
+    private List<ChunkResult> chunks = new ArrayList<>();
+}
@@ -0,0 +1,24 @@
+package org.greatsql.greatsqlmcp.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// 分批写入中单个事务的执行结果
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChunkResult {
+    private int chunk;
+    // 本批第一行在输入中的序号，从0开始
+    private Long firstRow;
+    // 按主键分批时本批的主键范围：大于afterKey且不超过lastKey，最后一批没有上界
+    private String afterKey;
+    private String lastKey;
+    private int rows;
+    private long affectedRows;
+    private long elapsedMs;
+    // COMMITTED、FAILED
+    private String status;
+    private String error;
+}
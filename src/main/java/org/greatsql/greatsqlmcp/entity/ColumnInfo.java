@@ -0,0 +1,18 @@
+package org.greatsql.greatsqlmcp.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ColumnInfo {
+    private String columnName;
+    private int ordinalPosition;
+    private String columnType;
+    private boolean nullable;
+    private String columnDefault;
+    private String extra;
+    private String comment;
+}
@@ -0,0 +1,19 @@
+package org.greatsql.greatsqlmcp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class FleetReport {
+    private String check;
+    // 所有实例中最高的严重程度
+    private HealthSeverity overall;
+    private long elapsedMs;
+    private int succeeded;
+    private int failed;
+    private int timedOut;
+    // 按严重程度排序，同一严重程度内保持实例的配置顺序
+    private List<FleetTargetResult> targets;
+}
@@ -0,0 +1,18 @@
+package org.greatsql.greatsqlmcp.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FleetTargetResult {
+    private String target;
+    // OK、ERROR、TIMEOUT
+    private String status;
+    private HealthSeverity severity;
+    private long elapsedMs;
+    private Object result;
+    private String error;
+}
@@ -0,0 +1,16 @@
+package org.greatsql.greatsqlmcp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ForeignKeyInfo {
+    private String constraintName;
+    private List<String> columns = new ArrayList<>();
+    private String referencedSchema;
+    private String referencedTable;
+    private List<String> referencedColumns = new ArrayList<>();
+}
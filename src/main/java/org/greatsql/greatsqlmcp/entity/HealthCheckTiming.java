@@ -0,0 +1,17 @@
+package org.greatsql.greatsqlmcp.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class HealthCheckTiming {
+    private String check;
+    // OK、ERROR、TIMEOUT
+    private String status;
+    private long elapsedMs;
+    private Integer findings;
+    private String error;
+}
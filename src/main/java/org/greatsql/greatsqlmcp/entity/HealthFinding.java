@@ -0,0 +1,20 @@
+package org.greatsql.greatsqlmcp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class HealthFinding {
+    private HealthSeverity severity;
+    private String check;
+    private String key;
+    private String message;
+
+    public HealthFinding(HealthSeverity severity, String check, String key, String message) {
+        this.severity = severity;
+        this.check = check;
+        this.key = key;
+        this.message = message;
+    }
+}
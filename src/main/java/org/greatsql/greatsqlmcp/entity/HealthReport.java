@@ -0,0 +1,15 @@
+package org.greatsql.greatsqlmcp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class HealthReport {
+    // 所有结论中最高的严重程度
+    private HealthSeverity overall;
+    private long elapsedMs;
+    private List<HealthFinding> findings;
+    private List<HealthCheckTiming> checks;
+}
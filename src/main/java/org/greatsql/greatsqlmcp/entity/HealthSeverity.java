@@ -0,0 +1,23 @@
+package org.greatsql.greatsqlmcp.entity;
+
+// 健康检查结论的严重程度，按声明顺序由高到低
+public enum HealthSeverity {
+    CRITICAL, WARNING, NOTICE, INFO;
+
+    // 各诊断工具的结论以"严重级"、"一般级"、"警告"、"建议"等前缀区分严重程度
+    public static HealthSeverity classify(String message) {
+        if (message == null) {
+            return INFO;
+        }
+        if (message.contains("严重级")) {
+            return CRITICAL;
+        }
+        if (message.contains("一般级") || message.startsWith("警告") || message.contains("失败") || message.contains("出错")) {
+            return WARNING;
+        }
+        if (message.startsWith("建议") || message.startsWith("提示") || message.contains("可能")) {
+            return NOTICE;
+        }
+        return INFO;
+    }
+}
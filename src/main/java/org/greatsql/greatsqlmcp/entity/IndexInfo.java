@@ -0,0 +1,16 @@
+package org.greatsql.greatsqlmcp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class IndexInfo {
+    private String indexName;
+    private boolean unique;
+    private String indexType;
+    // 按SEQ_IN_INDEX排列
+    private List<String> columns = new ArrayList<>();
+}
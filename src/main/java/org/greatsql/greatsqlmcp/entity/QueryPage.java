@@ -0,0 +1,22 @@
+package org.greatsql.greatsqlmcp.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class QueryPage {
+    private String cursorId;
+    // 仅compact格式返回，列名只输出一次
+    private List<String> columns;
+    // rows格式为Map，compact格式为与columns顺序一致的数组
+    private List<Object> rows;
+    private int pageRows;
+    private long totalRows;
+    private long pageBytes;
+    private boolean hasMore;
+    private boolean truncatedByBytes;
+}
@@ -0,0 +1,22 @@
+package org.greatsql.greatsqlmcp.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class QueryResult {
+    private String format;
+    private List<String> columns;
+    private List<String> types;
+    // compact格式：每行一个数组，顺序与columns一致
+    private List<Object[]> rows;
+    // columnar格式：每列一个向量，非空整型/浮点列使用基本类型数组
+    private List<Object> vectors;
+    private int rowCount;
+    // 超出单次调用的行数或字节数上限时为true
+    private Boolean truncated;
+}
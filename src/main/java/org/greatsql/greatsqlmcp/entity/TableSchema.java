@@ -0,0 +1,23 @@
+package org.greatsql.greatsqlmcp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+// 单张表的结构：列、索引、主键和外键
+@Data
+@NoArgsConstructor
+public class TableSchema {
+    private String tableSchema;
+    private String tableName;
+    private List<ColumnInfo> columns = new ArrayList<>();
+    private List<String> primaryKey = new ArrayList<>();
+    private List<IndexInfo> indexes = new ArrayList<>();
+    private List<ForeignKeyInfo> foreignKeys = new ArrayList<>();
+
+    public TableSchema(String tableSchema, String tableName) {
+        this.tableSchema = tableSchema;
+        this.tableName = tableName;
+    }
+}
@@ -0,0 +1,695 @@
+package org.greatsql.greatsqlmcp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mysql.cj.jdbc.JdbcStatement;
+import lombok.extern.slf4j.Slf4j;
+import org.greatsql.greatsqlmcp.config.WriteConfig;
+import org.greatsql.greatsqlmcp.entity.BulkLoadResult;
+import org.greatsql.greatsqlmcp.entity.BulkWriteResult;
+import org.greatsql.greatsqlmcp.entity.ChunkResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// 批量写入：按批次开启事务，批内使用JDBC批处理，由驱动改写为多行VALUES
+@Slf4j
+@Service
+public class BulkWriteService {
+    // 探测CSV换行符和表头时预读的字节数
+    private static final int PEEK_BYTES = 64 * 1024;
+
+    private static final int MAX_WARNINGS = 20;
+
+    private static final int MAX_CHUNK_RESULTS = 100;
+
+    // 每读取这么多字节上报一次导入进度
+    private static final long PROGRESS_BYTES = 8L * 1024 * 1024;
+    @Autowired
+    private ConnectionService connectionService;
+
+    @Autowired
+    private ResultCache resultCache;
+
+    @Autowired
+    private WriteConfig writeConfig;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public BulkWriteResult batchInsert(String database, String tableName, String columns, List<Object> rows, Integer chunkRows) {
+        if (rows == null || rows.isEmpty()) {
+            throw new RuntimeException("待插入的数据不能为空");
+        }
+        if (rows.size() > writeConfig.getMaxBatchRows()) {
+            throw new RuntimeException("单次批量插入最多 " + writeConfig.getMaxBatchRows() + " 行，当前 " + rows.size() + " 行");
+        }
+        // 字段名都加上反引号后拼入INSERT语句，JSON对象的键名中的反引号转义为两个
+        String[] columnArray = columns == null || columns.isBlank() ? columnsOf(rows.get(0))
+                : Arrays.stream(DatabaseService.parseColumns(columns)).map(BulkWriteService::quoteIdentifier).toArray(String[]::new);
+        List<Object[]> values = toValues(columnArray, rows);
+        int chunkSize = chunkRows == null || chunkRows <= 0 ? writeConfig.getChunkRows() : chunkRows;
+
+        BulkWriteResult result = new BulkWriteResult();
+        result.setTableName(tableName);
+        result.setTotalRows((long) values.size());
+        long start = System.nanoTime();
+        ToolCallContext context = ToolCallContext.current();
+        int chunkCount = (values.size() + chunkSize - 1) / chunkSize;
+
+        try (Connection conn = connectionService.getConnection(database);
+             PreparedStatement stmt = conn.prepareStatement(DatabaseService.insertSql(tableName, columnArray))) {
+            conn.setAutoCommit(false);
+            try {
+                for (int chunk = 0; chunk < chunkCount; chunk++) {
+                    if (Thread.currentThread().isInterrupted() || context.isCancelled()) {
+                        // 异步任务被取消或客户端断开时在批次边界停止，已提交的批次保留
+                        result.setStopReason("CANCELLED");
+                        break;
+                    }
+                    int from = chunk * chunkSize;
+                    int to = Math.min(values.size(), from + chunkSize);
+                    ChunkResult chunkResult = insertChunk(conn, stmt, values, from, to);
+                    chunkResult.setChunk(chunk);
+                    result.getChunks().add(chunkResult);
+                    if (chunkResult.getError() != null) {
+                        result.setStopReason("FAILED");
+                        break;
+                    }
+                    result.setAffectedRows(result.getAffectedRows() + chunkResult.getAffectedRows());
+                    context.reportProgress(to, (double) values.size(), "已提交 " + (chunk + 1) + "/" + chunkCount + " 批，共 " + to + " 行");
+                }
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("批量插入数据时出错：" + e.getMessage(), e);
+        } finally {
+            if (result.getAffectedRows() > 0) {
+                resultCache.invalidateTable(database, tableName);
+            }
+        }
+
+        result.setCompleted(result.getStopReason() == null);
+        finish(result, start);
+        return result;
+    }
+
+    // 分批更新/删除的语句：statement为不带WHERE的UPDATE ... SET或DELETE FROM，condition为可选的过滤条件
+    record ChunkedWrite(String database, String tableName, String primaryKey,
+                        String statement, List<String> statementParams,
+                        String condition, List<String> conditionParams) {
+    }
+
+    // 沿主键顺序每次取chunkRows个满足条件的主键作为范围，按范围执行一条自动提交的UPDATE/DELETE，
+    // 单个事务的大小与表的总行数无关。每批执行前检查undo历史长度和复制延迟，超过阈值时暂停。
+    // 失败、取消或限速超时时返回已完成的部分，lastKey可作为resumeAfter继续
+    public BulkWriteResult chunkedWrite(ChunkedWrite write, Integer chunkRows, String resumeAfter) {
+        int chunkSize = chunkRows == null || chunkRows <= 0 ? writeConfig.getChunkRows() : chunkRows;
+        String key = "`" + write.primaryKey().replace("`", "``") + "`";
+
+        BulkWriteResult result = new BulkWriteResult();
+        result.setTableName(write.tableName());
+        result.setThrottledMs(0L);
+        String after = resumeAfter == null || resumeAfter.isEmpty() ? null : resumeAfter;
+        result.setLastKey(after);
+        long start = System.nanoTime();
+        ToolCallContext context = ToolCallContext.current();
+        int chunkCount = 0;
+
+        // 连接保持自动提交，每条UPDATE/DELETE单独成为一个事务
+        try (Connection conn = connectionService.getConnection(write.database())) {
+            while (true) {
+                ChunkResult chunkResult = new ChunkResult();
+                chunkResult.setChunk(chunkCount);
+                chunkResult.setAfterKey(after);
+                String upper = null;
+                try {
+                    if (!throttle(conn, result, context)) {
+                        break;
+                    }
+                    long begin = System.nanoTime();
+                    upper = upperKey(conn, write, key, after, chunkSize);
+                    chunkResult.setLastKey(upper);
+                    chunkResult.setAffectedRows(executeRange(conn, write, key, after, upper));
+                    chunkResult.setRows((int) chunkResult.getAffectedRows());
+                    chunkResult.setStatus("COMMITTED");
+                    chunkResult.setElapsedMs((System.nanoTime() - begin) / 1_000_000);
+                } catch (SQLException e) {
+                    chunkResult.setStatus("FAILED");
+                    chunkResult.setError(e.getMessage());
+                    result.setStopReason("FAILED");
+                    log.warn("分批写入表 {} 主键 {} 之后的批次失败：{}", write.tableName(), after, e.getMessage());
+                }
+                chunkCount++;
+                addChunk(result, chunkResult);
+                if (chunkResult.getError() != null) {
+                    break;
+                }
+                result.setAffectedRows(result.getAffectedRows() + chunkResult.getAffectedRows());
+                if (upper == null) {
+                    break;
+                }
+                after = upper;
+                result.setLastKey(upper);
+                context.reportProgress(result.getAffectedRows(), null,
+                        "已提交 " + chunkCount + " 批，共 " + result.getAffectedRows() + " 行，主键已推进到 " + upper);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("分批写入数据时出错：" + e.getMessage(), e);
+        } finally {
+            if (result.getAffectedRows() > 0) {
+                resultCache.invalidateTable(write.database(), write.tableName());
+            }
+        }
+
+        result.setChunkCount(chunkCount);
+        result.setCompleted(result.getStopReason() == null);
+        finish(result, start);
+        return result;
+    }
+
+    // 本批的主键上界，剩余满足条件的行不足一批时返回null，即最后一批
+    private static String upperKey(Connection conn, ChunkedWrite write, String key, String after, int chunkSize) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(upperKeySql(write, key, after != null, chunkSize))) {
+            int index = 1;
+            if (after != null) {
+                stmt.setString(index++, after);
+            }
+            for (String param : write.conditionParams()) {
+                stmt.setString(index++, param);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    private static long executeRange(Connection conn, ChunkedWrite write, String key, String after, String upper) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(rangeSql(write, key, after != null, upper != null))) {
+            int index = 1;
+            for (String param : write.statementParams()) {
+                stmt.setString(index++, param);
+            }
+            if (after != null) {
+                stmt.setString(index++, after);
+            }
+            if (upper != null) {
+                stmt.setString(index++, upper);
+            }
+            for (String param : write.conditionParams()) {
+                stmt.setString(index++, param);
+            }
+            ToolCallContext.Registration registration = ToolCallContext.current().track(stmt);
+            try {
+                return stmt.executeLargeUpdate();
+            } finally {
+                registration.close();
+            }
+        }
+    }
+
+    // 参数依次为：主键下界(不含，第一批没有)、条件参数
+    static String upperKeySql(ChunkedWrite write, String key, boolean hasLower, int chunkSize) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(key).append(" FROM ").append(write.tableName())
+                .append(" WHERE ").append(hasLower ? key + " > ?" : "1 = 1");
+        if (write.condition() != null) {
+            sql.append(" AND (").append(write.condition()).append(")");
+        }
+        sql.append(" ORDER BY ").append(key).append(" LIMIT 1 OFFSET ").append(chunkSize - 1);
+        return sql.toString();
+    }
+
+    // 参数依次为：SET的参数、主键下界(不含，第一批没有)、主键上界(含，最后一批没有)、条件参数
+    static String rangeSql(ChunkedWrite write, String key, boolean hasLower, boolean hasUpper) {
+        StringBuilder sql = new StringBuilder(write.statement()).append(" WHERE 1 = 1");
+        if (hasLower) {
+            sql.append(" AND ").append(key).append(" > ?");
+        }
+        if (hasUpper) {
+            sql.append(" AND ").append(key).append(" <= ?");
+        }
+        if (write.condition() != null) {
+            sql.append(" AND (").append(write.condition()).append(")");
+        }
+        return sql.toString();
+    }
+
+    // 超过阈值时暂停并重新检查；被取消或累计等待超时返回false
+    private boolean throttle(Connection conn, BulkWriteResult result, ToolCallContext context) throws SQLException {
+        long waited = 0;
+        while (true) {
+            if (Thread.currentThread().isInterrupted() || context.isCancelled()) {
+                result.setStopReason("CANCELLED");
+                return false;
+            }
+            String reason = throttleReason(conn);
+            if (reason == null) {
+                return true;
+            }
+            if (waited >= writeConfig.getThrottleMaxWaitMs()) {
+                result.setStopReason("THROTTLED");
+                log.warn("分批写入表 {} 等待超过 {} 毫秒后停止：{}", result.getTableName(), waited, reason);
+                return false;
+            }
+            context.reportProgress(result.getAffectedRows(), null, reason + "，暂停写入");
+            long sleepMs = Math.max(1, writeConfig.getThrottleSleepMs());
+            try {
+                Thread.sleep(sleepMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.setStopReason("CANCELLED");
+                return false;
+            }
+            waited += sleepMs;
+            result.setThrottledMs(result.getThrottledMs() + sleepMs);
+        }
+    }
+
+    // 在执行写入的连接上检查，每批不再额外占用一个池化连接
+    private String throttleReason(Connection conn) throws SQLException {
+        String sql = "SELECT COUNT FROM INFORMATION_SCHEMA.INNODB_METRICS WHERE NAME = 'trx_rseg_history_len'";
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            if (rs.next() && rs.getLong(1) > writeConfig.getThrottleMaxHistoryLen()) {
+                return "未清理的undo log数量 " + rs.getLong(1) + " 超过 " + writeConfig.getThrottleMaxHistoryLen();
+            }
+        }
+        // 复制延迟取MGR拓扑监控在各从节点上读取的回放延迟，写连接所在的主节点上看不到从节点的延迟；
+        // 未开启拓扑监控时只按undo历史长度限速
+        long lagMs = connectionService.maxReplicaLagMs();
+        if (lagMs > writeConfig.getThrottleMaxReplicaLagSeconds() * 1000) {
+            return "从节点回放延迟 " + lagMs + " 毫秒超过 " + writeConfig.getThrottleMaxReplicaLagSeconds() + " 秒";
+        }
+        return null;
+    }
+
+    private static void addChunk(BulkWriteResult result, ChunkResult chunkResult) {
+        List<ChunkResult> chunks = result.getChunks();
+        if (chunks.size() >= MAX_CHUNK_RESULTS) {
+            chunks.remove(0);
+        }
+        chunks.add(chunkResult);
+    }
+
+    // 单个批次在一个事务中执行，失败时回滚本批并返回错误，之前已提交的批次保持不变
+    private ChunkResult insertChunk(Connection conn, PreparedStatement stmt, List<Object[]> values, int from, int to) throws SQLException {
+        ChunkResult chunkResult = new ChunkResult();
+        chunkResult.setFirstRow((long) from);
+        chunkResult.setRows(to - from);
+        long begin = System.nanoTime();
+        try {
+            for (int i = from; i < to; i++) {
+                Object[] row = values.get(i);
+                for (int c = 0; c < row.length; c++) {
+                    stmt.setObject(c + 1, row[c]);
+                }
+                stmt.addBatch();
+            }
+            chunkResult.setAffectedRows(sum(stmt.executeBatch(), to - from));
+            conn.commit();
+            chunkResult.setStatus("COMMITTED");
+        } catch (SQLException e) {
+            stmt.clearBatch();
+            conn.rollback();
+            chunkResult.setStatus("FAILED");
+            chunkResult.setError(e.getMessage());
+            log.warn("批量插入第 {} 行开始的批次失败：{}", from, e.getMessage());
+        }
+        chunkResult.setElapsedMs((System.nanoTime() - begin) / 1_000_000);
+        return chunkResult;
+    }
+
+    // 改写为多行VALUES后驱动可能返回SUCCESS_NO_INFO，此时按批内行数计
+    static long sum(int[] counts, int rows) {
+        long total = 0;
+        for (int count : counts) {
+            if (count == Statement.SUCCESS_NO_INFO) {
+                return rows;
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    private static void finish(BulkWriteResult result, long start) {
+        long elapsedNanos = System.nanoTime() - start;
+        result.setElapsedMs(elapsedNanos / 1_000_000);
+        result.setRowsPerSecond(elapsedNanos > 0 ? result.getAffectedRows() * 1e9 / elapsedNanos : 0);
+    }
+
+    // 通过LOAD DATA LOCAL INFILE导入CSV或NDJSON，数据来自请求内容或服务器本地文件，
+    // 以输入流的形式直接交给驱动发送，NDJSON在读取过程中逐行转换为CSV
+    public BulkLoadResult bulkLoad(String database, String tableName, String format, String content,
+                                   String path, String columns, Boolean header) {
+        String loadFormat = format == null || format.isBlank() ? "csv" : format.toLowerCase(Locale.ROOT);
+        if (!loadFormat.equals("csv") && !loadFormat.equals("ndjson")) {
+            throw new RuntimeException("不支持的数据格式：" + format + "，可选值为csv或ndjson");
+        }
+        boolean inline = content != null && !content.isEmpty();
+        if (inline == (path != null && !path.isBlank())) {
+            throw new RuntimeException("待导入的数据content和服务器本地文件路径path必须且只能指定一个");
+        }
+
+        BulkLoadResult result = new BulkLoadResult();
+        result.setTableName(tableName);
+        result.setFormat(loadFormat);
+        result.setSource(inline ? "inline" : path);
+        long start = System.nanoTime();
+
+        InputStream raw = null;
+        try {
+            long totalBytes;
+            if (inline) {
+                byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+                raw = new ByteArrayInputStream(bytes);
+                totalBytes = bytes.length;
+            } else {
+                Path file = resolveLoadPath(path);
+                raw = Files.newInputStream(file);
+                totalBytes = Files.size(file);
+            }
+            CountingInputStream counted = new CountingInputStream(raw, totalBytes, ToolCallContext.current());
+            raw = counted;
+
+            String[] columnArray = columns == null || columns.isBlank() ? null : DatabaseService.parseColumns(columns);
+            InputStream stream;
+            NdjsonCsvInputStream ndjson = null;
+            boolean crlf = false;
+            boolean skipHeader = false;
+            if (loadFormat.equals("ndjson")) {
+                ndjson = new NdjsonCsvInputStream(
+                        new BufferedReader(new InputStreamReader(counted, StandardCharsets.UTF_8)), objectMapper, columnArray);
+                columnArray = ndjson.columns();
+                stream = ndjson;
+            } else {
+                BufferedInputStream buffered = new BufferedInputStream(counted, PEEK_BYTES);
+                buffered.mark(PEEK_BYTES);
+                byte[] head = buffered.readNBytes(PEEK_BYTES);
+                buffered.reset();
+                String headText = new String(head, StandardCharsets.UTF_8);
+                crlf = headText.contains("\r\n");
+                skipHeader = Boolean.TRUE.equals(header);
+                if (skipHeader && columnArray == null) {
+                    columnArray = csvHeader(headText, head.length < PEEK_BYTES);
+                }
+                stream = buffered;
+            }
+            if (columnArray != null) {
+                result.setColumns(Arrays.asList(columnArray));
+            }
+
+            load(database, loadSql(tableName, columnArray, crlf, skipHeader), stream, ndjson, result);
+            result.setBytesRead(counted.count);
+        } catch (IOException e) {
+            throw new RuntimeException("读取待导入的数据时出错：" + e.getMessage(), e);
+        } finally {
+            if (raw != null) {
+                try {
+                    raw.close();
+                } catch (IOException ignored) {
+                    // 读取已经结束，关闭失败不影响导入结果
+                }
+            }
+            if (result.getRowsLoaded() > 0) {
+                resultCache.invalidateTable(database, tableName);
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        result.setElapsedMs(elapsedNanos / 1_000_000);
+        result.setRowsPerSecond(elapsedNanos > 0 ? result.getRowsLoaded() * 1e9 / elapsedNanos : 0);
+        result.setBytesPerSecond(elapsedNanos > 0 ? result.getBytesRead() * 1e9 / elapsedNanos : 0);
+        return result;
+    }
+
+    // 整个导入在一个事务中完成，数据转换出错时回滚，不会留下只导入了一部分的数据
+    private void load(String database, String sql, InputStream stream, NdjsonCsvInputStream ndjson,
+                      BulkLoadResult result) {
+        try (Connection conn = connectionService.getLoadConnection(database);
+             Statement stmt = conn.createStatement()) {
+            stmt.unwrap(JdbcStatement.class).setLocalInfileInputStream(stream);
+            conn.setAutoCommit(false);
+            try {
+                long rows = stmt.executeLargeUpdate(sql);
+                if (ndjson != null && ndjson.failure() != null) {
+                    throw new SQLException(ndjson.failure().getMessage(), ndjson.failure());
+                }
+                // COMMIT会清空告警，先读取
+                collectWarnings(conn, result);
+                conn.commit();
+                result.setRowsLoaded(rows);
+            } catch (SQLException e) {
+                conn.rollback();
+                if (ndjson != null && ndjson.failure() != null && e.getCause() != ndjson.failure()) {
+                    throw new SQLException(ndjson.failure().getMessage(), ndjson.failure());
+                }
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("导入数据时出错：" + e.getMessage(), e);
+        }
+    }
+
+    private static void collectWarnings(Connection conn, BulkLoadResult result) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SHOW COUNT(*) WARNINGS")) {
+                result.setWarningCount(rs.next() ? rs.getLong(1) : 0);
+            }
+            if (result.getWarningCount() == 0) {
+                return;
+            }
+            try (ResultSet rs = stmt.executeQuery("SHOW WARNINGS LIMIT " + MAX_WARNINGS)) {
+                while (rs.next()) {
+                    result.getWarnings().add(rs.getString("Level") + " " + rs.getInt("Code") + ": " + rs.getString("Message"));
+                }
+            }
+        }
+    }
+
+    // 与bulkLoad的CSV约定一致：逗号分隔，双引号包围且引号加倍转义，未加引号的NULL为空值。
+    // 换行符使用十六进制写法，不受NO_BACKSLASH_ESCAPES影响
+    static String loadSql(String tableName, String[] columns, boolean crlf, boolean skipHeader) {
+        StringBuilder sql = new StringBuilder("LOAD DATA LOCAL INFILE 'stream' INTO TABLE ")
+                .append(tableName)
+                .append(" CHARACTER SET utf8mb4")
+                .append(" FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY ''")
+                .append(" LINES TERMINATED BY ").append(crlf ? "0x0d0a" : "0x0a");
+        if (skipHeader) {
+            sql.append(" IGNORE 1 LINES");
+        }
+        if (columns != null) {
+            sql.append(" (");
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(quoteIdentifier(columns[i]));
+            }
+            sql.append(")");
+        }
+        return sql.toString();
+    }
+
+    // 表头和NDJSON的字段名来自数据本身，统一加反引号
+    private static String quoteIdentifier(String name) {
+        return "`" + unquoteIdentifier(name).replace("`", "``") + "`";
+    }
+
+    // 去掉字段名两侧的反引号，得到JSON对象中对应的键名
+    private static String unquoteIdentifier(String name) {
+        return name.length() > 1 && name.startsWith("`") && name.endsWith("`")
+                ? name.substring(1, name.length() - 1).replace("``", "`") : name;
+    }
+
+    static String[] csvHeader(String head, boolean complete) {
+        int end = head.indexOf('\n');
+        if (end < 0) {
+            if (!complete) {
+                throw new RuntimeException("CSV表头超过 " + PEEK_BYTES + " 字节");
+            }
+            end = head.length();
+        }
+        String line = head.substring(0, end);
+        if (line.endsWith("\r")) {
+            line = line.substring(0, line.length() - 1);
+        }
+        if (line.startsWith("\uFEFF")) {
+            line = line.substring(1);
+        }
+        List<String> names = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                names.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        names.add(field.toString().trim());
+        if (names.stream().anyMatch(String::isEmpty)) {
+            throw new RuntimeException("CSV表头格式错误: " + line);
+        }
+        return names.toArray(String[]::new);
+    }
+
+    // 只允许读取greatsql.write.load-dir目录下的文件
+    private Path resolveLoadPath(String path) throws IOException {
+        String loadDir = writeConfig.getLoadDir();
+        if (loadDir == null || loadDir.isBlank()) {
+            throw new RuntimeException("未配置greatsql.write.load-dir，不允许从服务器本地文件导入");
+        }
+        Path dir = Path.of(loadDir).toRealPath();
+        Path file = dir.resolve(path).normalize();
+        if (!Files.isRegularFile(file)) {
+            throw new RuntimeException("文件不存在：" + path);
+        }
+        file = file.toRealPath();
+        if (!file.startsWith(dir)) {
+            throw new RuntimeException("只允许导入 " + dir + " 目录下的文件");
+        }
+        return file;
+    }
+
+    // 统计从数据源读取的字节数并按字节上报进度，驱动在调用线程上读取输入流
+    private static final class CountingInputStream extends FilterInputStream {
+        private final long total;
+        private final ToolCallContext context;
+        private long count;
+        private long reported;
+
+        private CountingInputStream(InputStream in, long total, ToolCallContext context) {
+            super(in);
+            this.total = total;
+            this.context = context;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                advance(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                advance(n);
+            }
+            return n;
+        }
+
+        private void advance(long n) {
+            count += n;
+            if (count - reported >= PROGRESS_BYTES) {
+                reported = count;
+                context.reportProgress(count, (double) total, "已读取 " + count + "/" + total + " 字节");
+            }
+        }
+    }
+
+    public List<Object> parseRows(String rows) {
+        if (rows == null || rows.isBlank()) {
+            throw new RuntimeException("待插入的数据不能为空");
+        }
+        try {
+            Object parsed = objectMapper.readValue(rows, Object.class);
+            if (!(parsed instanceof List<?> list)) {
+                throw new RuntimeException("待插入的数据必须是JSON数组");
+            }
+            return new ArrayList<>(list);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("待插入的数据不是合法的JSON数组：" + e.getOriginalMessage(), e);
+        }
+    }
+
+    private static String[] columnsOf(Object firstRow) {
+        if (!(firstRow instanceof Map<?, ?> map) || map.isEmpty()) {
+            throw new RuntimeException("未指定字段名列表时，每行数据必须是非空的JSON对象");
+        }
+        return map.keySet().stream().map(key -> "`" + String.valueOf(key).replace("`", "``") + "`").toArray(String[]::new);
+    }
+
+    // 每行可以是按字段名取值的JSON对象，或按字段顺序排列的JSON数组。
+    // columns中加了反引号的字段名按去掉反引号后的名称在JSON对象中取值
+    List<Object[]> toValues(String[] columns, List<Object> rows) {
+        List<Object[]> values = new ArrayList<>(rows.size());
+        for (int r = 0; r < rows.size(); r++) {
+            Object row = rows.get(r);
+            Object[] rowValues = new Object[columns.length];
+            if (row instanceof Map<?, ?> map) {
+                if (map.size() != columns.length) {
+                    throw new RuntimeException("第 " + (r + 1) + " 行的字段数量与字段名列表不匹配");
+                }
+                for (int c = 0; c < columns.length; c++) {
+                    String key = map.containsKey(columns[c]) ? columns[c] : unquoteIdentifier(columns[c]);
+                    if (!map.containsKey(key)) {
+                        throw new RuntimeException("第 " + (r + 1) + " 行缺少字段 " + key);
+                    }
+                    rowValues[c] = toBindValue(map.get(key));
+                }
+            } else if (row instanceof List<?> list) {
+                if (list.size() != columns.length) {
+                    throw new RuntimeException("第 " + (r + 1) + " 行的字段数量与值数量不匹配");
+                }
+                for (int c = 0; c < columns.length; c++) {
+                    rowValues[c] = toBindValue(list.get(c));
+                }
+            } else {
+                throw new RuntimeException("第 " + (r + 1) + " 行必须是JSON对象或数组");
+            }
+            values.add(rowValues);
+        }
+        return values;
+    }
+
+    // 嵌套的对象和数组按JSON文本写入
+    private Object toBindValue(Object value) {
+        if (value instanceof Map<?, ?> || value instanceof List<?>) {
+            try {
+                return objectMapper.writeValueAsString(value);
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("无法序列化字段值：" + e.getOriginalMessage(), e);
+            }
+        }
+        return value;
+    }
+}
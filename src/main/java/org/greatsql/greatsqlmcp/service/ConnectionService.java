@@ -1,34 +1,530 @@
 package org.greatsql.greatsqlmcp.service;
 
+import com.mysql.cj.conf.ConnectionUrl;
+import com.mysql.cj.jdbc.JdbcConnection;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.greatsql.greatsqlmcp.config.DatabaseConfig;
+import org.greatsql.greatsqlmcp.config.DatabaseTarget;
+import org.greatsql.greatsqlmcp.config.MgrConfig;
+import org.greatsql.greatsqlmcp.config.QueryConfig;
+import org.greatsql.greatsqlmcp.config.ReadSplitConfig;
+import org.greatsql.greatsqlmcp.config.WriteConfig;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+@Slf4j
 @Service
 public class ConnectionService {
     @Autowired
     private DatabaseConfig databaseConfig;
 
+    @Autowired
+    private QueryConfig queryConfig;
+
+    @Autowired
+    private WriteConfig writeConfig;
+
+    @Autowired
+    private ReadSplitConfig readSplitConfig;
+
+    @Autowired
+    private MgrConfig mgrConfig;
+
+    private static final Set<String> CONSISTENCY_LEVELS = Set.of(
+            "EVENTUAL", "BEFORE_ON_PRIMARY_FAILOVER", "BEFORE", "AFTER", "BEFORE_AND_AFTER");
+
+    // 按配置顺序登记的实例，第一个为默认实例；启动后不再变化
+    private final Map<String, TargetPools> targets = new LinkedHashMap<>();
+
+    private String defaultTarget;
+
+    private ScheduledExecutorService topologyWatcher;
+
+    @PostConstruct
+    public void init() {
+        for (DatabaseTarget target : databaseConfig.getTargets()) {
+            if (defaultTarget == null) {
+                defaultTarget = target.name();
+            }
+            targets.put(target.name(), createPools(target));
+        }
+        log.info("已配置 {} 个目标实例：{}，默认实例 {}", targets.size(), targets.keySet(), defaultTarget);
+
+        if (watchTopology()) {
+            // 实例较多时由几个线程分担，个别实例响应慢不会推迟其他实例的刷新
+            topologyWatcher = Executors.newScheduledThreadPool(Math.min(targets.size(), 4), Thread.ofPlatform()
+                    .name("greatsql-topology-watcher-", 0).daemon(true).factory());
+            for (TargetPools pools : targets.values()) {
+                topologyWatcher.scheduleWithFixedDelay(pools.group::refreshQuietly, 0,
+                        mgrConfig.getRefreshMs(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    // 读写分离依赖拓扑监控提供的成员状态和延迟
+    private boolean watchTopology() {
+        return mgrConfig.isTopologyEnabled() || readSplitConfig.isEnabled();
+    }
+
+    // 默认实例的连接池沿用原来的名称，其他实例在名称后附加实例名
+    private TargetPools createPools(DatabaseTarget target) {
+        String suffix = target.name().equals(defaultTarget) ? "" : "-" + target.name();
+        String address = watchTopology() ? hostPortPair(target.jdbcUrl()) : null;
+        TargetPools pools = new TargetPools(target, suffix, createEndpoint(target, suffix, address));
+        if (watchTopology()) {
+            String initSql = readConnectionInitSql();
+            pools.group = new MgrGroup(target.name(), pools, mgrConfig, readSplitConfig,
+                    (host, port) -> createReadPool(target, suffix, host, port, initSql));
+        }
+        return pools;
+    }
+
+    // 写连接所在节点的一组连接池，target的URL指向该节点
+    private Endpoint createEndpoint(DatabaseTarget target, String suffix, String address) {
+        HikariDataSource main = createPool(target, "greatsql-pool" + suffix,
+                target.poolMaxSize(), databaseConfig.getPoolMinIdle(), mainPoolProperties());
+
+        // setFetchSize(n>0)时使用服务端游标逐批读取，结果集不会一次性传到MCP Server
+        Properties cursorProps = new Properties();
+        cursorProps.setProperty("useCursorFetch", "true");
+        HikariDataSource cursor = createPool(target, "greatsql-cursor-pool" + suffix,
+                queryConfig.getMaxOpenCursors(), 0, cursorProps);
+
+        // 这个池上只执行由bulkLoad发起、并已指定输入流的LOAD DATA LOCAL语句，
+        // 驱动不会按服务端给出的文件名读取本地文件
+        Properties loadProps = new Properties();
+        loadProps.setProperty("allowLoadLocalInfile", "true");
+        HikariDataSource load = createPool(target, "greatsql-load-pool" + suffix,
+                Math.max(1, writeConfig.getLoadPoolSize()), 0, loadProps);
+        return new Endpoint(address, main, cursor, load);
+    }
+
+    // 主节点切换：先建好指向新主节点的连接池再整体替换，之后获取的写连接都在新主节点上
+    private boolean switchEndpoint(TargetPools pools, String host, int port) {
+        DatabaseTarget moved = pools.target.withHost(host, port);
+        String address = hostPortPair(moved.jdbcUrl());
+        Endpoint old = pools.endpoint;
+        if (address.equals(old.address())) {
+            return false;
+        }
+        Endpoint replacement = createEndpoint(moved, pools.suffix, address);
+        pools.endpoint = replacement;
+        drain(pools, old);
+        return true;
+    }
+
+    // 旧连接池不再补充空闲连接，空闲连接立即关闭，借出的连接归还时关闭；
+    // 最多等待drain-timeout-ms让正在执行的语句结束，之后关闭连接池
+    private void drain(TargetPools pools, Endpoint old) {
+        pools.draining.add(old);
+        for (HikariDataSource pool : old.pools()) {
+            pool.setMinimumIdle(0);
+            HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+            if (bean != null) {
+                bean.softEvictConnections();
+            }
+        }
+        Thread.ofVirtual().name("greatsql-pool-drain-" + pools.target.name()).start(() -> {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(mgrConfig.getDrainTimeoutMs());
+            try {
+                while (old.activeConnections() > 0 && System.nanoTime() < deadline) {
+                    Thread.sleep(200);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            int remaining = old.activeConnections();
+            old.close();
+            pools.draining.remove(old);
+            if (remaining > 0) {
+                log.warn("实例 {} 切换前的节点 {} 的连接池等待超时，已关闭，{} 个仍在使用的连接被中断",
+                        pools.target.name(), old.address(), remaining);
+            } else {
+                log.info("实例 {} 切换前的节点 {} 的连接池已排空并关闭", pools.target.name(), old.address());
+            }
+        });
+    }
+
+    // 指向写连接所在节点之外的MGR成员，用于读写分离、读取回放延迟，以及写连接不可用时读取组成员；账户和连接参数与主连接池相同
+    private HikariDataSource createReadPool(DatabaseTarget target, String suffix, String host, int port, String initSql) {
+        HikariConfig config = poolConfig(target.withHost(host, port), "greatsql-read-pool" + suffix + "-" + host + "-" + port,
+                readSplitConfig.getPoolMaxSize(), 0, mainPoolProperties());
+        config.setConnectionTimeout(readSplitConfig.getPoolAcquireTimeoutMs());
+        config.setConnectionInitSql(initSql);
+        return new HikariDataSource(config);
+    }
+
+    // 启动时校验，配置错误时不等到第一次连接从节点才发现
+    private String readConnectionInitSql() {
+        String consistency = readSplitConfig.getConsistency().trim().toUpperCase(Locale.ROOT);
+        if (consistency.isEmpty()) {
+            return null;
+        }
+        if (!CONSISTENCY_LEVELS.contains(consistency)) {
+            throw new IllegalStateException("不支持的group_replication_consistency：" + consistency);
+        }
+        return "SET SESSION group_replication_consistency = '" + consistency + "'";
+    }
+
+    // 与驱动解析URL的方式一致，用于判断连接属于哪个节点
+    private static String hostPortPair(String jdbcUrl) {
+        return ConnectionUrl.getConnectionUrlInstance(jdbcUrl, null).getMainHost().getHostPortPair();
+    }
+
+    // 开启后prepareStatement在服务端预处理，关闭时语句句柄留在连接自己的LRU缓存中，
+    // 同一连接再次执行相同SQL时直接复用，服务端不再重复解析；无法预处理的语句由驱动自动退回客户端模式
+    private Properties mainPoolProperties() {
+        Properties props = new Properties();
+        if (databaseConfig.isServerPrepStmts()) {
+            props.setProperty("useServerPrepStmts", "true");
+            props.setProperty("cachePrepStmts", "true");
+            props.setProperty("prepStmtCacheSize", String.valueOf(databaseConfig.getPrepStmtCacheSize()));
+            props.setProperty("prepStmtCacheSqlLimit", String.valueOf(databaseConfig.getPrepStmtCacheSqlLimit()));
+        }
+        // executeBatch时把多条INSERT改写为一条多行VALUES语句
+        props.setProperty("rewriteBatchedStatements", "true");
+        return props;
+    }
+
+    private HikariDataSource createPool(DatabaseTarget target, String poolName, int maxSize, int minIdle,
+                                        Properties dataSourceProperties) {
+        return new HikariDataSource(poolConfig(target, poolName, maxSize, minIdle, dataSourceProperties));
+    }
+
+    private HikariConfig poolConfig(DatabaseTarget target, String poolName, int maxSize, int minIdle,
+                                    Properties dataSourceProperties) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setJdbcUrl(target.jdbcUrl());
+        config.setUsername(target.username());
+        config.setPassword(target.password());
+        config.setMaximumPoolSize(maxSize);
+        config.setMinimumIdle(Math.min(minIdle, maxSize));
+        config.setConnectionTimeout(databaseConfig.getPoolAcquireTimeoutMs());
+        config.setValidationTimeout(databaseConfig.getPoolValidationTimeoutMs());
+        config.setIdleTimeout(databaseConfig.getPoolIdleTimeoutMs());
+        config.setMaxLifetime(databaseConfig.getPoolMaxLifetimeMs());
+        config.setKeepaliveTime(databaseConfig.getPoolKeepaliveMs());
+        config.setDataSourceProperties(dataSourceProperties);
+        // 不设置connectionTestQuery，校验走JDBC4 isValid()，驱动会发送轻量的COM_PING
+        // 数据库暂不可用时不阻塞服务启动，由连接池在后台持续补充连接；
+        // 连接池创建后由后台维护线程立即补足min-idle个连接，不需要另外预热
+        config.setInitializationFailTimeout(-1);
+        return config;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (topologyWatcher != null) {
+            topologyWatcher.shutdownNow();
+        }
+        for (TargetPools pools : targets.values()) {
+            if (pools.group != null) {
+                pools.group.close();
+            }
+            pools.draining.forEach(Endpoint::close);
+            pools.endpoint.close();
+        }
+    }
+
+    // 当前工具调用的目标实例，未指定时为默认实例
+    public String currentTarget() {
+        String target = ToolCallContext.current().target();
+        return target != null ? target : defaultTarget;
+    }
+
+    public String defaultTarget() {
+        return defaultTarget;
+    }
+
+    public boolean hasTarget(String name) {
+        return targets.containsKey(name);
+    }
+
+    // 按配置顺序，第一个为默认实例
+    public List<String> targetNames() {
+        return List.copyOf(targets.keySet());
+    }
+
+    private TargetPools pools() throws SQLException {
+        return pools(currentTarget());
+    }
+
+    private TargetPools pools(String target) throws SQLException {
+        TargetPools pools = targets.get(target);
+        if (pools == null) {
+            throw new SQLException("未知的目标实例：" + target);
+        }
+        return pools;
+    }
+
     public Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(
-                databaseConfig.getJdbcUrl(),
-                databaseConfig.getUsername(),
-                databaseConfig.getPassword()
-        );
+        long start = System.nanoTime();
+        try {
+            return pools().endpoint.main.getConnection();
+        } finally {
+            ToolCallContext.current().recordPhase(ToolCallContext.Phase.ACQUIRE, System.nanoTime() - start);
+        }
     }
 
     public Connection getConnection(String database) throws SQLException {
-        String baseUrl = databaseConfig.getJdbcUrl();
-        if (!baseUrl.endsWith("/")) {
-            baseUrl += "/";
-        }
-        return DriverManager.getConnection(
-                baseUrl + database,
-                databaseConfig.getUsername(),
-                databaseConfig.getPassword()
-        );
+        // 复用同一批池化会话，仅切换默认库，不再为每个库拼接新的JDBC URL
+        return acquire(pools().endpoint.main, database);
+    }
+
+    // 开启读写分离时只读语句使用的连接：轮询延迟在阈值内的从节点，没有可用从节点或获取失败时使用写连接所在节点
+    public Connection getReadConnection(String database) throws SQLException {
+        TargetPools pools = pools();
+        MgrGroup.Replica replica = readSplitConfig.isEnabled() && pools.group != null ? pools.group.pick() : null;
+        if (replica != null) {
+            try {
+                return acquire(replica.pool(), database);
+            } catch (SQLException e) {
+                pools.group.markUnavailable(replica, e);
+            }
+        }
+        return acquire(pools.endpoint.main, database);
+    }
+
+    // 结果要放入缓存的读：从节点的结果可能落后于已使缓存失效的写入，缓存后会在整个有效期内返回旧数据，
+    // 因此除非从节点读连接使用BEFORE一致性，都在写连接所在节点上执行
+    public Connection getCacheLoadConnection(String database) throws SQLException {
+        return readSplitConfig.isConsistentReads() ? getReadConnection(database) : getConnection(database);
+    }
+
+    public Connection getCursorConnection(String database) throws SQLException {
+        return acquire(pools().endpoint.cursor, database);
+    }
+
+    public Connection getLoadConnection(String database) throws SQLException {
+        return acquire(pools().endpoint.load, database);
+    }
+
+    // 等待连接池和切换默认库的耗时计入当前工具调用的acquire阶段
+    private static Connection acquire(HikariDataSource pool, String database) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            Connection conn = pool.getConnection();
+            if (database == null) {
+                return conn;
+            }
+            try {
+                conn.setCatalog(database);
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
+            }
+            return conn;
+        } finally {
+            ToolCallContext.current().recordPhase(ToolCallContext.Phase.ACQUIRE, System.nanoTime() - start);
+        }
+    }
+
+    // 在同一节点的另一个池化连接上对指定会话执行KILL QUERY，只终止当前语句，会话本身保留
+    private static void killQuery(HikariDataSource pool, long connectionId) throws SQLException {
+        try (Connection admin = pool.getConnection();
+             Statement stmt = admin.createStatement()) {
+            stmt.execute("KILL QUERY " + connectionId);
+        }
+    }
+
+    // 会话ID只在所在节点上有效：开启MGR拓扑监控时连接可能来自从节点或切换前的主节点，按连接的host:port找到对应节点
+    private void killQuery(TargetPools pools, Connection conn) throws SQLException {
+        JdbcConnection jdbc = conn.unwrap(JdbcConnection.class);
+        killQuery(pools.adminPool(jdbc.getHostPortPair()), jdbc.getId());
+    }
+
+    // 取消调用时使用：比驱动的Statement.cancel()少建一条物理连接，且对已返回、正在流式读取结果集的语句同样有效。
+    // 取消在其他线程上执行，因此在创建上下文时绑定目标实例
+    public ToolCallContext.StatementCanceller canceller(String target) {
+        String resolved = target != null ? target : defaultTarget;
+        return stmt -> killQuery(pools(resolved), stmt.getConnection());
+    }
+
+    // 中断读取到一半的流式结果集，否则关闭时驱动会把剩余的行全部读完
+    public void killQuery(String target, Connection conn) {
+        try {
+            killQuery(pools(target), conn);
+        } catch (SQLException e) {
+            log.warn("终止正在执行的语句失败：{}", e.getMessage());
+        }
+    }
+
+    // 服务端会话ID，即CONNECTION_ID()
+    public static long connectionId(Connection conn) throws SQLException {
+        return conn.unwrap(JdbcConnection.class).getId();
+    }
+
+    public Map<String, Object> getPoolStats() {
+        TargetPools pools = targets.get(currentTarget());
+        if (pools == null) {
+            throw new RuntimeException("未知的目标实例：" + currentTarget());
+        }
+        Endpoint endpoint = pools.endpoint;
+        HikariDataSource dataSource = endpoint.main;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("target", pools.target.name());
+        if (endpoint.address != null) {
+            stats.put("writeEndpoint", endpoint.address);
+        }
+        stats.put("poolName", dataSource.getPoolName());
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool != null) {
+            stats.put("activeConnections", pool.getActiveConnections());
+            stats.put("idleConnections", pool.getIdleConnections());
+            stats.put("totalConnections", pool.getTotalConnections());
+            stats.put("threadsAwaitingConnection", pool.getThreadsAwaitingConnection());
+        }
+        stats.put("maxPoolSize", dataSource.getMaximumPoolSize());
+        stats.put("minIdle", dataSource.getMinimumIdle());
+        stats.put("acquireTimeoutMs", dataSource.getConnectionTimeout());
+        stats.put("idleTimeoutMs", dataSource.getIdleTimeout());
+        stats.put("maxLifetimeMs", dataSource.getMaxLifetime());
+        stats.put("serverPrepStmts", databaseConfig.isServerPrepStmts());
+        stats.put("prepStmtCacheSize", databaseConfig.getPrepStmtCacheSize());
+        if (pools.group != null) {
+            stats.put("members", pools.group.describe());
+        }
+        return stats;
+    }
+
+    // 当前目标实例最新的MGR拓扑快照
+    public MgrTopology getTopology() {
+        TargetPools pools = targets.get(currentTarget());
+        if (pools == null) {
+            throw new RuntimeException("未知的目标实例：" + currentTarget());
+        }
+        if (pools.group == null) {
+            throw new RuntimeException("未开启MGR拓扑监控，需要设置greatsql.mgr.topology-enabled=true或开启读写分离");
+        }
+        MgrTopology topology = pools.group.topology();
+        if (topology == null) {
+            throw new RuntimeException("MGR拓扑尚未完成首次刷新，请稍后重试");
+        }
+        return topology;
+    }
+
+    // 当前目标实例各从节点中最大的回放延迟毫秒数，未开启拓扑监控、快照已过期或没有读到任何从节点的延迟时返回-1
+    public long maxReplicaLagMs() {
+        TargetPools pools = targets.get(currentTarget());
+        return pools == null || pools.group == null ? -1 : pools.group.maxLagMs();
+    }
+
+    // 全部实例的概要，URL去掉查询参数，不输出密码
+    public List<Map<String, Object>> describeTargets() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (TargetPools pools : targets.values()) {
+            DatabaseTarget target = pools.target;
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("name", target.name());
+            info.put("default", target.name().equals(defaultTarget));
+            int query = target.jdbcUrl().indexOf('?');
+            info.put("url", query < 0 ? target.jdbcUrl() : target.jdbcUrl().substring(0, query));
+            info.put("user", target.username());
+            Endpoint endpoint = pools.endpoint;
+            if (endpoint.address != null) {
+                info.put("writeEndpoint", endpoint.address);
+            }
+            info.put("maxPoolSize", endpoint.main.getMaximumPoolSize());
+            HikariPoolMXBean pool = endpoint.main.getHikariPoolMXBean();
+            if (pool != null) {
+                info.put("activeConnections", pool.getActiveConnections());
+                info.put("idleConnections", pool.getIdleConnections());
+                info.put("totalConnections", pool.getTotalConnections());
+            }
+            result.add(info);
+        }
+        return result;
+    }
+
+    // 一个实例的全部连接池。写连接所在节点的连接池作为一个整体放在endpoint中，主节点切换时一次替换；
+    // 未开启MGR拓扑监控时group为null
+    private final class TargetPools implements MgrGroup.WriteEndpoint {
+        private final DatabaseTarget target;
+        private final String suffix;
+        private volatile Endpoint endpoint;
+        private MgrGroup group;
+        // 主节点切换后仍在等待语句结束的旧连接池
+        private final List<Endpoint> draining = new CopyOnWriteArrayList<>();
+
+        private TargetPools(DatabaseTarget target, String suffix, Endpoint endpoint) {
+            this.target = target;
+            this.suffix = suffix;
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public HikariDataSource pool() {
+            return endpoint.main;
+        }
+
+        @Override
+        public String address() {
+            return endpoint.address;
+        }
+
+        @Override
+        public boolean switchTo(String host, int port) {
+            return switchEndpoint(this, host, port);
+        }
+
+        // 在连接所在节点上执行KILL QUERY要使用的连接池
+        private HikariDataSource adminPool(String address) throws SQLException {
+            Endpoint current = endpoint;
+            if (group == null || address.equals(current.address)) {
+                return current.main;
+            }
+            HikariDataSource member = group.poolFor(address);
+            if (member != null) {
+                return member;
+            }
+            for (Endpoint old : draining) {
+                if (address.equals(old.address)) {
+                    return old.main;
+                }
+            }
+            throw new SQLException("连接所在的节点 " + address + " 已不在MGR组中，无法终止其上的语句");
+        }
+    }
+
+    // 写连接所在节点的主连接池、游标连接池和导入连接池；address为该节点的host:port，仅在开启MGR拓扑监控时设置
+    private record Endpoint(String address, HikariDataSource main, HikariDataSource cursor, HikariDataSource load) {
+        private List<HikariDataSource> pools() {
+            return List.of(main, cursor, load);
+        }
+
+        private int activeConnections() {
+            int active = 0;
+            for (HikariDataSource pool : pools()) {
+                HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+                active += bean == null ? 0 : bean.getActiveConnections();
+            }
+            return active;
+        }
+
+        private void close() {
+            load.close();
+            cursor.close();
+            main.close();
+        }
     }
 }
@@ -1,7 +1,20 @@
 package org.greatsql.greatsqlmcp.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.greatsql.greatsqlmcp.config.MonitorConfig;
+import org.greatsql.greatsqlmcp.config.QueryConfig;
+import org.greatsql.greatsqlmcp.entity.BulkLoadResult;
+import org.greatsql.greatsqlmcp.entity.BulkWriteResult;
+import org.greatsql.greatsqlmcp.entity.ColumnInfo;
 import org.greatsql.greatsqlmcp.entity.DatabaseInfo;
+import org.greatsql.greatsqlmcp.entity.ForeignKeyInfo;
+import org.greatsql.greatsqlmcp.entity.IndexInfo;
+import org.greatsql.greatsqlmcp.entity.QueryPage;
 import org.greatsql.greatsqlmcp.entity.TableInfo;
+import org.greatsql.greatsqlmcp.entity.TableSchema;
+import org.greatsql.greatsqlmcp.service.ToolCallContext.Phase;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,16 +28,82 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+@Slf4j
 @Service
 public class DatabaseService {
     @Autowired
     private ConnectionService connectionService;
 
+    @Autowired
+    private QueryCursorService queryCursorService;
+
+    @Autowired
+    private StatusSampler statusSampler;
+
+    @Autowired
+    private MonitorConfig monitorConfig;
+
+    @Autowired
+    private MetadataCache metadataCache;
+
+    @Autowired
+    private QueryConfig queryConfig;
+
+    @Autowired
+    private RowCountService rowCountService;
+
+    @Autowired
+    private ResultCache resultCache;
+
+    @Autowired
+    private BulkWriteService bulkWriteService;
+
+    @Autowired
+    private QueryGuard queryGuard;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // trackNotableStats关注的全局状态指标
+    private static final String[] NOTABLE_STATUS = {
+            "Created_tmp_disk_tables",
+            "Innodb_buffer_pool_wait_free",
+            "Innodb_log_waits",
+            "Innodb_row_lock_current_waits",
+            "Handler_read_rnd",
+            "Handler_read_rnd_next",
+            "Handler_read_first",
+            "Handler_read_key",
+            "Handler_read_last",
+            "Handler_read_next",
+            "Handler_read_prev",
+            "Select_full_join",
+            "Select_scan",
+            "Sort_merge_passes"
+    };
+
+    // 按窗口内增量判断阈值的指标
+    private static final Set<String> DELTA_CHECKED_STATUS = Set.of(
+            "Created_tmp_disk_tables",
+            "Innodb_buffer_pool_wait_free",
+            "Innodb_log_waits",
+            "Innodb_row_lock_current_waits",
+            "Select_full_join",
+            "Select_scan",
+            "Sort_merge_passes"
+    );
+
     @Tool(name = "listDatabases", description = "列出服务器上所有可用的数据库")
     public List<DatabaseInfo> listDatabases() {
+        return metadataCache.databases(this::loadDatabases);
+    }
+
+    private List<DatabaseInfo> loadDatabases() {
         List<DatabaseInfo> databases = new ArrayList<>();
         String sql = "SHOW DATABASES";
 
@@ -48,12 +127,17 @@ public class DatabaseService {
     @Tool(name = "listTables", description = "列出指定数据库中的所有表")
     public List<TableInfo> listTables(
             @ToolParam(description = "数据库名称") String database) {
-        System.out.println("listTables called with database: " + database);
+        log.debug("listTables called with database: {}", database);
 
+        return metadataCache.tables(database, this::loadTables);
+    }
+
+    private List<TableInfo> loadTables(String database) {
         List<TableInfo> tables = new ArrayList<>();
         String sql = "SELECT TABLE_NAME, TABLE_SCHEMA, TABLE_ROWS, CREATE_TIME, TABLE_COMMENT FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA=?";
 
-        try (Connection conn = connectionService.getConnection();
+        try (Connection conn = metadataCache.enabled()
+                ? connectionService.getCacheLoadConnection(null) : connectionService.getReadConnection(null);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, database);
@@ -74,54 +158,422 @@ public class DatabaseService {
         return tables;
     }
 
-    @Tool(name = "getTableRowCount", description = "获取指定表的数据行数")
-    public long getTableRowCount(
+    @Tool(name = "describeSchema", description = "获取指定数据库中所有表的结构，包括列、主键、索引和外键")
+    public List<TableSchema> describeSchema(
+            @ToolParam(description = "数据库名称") String database) {
+        return new ArrayList<>(metadataCache.schema(database, this::loadSchema).values());
+    }
+
+    @Tool(name = "describeTable", description = "获取指定表的结构，包括列、主键、索引和外键")
+    public TableSchema describeTable(
             @ToolParam(description = "数据库名称") String database,
             @ToolParam(description = "表名") String tableName) {
+        Map<String, TableSchema> schema = metadataCache.schema(database, this::loadSchema);
+        TableSchema table = schema.get(tableName);
+        if (table == null) {
+            table = schema.values().stream()
+                    .filter(t -> t.getTableName().equalsIgnoreCase(tableName))
+                    .findFirst()
+                    .orElseThrow(() -> new RuntimeException("表不存在：" + database + "." + tableName));
+        }
+        return table;
+    }
 
-        long count = 0;
-        String sql = "SELECT COUNT(*) FROM " + tableName;
+    // 整库的列、索引和外键各用一条查询批量读取，再在内存中按表组装
+    private Map<String, TableSchema> loadSchema(String database) {
+        Map<String, TableSchema> tables = new LinkedHashMap<>();
+        try (Connection conn = connectionService.getConnection()) {
+            loadColumns(conn, database, tables);
+            loadIndexes(conn, database, tables);
+            loadForeignKeys(conn, database, tables);
+        } catch (SQLException e) {
+            throw new RuntimeException("获取表结构时出错：" + e.getMessage(), e);
+        }
+        return tables;
+    }
 
-        try (Connection conn = connectionService.getConnection(database);
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
+    private void loadColumns(Connection conn, String database, Map<String, TableSchema> tables) throws SQLException {
+        String sql = "SELECT TABLE_NAME, COLUMN_NAME, ORDINAL_POSITION, COLUMN_TYPE, IS_NULLABLE, COLUMN_DEFAULT, EXTRA, COLUMN_COMMENT " +
+                     "FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA=? ORDER BY TABLE_NAME, ORDINAL_POSITION";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, database);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ColumnInfo column = new ColumnInfo();
+                    column.setColumnName(rs.getString(2));
+                    column.setOrdinalPosition(rs.getInt(3));
+                    column.setColumnType(rs.getString(4));
+                    column.setNullable("YES".equals(rs.getString(5)));
+                    column.setColumnDefault(rs.getString(6));
+                    column.setExtra(emptyToNull(rs.getString(7)));
+                    column.setComment(emptyToNull(rs.getString(8)));
+                    tableOf(tables, database, rs.getString(1)).getColumns().add(column);
+                }
+            }
+        }
+    }
 
-            if (rs.next()) {
-                count = rs.getLong(1);
+    private void loadIndexes(Connection conn, String database, Map<String, TableSchema> tables) throws SQLException {
+        String sql = "SELECT TABLE_NAME, INDEX_NAME, NON_UNIQUE, INDEX_TYPE, COLUMN_NAME " +
+                     "FROM INFORMATION_SCHEMA.STATISTICS WHERE TABLE_SCHEMA=? ORDER BY TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, database);
+            try (ResultSet rs = stmt.executeQuery()) {
+                IndexInfo index = null;
+                String indexTable = null;
+                while (rs.next()) {
+                    String tableName = rs.getString(1);
+                    String indexName = rs.getString(2);
+                    TableSchema table = tableOf(tables, database, tableName);
+                    if (index == null || !tableName.equals(indexTable) || !indexName.equals(index.getIndexName())) {
+                        index = new IndexInfo();
+                        index.setIndexName(indexName);
+                        index.setUnique(rs.getInt(3) == 0);
+                        index.setIndexType(rs.getString(4));
+                        indexTable = tableName;
+                        table.getIndexes().add(index);
+                    }
+                    // 函数索引没有列名
+                    String columnName = rs.getString(5);
+                    if (columnName != null) {
+                        index.getColumns().add(columnName);
+                        if ("PRIMARY".equals(indexName)) {
+                            table.getPrimaryKey().add(columnName);
+                        }
+                    }
+                }
             }
-        } catch (SQLException e) {
-            throw new RuntimeException("无法获取表行数：" + e.getMessage(), e);
         }
+    }
+
+    private void loadForeignKeys(Connection conn, String database, Map<String, TableSchema> tables) throws SQLException {
+        String sql = "SELECT TABLE_NAME, CONSTRAINT_NAME, COLUMN_NAME, REFERENCED_TABLE_SCHEMA, REFERENCED_TABLE_NAME, REFERENCED_COLUMN_NAME " +
+                     "FROM INFORMATION_SCHEMA.KEY_COLUMN_USAGE WHERE TABLE_SCHEMA=? AND REFERENCED_TABLE_NAME IS NOT NULL " +
+                     "ORDER BY TABLE_NAME, CONSTRAINT_NAME, ORDINAL_POSITION";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, database);
+            try (ResultSet rs = stmt.executeQuery()) {
+                ForeignKeyInfo foreignKey = null;
+                String keyTable = null;
+                while (rs.next()) {
+                    String tableName = rs.getString(1);
+                    String constraintName = rs.getString(2);
+                    if (foreignKey == null || !tableName.equals(keyTable) || !constraintName.equals(foreignKey.getConstraintName())) {
+                        foreignKey = new ForeignKeyInfo();
+                        foreignKey.setConstraintName(constraintName);
+                        foreignKey.setReferencedSchema(rs.getString(4));
+                        foreignKey.setReferencedTable(rs.getString(5));
+                        keyTable = tableName;
+                        tableOf(tables, database, tableName).getForeignKeys().add(foreignKey);
+                    }
+                    foreignKey.getColumns().add(rs.getString(3));
+                    foreignKey.getReferencedColumns().add(rs.getString(6));
+                }
+            }
+        }
+    }
+
+    private static TableSchema tableOf(Map<String, TableSchema> tables, String database, String tableName) {
+        return tables.computeIfAbsent(tableName, name -> new TableSchema(database, name));
+    }
 
-        return count;
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
     }
 
-    @Tool(name = "executeQuery", description = "在指定数据库中执行SQL查询")
-    public List<Map<String, Object>> executeQuery(
+    @Tool(name = "getTableRowCount", description = "获取指定表的数据行数，支持快速估算和按主键分片并行精确计数")
+    public long getTableRowCount(
             @ToolParam(description = "数据库名称") String database,
-            @ToolParam(description = "SQL查询语句") String query) {
-        List<Map<String, Object>> results = new ArrayList<>();
+            @ToolParam(description = "表名") String tableName,
+            @ToolParam(description = "计数方式：exact(默认，在主节点上精确计数，单列整数主键的大表按主键分片并行统计，各分片不是同一快照，并发写入时可能有少量出入)、estimate(基于统计信息的估算值)", required = false) String mode) {
+        if (mode == null || mode.isBlank() || mode.equalsIgnoreCase("exact")) {
+            return rowCountService.countExact(database, tableName);
+        }
+        if (mode.equalsIgnoreCase("estimate")) {
+            return rowCountService.estimate(database, tableName);
+        }
+        throw new RuntimeException("不支持的计数方式：" + mode + "，可选值为exact、estimate");
+    }
 
-        try (Connection conn = connectionService.getConnection(database);
-             PreparedStatement stmt = conn.prepareStatement(query);
-             ResultSet rs = stmt.executeQuery()) {
+    @Tool(name = "executeQuery", description = "在指定数据库中执行SQL查询，支持?占位符和绑定参数；结果超出行数或字节数上限时截断并附带提示。默认只允许只读语句")
+    public QueryOutput executeQuery(
+            @ToolParam(description = "数据库名称") String database,
+            @ToolParam(description = "SQL查询语句") String query,
+            @ToolParam(description = "结果格式：rows(默认，每行一个对象)、compact(列名+行数组)、columnar(列名+列向量)", required = false) String format,
+            @ToolParam(description = "绑定参数，JSON数组格式，按顺序对应SQL中的?占位符，例如[1, \"abc\", null]", required = false) String params,
+            @ToolParam(description = "最长执行时间(毫秒)，只能比服务端配置更严格", required = false) Long timeoutMs,
+            @ToolParam(description = "最多返回的行数，只能比服务端配置更严格", required = false) Long maxRows,
+            @ToolParam(description = "最多返回的字节数(按JSON大小估算)，只能比服务端配置更严格", required = false) Long maxBytes) {
+        return executeQuery(database, query, format, parseParams(params),
+                queryGuard.budget("executeQuery", timeoutMs, maxRows, maxBytes));
+    }
+
+    public QueryOutput executeQuery(String database, String query, String format, List<Object> params, QueryBudget budget) {
+        checkWritable(query);
+        ResultFormat resultFormat = ResultFormat.of(format);
+        QueryOutput cached = cachedQuery(database, query, params, resultFormat, budget);
+        if (cached != null) {
+            return cached;
+        }
 
-            int columnCount = rs.getMetaData().getColumnCount();
+        try (Connection conn = queryConnection(database, query);
+             PreparedStatement stmt = conn.prepareStatement(queryGuard.sql(query, budget))) {
 
-            while (rs.next()) {
-                Map<String, Object> row = new HashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    String columnName = rs.getMetaData().getColumnName(i);
-                    Object value = rs.getObject(i);
-                    row.put(columnName, value);
+            ToolCallContext context = ToolCallContext.current();
+            ToolCallContext.Registration registration = context.track(stmt);
+            try {
+                queryGuard.apply(stmt, query, budget);
+                bind(stmt, params);
+                if (!execute(stmt, context)) {
+                    return new QueryOutput(afterUpdate(database, query, stmt.getUpdateCount()));
+                }
+                try (ResultSet rs = stmt.getResultSet()) {
+                    ResultLimit limit = budget.newLimit();
+                    QueryOutput result = fetch(rs, resultFormat, limit, context);
+                    return limit.isTruncated() ? result.truncated(limit.notice()) : result;
                 }
-                results.add(row);
+            } finally {
+                registration.close();
             }
         } catch (SQLException e) {
+            afterFailure(query);
             throw new RuntimeException("执行查询时出错：" + e.getMessage(), e);
         }
+    }
 
-        return results;
+    // 未开启greatsql.query.allow-writes时executeQuery只执行只读语句，写操作在发往服务端之前拒绝
+    private void checkWritable(String query) {
+        if (!queryConfig.isAllowWrites() && !SqlStatements.isReadOnly(query)) {
+            throw new RuntimeException("executeQuery只允许执行只读语句(SELECT/SHOW/DESCRIBE/EXPLAIN)，"
+                    + "写入请使用insertData等工具，或开启greatsql.query.allow-writes");
+        }
+    }
+
+    // 开启读写分离时只读SELECT可能发往从节点，其他语句都在主节点上执行
+    private Connection queryConnection(String database, String query) throws SQLException {
+        return SqlStatements.isReplicaSafeRead(query)
+                ? connectionService.getReadConnection(database)
+                : connectionService.getConnection(database);
+    }
+
+    // 执行和读取结果集分别计入当前调用的execute和fetch阶段
+    private static boolean execute(PreparedStatement stmt, ToolCallContext context) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return stmt.execute();
+        } finally {
+            context.recordPhase(Phase.EXECUTE, System.nanoTime() - start);
+        }
+    }
+
+    private static QueryOutput fetch(ResultSet rs, ResultFormat format, ResultLimit limit, ToolCallContext context) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return QueryOutput.convert(rs, format, limit);
+        } finally {
+            context.recordPhase(Phase.FETCH, System.nanoTime() - start);
+            context.addRows(limit.rows());
+        }
+    }
+
+    public List<Object> parseParams(String params) {
+        if (params == null || params.isBlank()) {
+            return List.of();
+        }
+        try {
+            Object parsed = objectMapper.readValue(params, Object.class);
+            if (!(parsed instanceof List<?> list)) {
+                throw new RuntimeException("绑定参数必须是JSON数组：" + params);
+            }
+            return new ArrayList<>(list);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("绑定参数不是合法的JSON数组：" + e.getOriginalMessage(), e);
+        }
+    }
+
+    // 按顺序绑定参数，嵌套的对象和数组按JSON文本绑定
+    private void bind(PreparedStatement stmt, List<Object> params) throws SQLException {
+        if (params == null || params.isEmpty()) {
+            return;
+        }
+        int expected = stmt.getParameterMetaData().getParameterCount();
+        if (expected != params.size()) {
+            throw new RuntimeException("参数数量不匹配：SQL中有 " + expected + " 个占位符，提供了 " + params.size() + " 个参数值");
+        }
+        for (int i = 0; i < params.size(); i++) {
+            Object value = params.get(i);
+            if (value instanceof Map<?, ?> || value instanceof List<?>) {
+                try {
+                    value = objectMapper.writeValueAsString(value);
+                } catch (JsonProcessingException e) {
+                    throw new RuntimeException("无法序列化第 " + (i + 1) + " 个参数：" + e.getOriginalMessage(), e);
+                }
+            }
+            stmt.setObject(i + 1, value);
+        }
+    }
+
+    // 参数值的JSON文本，区分字符串"1"与数字1，作为结果缓存键的一部分
+    private String paramsKey(List<Object> params) {
+        if (params == null || params.isEmpty()) {
+            return "";
+        }
+        try {
+            return objectMapper.writeValueAsString(params);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("无法序列化绑定参数：" + e.getOriginalMessage(), e);
+        }
+    }
+
+    // 行数和字节数上限是缓存键的一部分，不同预算下的结果互不复用；超出预算的结果不缓存，按普通路径执行并截断
+    // 返回缓存的结果；超出预算的结果已经读取到上限，直接带着截断提示返回，不放入缓存也不再执行一次。
+    // 不可缓存的语句返回null，由调用方按原路径执行
+    private QueryOutput cachedQuery(String database, String query, List<Object> params, ResultFormat format, QueryBudget budget) {
+        String key = paramsKey(params) + '\u0000' + budget.maxRows() + '\u0000' + budget.maxBytes();
+        try {
+            String json = resultCache.get(database, query, key, format, () -> queryAsJson(database, query, params, format, budget));
+            return json != null ? QueryOutput.cached(json) : null;
+        } catch (ResultTruncatedException e) {
+            return e.output;
+        }
+    }
+
+    // 可缓存的只读查询先完整读取并序列化，再放入结果缓存
+    private String queryAsJson(String database, String query, List<Object> params, ResultFormat format, QueryBudget budget) {
+        try (Connection conn = SqlStatements.isReplicaSafeRead(query)
+                ? connectionService.getCacheLoadConnection(database) : connectionService.getConnection(database);
+             PreparedStatement stmt = conn.prepareStatement(queryGuard.sql(query, budget))) {
+            ToolCallContext context = ToolCallContext.current();
+            ToolCallContext.Registration registration = context.track(stmt);
+            try {
+                queryGuard.apply(stmt, query, budget);
+                bind(stmt, params);
+                if (!execute(stmt, context)) {
+                    throw new RuntimeException("语句没有返回结果集：" + query);
+                }
+                try (ResultSet rs = stmt.getResultSet()) {
+                    ResultLimit limit = budget.newLimit();
+                    QueryOutput result = fetch(rs, format, limit, context);
+                    if (limit.isTruncated()) {
+                        throw new ResultTruncatedException(result.truncated(limit.notice()));
+                    }
+                    long start = System.nanoTime();
+                    String json = objectMapper.writeValueAsString(result);
+                    context.recordPhase(Phase.SERIALIZE, System.nanoTime() - start);
+                    return json;
+                }
+            } finally {
+                registration.close();
+            }
+        } catch (SQLException | JsonProcessingException e) {
+            throw new RuntimeException("执行查询时出错：" + e.getMessage(), e);
+        }
+    }
+
+    // 非查询语句返回影响行数；DDL可能改变库表结构，需要使缓存的元数据失效，
+    // DML只使涉及的表的查询结果缓存失效，其他语句无法判断影响范围，清空结果缓存
+    private Map<String, Object> afterUpdate(String database, String query, int updateCount) {
+        if (SqlStatements.isDdl(query)) {
+            metadataCache.invalidateAll();
+            resultCache.invalidateAll();
+        } else if (SqlStatements.isDml(query)) {
+            resultCache.invalidateTables(SqlStatements.referencedTables(database, query));
+        } else {
+            resultCache.invalidateAll();
+        }
+        return Map.of("updateCount", updateCount);
+    }
+
+    // 报错的DDL也可能已经生效，例如超时后客户端放弃等待、非事务表的多表DROP TABLE删掉了前面几张表
+    private void afterFailure(String query) {
+        if (SqlStatements.isDdl(query)) {
+            metadataCache.invalidateAll();
+            resultCache.invalidateAll();
+        }
+    }
+
+    // 供/mcp接口使用：查询执行完成后不读取结果，由调用方直接写入响应流
+    // 非查询语句没有结果集可流式输出，直接返回影响行数
+    public Object streamQuery(String database, String query, String format, List<Object> params, QueryBudget budget) {
+        checkWritable(query);
+        ResultFormat resultFormat = ResultFormat.of(format);
+        QueryOutput cached = cachedQuery(database, query, params, resultFormat, budget);
+        if (cached != null) {
+            return cached;
+        }
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ToolCallContext.Registration registration = null;
+        try {
+            conn = queryConnection(database, query);
+            stmt = conn.prepareStatement(queryGuard.sql(query, budget), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            registration = ToolCallContext.current().track(stmt);
+            // 逐行从服务端读取，结果集不会整体缓存在驱动中
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            queryGuard.apply(stmt, query, budget);
+            bind(stmt, params);
+            if (!execute(stmt, ToolCallContext.current())) {
+                int updateCount = stmt.getUpdateCount();
+                closeStream(registration, stmt, conn);
+                return afterUpdate(database, query, updateCount);
+            }
+            // 结果集在工具调用返回之后才读取，这里先绑定连接所属的实例
+            Connection streaming = conn;
+            String target = connectionService.currentTarget();
+            return new ResultSetStreamingResult(conn, stmt, stmt.getResultSet(), resultFormat, budget.newLimit(),
+                    registration, () -> connectionService.killQuery(target, streaming));
+        } catch (SQLException e) {
+            closeStream(registration, stmt, conn);
+            afterFailure(query);
+            throw new RuntimeException("执行查询时出错：" + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            closeStream(registration, stmt, conn);
+            throw e;
+        }
+    }
+
+    private static void closeStream(ToolCallContext.Registration registration, Statement stmt, Connection conn) {
+        ResultSetStreamingResult.closeQuietly(stmt);
+        if (registration != null) {
+            registration.close();
+        }
+        ResultSetStreamingResult.closeQuietly(conn);
+    }
+
+    @Tool(name = "executeQueryStream", description = "以流式游标方式执行SQL查询，按页返回结果并附带用于获取下一页的游标ID")
+    public QueryPage executeQueryStream(
+            @ToolParam(description = "数据库名称") String database,
+            @ToolParam(description = "SQL查询语句") String query,
+            @ToolParam(description = "每页最大行数", required = false) Integer pageRows,
+            @ToolParam(description = "每页最大字节数", required = false) Long maxBytes,
+            @ToolParam(description = "结果格式：rows(默认)或compact(列名只返回一次，之后为行数组)", required = false) String format,
+            @ToolParam(description = "打开游标时查询的最长执行时间(毫秒)，只能比服务端配置更严格", required = false) Long timeoutMs) {
+        return queryCursorService.open(database, query, pageRows, maxBytes, ResultFormat.of(format),
+                queryGuard.budget("executeQueryStream", timeoutMs, null, null));
+    }
+
+    @Tool(name = "executeQueryPage", description = "根据游标ID获取流式查询的下一页结果")
+    public QueryPage executeQueryPage(
+            @ToolParam(description = "游标ID") String cursorId,
+            @ToolParam(description = "每页最大行数", required = false) Integer pageRows,
+            @ToolParam(description = "每页最大字节数", required = false) Long maxBytes) {
+        return queryCursorService.next(cursorId, pageRows, maxBytes);
+    }
+
+    @Tool(name = "closeQueryCursor", description = "关闭不再需要的流式查询游标")
+    public boolean closeQueryCursor(
+            @ToolParam(description = "游标ID") String cursorId) {
+        return queryCursorService.close(cursorId);
+    }
+
+    @Tool(name = "getResultCacheStats", description = "查看只读查询结果缓存的命中率、容量和淘汰统计")
+    public Map<String, Object> getResultCacheStats() {
+        return resultCache.stats();
+    }
+
+    @Tool(name = "getPoolStats", description = "查看数据库连接池的状态统计")
+    public Map<String, Object> getPoolStats() {
+        return connectionService.getPoolStats();
     }
 
     public Map<String, String> getSlaveStatus(Connection conn) throws SQLException {
@@ -220,31 +672,17 @@ public class DatabaseService {
             @ToolParam(description = "字段名列表，用逗号分隔") String columns,
             @ToolParam(description = "对应字段的值列表，用逗号分隔") String values) {
 
-        String[] columnArray = columns.split(",");
+        String[] columnArray = parseColumns(columns);
         String[] valueArray = values.split(",");
 
         if (columnArray.length != valueArray.length) {
             throw new RuntimeException("字段数量与值数量不匹配");
         }
 
-        StringBuilder sql = new StringBuilder("INSERT INTO " + tableName + " (");
-        for (int i = 0; i < columnArray.length; i++) {
-            sql.append(columnArray[i].trim());
-            if (i < columnArray.length - 1) {
-                sql.append(", ");
-            }
-        }
-        sql.append(") VALUES (");
-        for (int i = 0; i < valueArray.length; i++) {
-            sql.append("?");
-            if (i < valueArray.length - 1) {
-                sql.append(", ");
-            }
-        }
-        sql.append(")");
+        String sql = insertSql(tableName, columnArray);
 
         try (Connection conn = connectionService.getConnection(database);
-             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             for (int i = 0; i < valueArray.length; i++) {
                 String rawValue = valueArray[i].trim();
@@ -256,6 +694,7 @@ public class DatabaseService {
             }
 
             int rowsAffected = stmt.executeUpdate();
+            resultCache.invalidateTable(database, tableName);
             return rowsAffected;
 
         } catch (SQLException e) {
@@ -263,45 +702,71 @@ public class DatabaseService {
         }
     }
 
-    @Tool(name = "updateData", description = "更新指定表的数据")
-    public int updateData(
+    @Tool(name = "batchInsert", description = "向指定表批量插入多行数据，按批次分事务提交，返回每批的执行结果")
+    public BulkWriteResult batchInsert(
             @ToolParam(description = "数据库名称") String database,
             @ToolParam(description = "表名") String tableName,
-            @ToolParam(description = "更新的字段和值，格式: field1=value1,field2=value2") String setClause,
-            @ToolParam(description = "WHERE条件，格式: field=value") String whereClause) {
+            @ToolParam(description = "待插入的数据，JSON数组格式，每行为字段名到值的JSON对象，或与columns顺序一致的JSON数组") String rows,
+            @ToolParam(description = "字段名列表，用逗号分隔；不指定时取第一行JSON对象的字段", required = false) String columns,
+            @ToolParam(description = "每个事务提交的行数，默认1000", required = false) Integer chunkRows) {
+        return bulkWriteService.batchInsert(database, tableName, columns, bulkWriteService.parseRows(rows), chunkRows);
+    }
 
-        String[] setPairs = setClause.split(",");
-        List<String> setValues = new ArrayList<>();
+    public BulkWriteResult batchInsert(String database, String tableName, List<Object> rows, String columns, Integer chunkRows) {
+        return bulkWriteService.batchInsert(database, tableName, columns, rows, chunkRows);
+    }
 
-        StringBuilder sql = new StringBuilder("UPDATE " + tableName + " SET ");
-        for (int i = 0; i < setPairs.length; i++) {
-            String[] pair = setPairs[i].split("=");
-            if (pair.length != 2) {
-                throw new RuntimeException("SET子句格式错误: " + setPairs[i]);
-            }
-            sql.append(pair[0].trim()).append(" = ?");
-            String rawValue = pair[1].trim();
-            if (rawValue.startsWith("'") && rawValue.endsWith("'") && rawValue.length() >= 2) {
-                rawValue = rawValue.substring(1, rawValue.length() - 1);
+    @Tool(name = "bulkLoad", description = "通过LOAD DATA LOCAL INFILE向指定表导入CSV或NDJSON数据，数据可直接携带或来自服务器本地文件，返回导入行数、告警和吞吐量")
+    public BulkLoadResult bulkLoad(
+            @ToolParam(description = "数据库名称") String database,
+            @ToolParam(description = "表名") String tableName,
+            @ToolParam(description = "数据格式：csv（默认）或ndjson；CSV以逗号分隔，字段可用双引号包围，未加引号的NULL表示空值", required = false) String format,
+            @ToolParam(description = "待导入的数据内容，与path二选一", required = false) String content,
+            @ToolParam(description = "服务器本地文件路径，相对于greatsql.write.load-dir目录，与content二选一", required = false) String path,
+            @ToolParam(description = "字段名列表，用逗号分隔；不指定时CSV取表头或按表的字段顺序，NDJSON取第一行JSON对象的字段", required = false) String columns,
+            @ToolParam(description = "CSV第一行是否为表头，默认false", required = false) Boolean header) {
+        return bulkWriteService.bulkLoad(database, tableName, format, content, path, columns, header);
+    }
+
+    static String[] parseColumns(String columns) {
+        if (columns == null || columns.isBlank()) {
+            throw new RuntimeException("字段名列表不能为空");
+        }
+        String[] columnArray = columns.split(",");
+        for (int i = 0; i < columnArray.length; i++) {
+            columnArray[i] = columnArray[i].trim();
+            if (columnArray[i].isEmpty()) {
+                throw new RuntimeException("字段名列表格式错误: " + columns);
             }
-            setValues.add(rawValue);
-            if (i < setPairs.length - 1) {
+        }
+        return columnArray;
+    }
+
+    static String insertSql(String tableName, String[] columns) {
+        StringBuilder sql = new StringBuilder("INSERT INTO " + tableName + " (");
+        sql.append(String.join(", ", columns));
+        sql.append(") VALUES (");
+        for (int i = 0; i < columns.length; i++) {
+            sql.append("?");
+            if (i < columns.length - 1) {
                 sql.append(", ");
             }
         }
+        sql.append(")");
+        return sql.toString();
+    }
 
-        if (whereClause != null && !whereClause.trim().isEmpty()) {
-            String[] wherePair = whereClause.split("=");
-            if (wherePair.length != 2) {
-                throw new RuntimeException("WHERE子句格式错误: " + whereClause);
-            }
-            sql.append(" WHERE ").append(wherePair[0].trim()).append(" = ?");
-            String rawWhereValue = wherePair[1].trim();
-            if (rawWhereValue.startsWith("'") && rawWhereValue.endsWith("'") && rawWhereValue.length() >= 2) {
-                rawWhereValue = rawWhereValue.substring(1, rawWhereValue.length() - 1);
-            }
+    @Tool(name = "updateData", description = "更新指定表的数据")
+    public int updateData(
+            @ToolParam(description = "数据库名称") String database,
+            @ToolParam(description = "表名") String tableName,
+            @ToolParam(description = "更新的字段和值，格式: field1=value1,field2=value2") String setClause,
+            @ToolParam(description = "WHERE条件，格式: field=value") String whereClause) {
 
-            setValues.add(rawWhereValue);
+        List<String> setValues = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("UPDATE " + tableName + " SET " + parseSetClause(setClause, setValues));
+        if (whereClause != null && !whereClause.trim().isEmpty()) {
+            sql.append(" WHERE ").append(parseEqualsWhere(whereClause, setValues));
         }
 
         try (Connection conn = connectionService.getConnection(database);
@@ -312,6 +777,7 @@ public class DatabaseService {
             }
 
             int rowsAffected = stmt.executeUpdate();
+            resultCache.invalidateTable(database, tableName);
             return rowsAffected;
 
         } catch (SQLException e) {
@@ -325,6 +791,99 @@ public class DatabaseService {
             @ToolParam(description = "表名") String tableName,
             @ToolParam(description = "WHERE条件，格式: field=value 或 field!=value 等") String whereClause) {
 
+        List<String> values = new ArrayList<>();
+        String sql = "DELETE FROM " + tableName + " WHERE " + parseDeleteWhere(whereClause, values);
+
+        try (Connection conn = connectionService.getConnection(database);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, values.get(0));
+
+            int rowsAffected = stmt.executeUpdate();
+            resultCache.invalidateTable(database, tableName);
+            return rowsAffected;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("删除数据时出错：" + e.getMessage(), e);
+        }
+    }
+
+    @Tool(name = "updateDataInChunks", description = "按主键分批更新指定表的数据，每批单独提交，根据undo历史长度和复制延迟自动限速，可从上次中断的主键继续")
+    public BulkWriteResult updateDataInChunks(
+            @ToolParam(description = "数据库名称") String database,
+            @ToolParam(description = "表名") String tableName,
+            @ToolParam(description = "更新的字段和值，格式: field1=value1,field2=value2") String setClause,
+            @ToolParam(description = "WHERE条件，格式: field=value", required = false) String whereClause,
+            @ToolParam(description = "每批处理的行数，默认1000", required = false) Integer chunkRows,
+            @ToolParam(description = "从该主键值之后继续，取上次结果中的lastKey", required = false) String resumeAfter) {
+        List<String> setValues = new ArrayList<>();
+        String statement = "UPDATE " + tableName + " SET " + parseSetClause(setClause, setValues);
+        List<String> whereValues = new ArrayList<>();
+        String condition = whereClause == null || whereClause.trim().isEmpty() ? null : parseEqualsWhere(whereClause, whereValues);
+        return bulkWriteService.chunkedWrite(new BulkWriteService.ChunkedWrite(database, tableName,
+                        chunkKey(database, tableName), statement, setValues, condition, whereValues),
+                chunkRows, resumeAfter);
+    }
+
+    @Tool(name = "deleteDataInChunks", description = "按主键分批删除指定表的数据，每批单独提交，根据undo历史长度和复制延迟自动限速，可从上次中断的主键继续")
+    public BulkWriteResult deleteDataInChunks(
+            @ToolParam(description = "数据库名称") String database,
+            @ToolParam(description = "表名") String tableName,
+            @ToolParam(description = "WHERE条件，格式: field=value 或 field!=value 等") String whereClause,
+            @ToolParam(description = "每批处理的行数，默认1000", required = false) Integer chunkRows,
+            @ToolParam(description = "从该主键值之后继续，取上次结果中的lastKey", required = false) String resumeAfter) {
+        List<String> whereValues = new ArrayList<>();
+        String condition = parseDeleteWhere(whereClause, whereValues);
+        return bulkWriteService.chunkedWrite(new BulkWriteService.ChunkedWrite(database, tableName,
+                        chunkKey(database, tableName), "DELETE FROM " + tableName, List.of(), condition, whereValues),
+                chunkRows, resumeAfter);
+    }
+
+    // 分批模式沿主键顺序推进，需要单列主键
+    private String chunkKey(String database, String tableName) {
+        TableSchema schema = describeTable(database, tableName);
+        if (schema.getPrimaryKey().size() != 1) {
+            throw new RuntimeException("分批模式需要表 " + tableName + " 有单列主键");
+        }
+        return schema.getPrimaryKey().get(0);
+    }
+
+    // 解析field1=value1,field2=value2，值去掉单引号后按顺序加入values
+    private static String parseSetClause(String setClause, List<String> values) {
+        String[] setPairs = setClause.split(",");
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < setPairs.length; i++) {
+            String[] pair = setPairs[i].split("=");
+            if (pair.length != 2) {
+                throw new RuntimeException("SET子句格式错误: " + setPairs[i]);
+            }
+            sql.append(pair[0].trim()).append(" = ?");
+            String rawValue = pair[1].trim();
+            if (rawValue.startsWith("'") && rawValue.endsWith("'") && rawValue.length() >= 2) {
+                rawValue = rawValue.substring(1, rawValue.length() - 1);
+            }
+            values.add(rawValue);
+            if (i < setPairs.length - 1) {
+                sql.append(", ");
+            }
+        }
+        return sql.toString();
+    }
+
+    private static String parseEqualsWhere(String whereClause, List<String> values) {
+        String[] wherePair = whereClause.split("=");
+        if (wherePair.length != 2) {
+            throw new RuntimeException("WHERE子句格式错误: " + whereClause);
+        }
+        String rawWhereValue = wherePair[1].trim();
+        if (rawWhereValue.startsWith("'") && rawWhereValue.endsWith("'") && rawWhereValue.length() >= 2) {
+            rawWhereValue = rawWhereValue.substring(1, rawWhereValue.length() - 1);
+        }
+        values.add(rawWhereValue);
+        return wherePair[0].trim() + " = ?";
+    }
+
+    private static String parseDeleteWhere(String whereClause, List<String> values) {
         if (whereClause == null || whereClause.trim().isEmpty()) {
             throw new RuntimeException("删除操作必须提供WHERE条件以确保安全");
         }
@@ -348,20 +907,8 @@ public class DatabaseService {
         if ((value.startsWith("'") && value.endsWith("'")) || (value.startsWith("\"") && value.endsWith("\""))) {
             value = value.substring(1, value.length() - 1);
         }
-
-        String sql = "DELETE FROM " + tableName + " WHERE " + field + " " + operator + " ?";
-
-        try (Connection conn = connectionService.getConnection(database);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, value);
-
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected;
-
-        } catch (SQLException e) {
-            throw new RuntimeException("删除数据时出错：" + e.getMessage(), e);
-        }
+        values.add(value);
+        return field + " " + operator + " ?";
     }
 
     @Tool(name = "createDB", description = "创建新数据库")
@@ -373,6 +920,8 @@ public class DatabaseService {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.executeUpdate();
+            metadataCache.invalidateDatabases();
+            metadataCache.invalidateTables(databaseName);
             return true;
         } catch (SQLException e) {
             throw new RuntimeException("创建数据库时出错：" + e.getMessage(), e);
@@ -380,8 +929,9 @@ public class DatabaseService {
     }
 
     @Tool(name = "checkCriticalTransactions", description = "检查当前是否有活跃的大事务或长事务")
-    public List<Map<String, Object>> checkCriticalTransactions() {
-        List<Map<String, Object>> results = new ArrayList<>();
+    public QueryOutput checkCriticalTransactions(
+            @ToolParam(description = "结果格式：rows(默认)、compact、columnar", required = false) String format) {
+        ResultFormat resultFormat = ResultFormat.of(format);
         String sql = "SELECT * FROM INFORMATION_SCHEMA.INNODB_TRX WHERE " +
                 "trx_lock_structs >= 5 OR " +
                 "trx_rows_locked >= 100 OR " +
@@ -392,22 +942,10 @@ public class DatabaseService {
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
 
-            int columnCount = rs.getMetaData().getColumnCount();
-
-            while (rs.next()) {
-                Map<String, Object> row = new HashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    String columnName = rs.getMetaData().getColumnName(i);
-                    Object value = rs.getObject(i);
-                    row.put(columnName, value);
-                }
-                results.add(row);
-            }
+            return QueryOutput.convert(rs, resultFormat, ResultLimit.unlimited());
         } catch (SQLException e) {
             throw new RuntimeException("查询需要关注的事务时出错：" + e.getMessage(), e);
         }
-
-        return results;
     }
 
     @Tool(name = "avgSQLRT", description = "计算SQL请求平均响应耗时")
@@ -419,24 +957,31 @@ public class DatabaseService {
         try (Connection conn = connectionService.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
+            ToolCallContext context = ToolCallContext.current();
             for (int i = 0; i < iterations; i++) {
                 long startTime = System.currentTimeMillis();
                 stmt.executeQuery();
                 long endTime = System.currentTimeMillis();
                 totalTime += (endTime - startTime);
-                Thread.sleep(1000); // 间隔1秒
+                context.reportProgress(i + 1, (double) iterations, "第 " + (i + 1) + " 次采样耗时 " + (endTime - startTime) + " ms");
+                if (i < iterations - 1) {
+                    Thread.sleep(1000); // 间隔1秒
+                }
             }
             
             double avgTime = (double) totalTime / iterations;
             
             if (avgTime > 50) {
-                System.out.println("严重级告警：SQL请求平均响应耗时 " + avgTime + " ms");
+                log.warn("严重级告警：SQL请求平均响应耗时 {} ms", avgTime);
             } else if (avgTime > 10) {
-                System.out.println("一般级告警：SQL请求平均响应耗时 " + avgTime + " ms");
+                log.warn("一般级告警：SQL请求平均响应耗时 {} ms", avgTime);
             }
             
             return avgTime;
-        } catch (SQLException | InterruptedException e) {
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("计算SQL请求平均响应耗时被取消", e);
+        } catch (SQLException e) {
             throw new RuntimeException("计算SQL请求平均响应耗时失败：" + e.getMessage(), e);
         }
     }
@@ -469,99 +1014,34 @@ public class DatabaseService {
             results.put("ThreadStateError", "检查线程状态失败: " + e.getMessage());
         }
         
-        // 检查全局状态指标
-        final String global_status_QUERY = "SELECT * FROM performance_schema.global_status";
-        try (Connection connection = connectionService.getConnection();
-             PreparedStatement statement = connection.prepareStatement(global_status_QUERY)) {
-            // 第一次查询
-            ResultSet rs = statement.executeQuery();
-            Map<String, Long> firstGlobalStatus = new HashMap<>();
-            while (rs.next()) {
-                String variableName = rs.getString("VARIABLE_NAME");
-                String valueStr = rs.getString("VARIABLE_VALUE");
-                if (valueStr.matches("\\d+")) {
-                    try {
-                        firstGlobalStatus.put(variableName, Long.parseLong(valueStr));
-                    } catch (NumberFormatException e) {
-                        // 如果数值过大，跳过解析
-                        firstGlobalStatus.put(variableName, 0L);
-                    }
-                }
-            }
-
-            // 暂停5秒
-            try {
-                Thread.sleep(5000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("暂停被中断", e);
-            }
-
-            // 第二次查询
-            rs = statement.executeQuery();
-            Map<String, Long> secondGlobalStatus = new HashMap<>();
-            while (rs.next()) {
-                String variableName = rs.getString("VARIABLE_NAME");
-                String valueStr = rs.getString("VARIABLE_VALUE");
-                if (valueStr.matches("\\d+")) {
-                    try {
-                        secondGlobalStatus.put(variableName, Long.parseLong(valueStr));
-                    } catch (NumberFormatException e) {
-                        // 如果数值过大，跳过解析
-                        secondGlobalStatus.put(variableName, 0L);
+        // 检查全局状态指标：增量取自后台采样的历史数据，请求线程无需等待
+        try {
+            StatusHistory.StatusWindow window = statusSampler.window(NOTABLE_STATUS, monitorConfig.getTrackWindowMs());
+            if (window == null || !window.hasBaseline()) {
+                results.put("GlobalStatusNotice", "全局状态采样历史不足，暂时无法计算增量，请稍后重试");
+            } else {
+                results.put("GlobalStatusWindow", "统计窗口 " + window.elapsedMs() + " ms");
+
+                long handlerReadTotal = 0;
+                long handlerReadRndTotal = 0;
+                for (int i = 0; i < NOTABLE_STATUS.length; i++) {
+                    String metric = NOTABLE_STATUS[i];
+                    if (DELTA_CHECKED_STATUS.contains(metric)) {
+                        long value = window.delta(i);
+                        if (value > 20) {
+                            results.put(metric + "_Warning", "严重级潜在性能风险: " + metric + " = " + value);
+                        } else if (value > 5) {
+                            results.put(metric + "_Warning", "一般级潜在性能风险: " + metric + " = " + value);
+                        }
+                    } else if (metric.equals("Handler_read_rnd") || metric.equals("Handler_read_rnd_next")) {
+                        handlerReadRndTotal += window.latest(i);
+                    } else {
+                        handlerReadTotal += window.latest(i);
                     }
                 }
-            }
 
-            // 筛选关键指标并检查阈值
-            List<String> keyMetrics = Arrays.asList(
-                "Created_tmp_disk_tables",
-                "Innodb_buffer_pool_wait_free",
-                "Innodb_log_waits",
-                "Innodb_row_lock_current_waits",
-                "Handler_read_rnd",
-                "Handler_read_rnd_next",
-                "Handler_read_first",
-                "Handler_read_key",
-                "Handler_read_last",
-                "Handler_read_next",
-                "Handler_read_prev",
-                "Select_full_join",
-                "Select_scan",
-                "Sort_merge_passes"
-            );
-
-            // 计算Handler_read总和（第一次查询）
-            long firstHandlerReadTotal = firstGlobalStatus.getOrDefault("Handler_read_first", 0L)
-                                    + firstGlobalStatus.getOrDefault("Handler_read_key", 0L)
-                                    + firstGlobalStatus.getOrDefault("Handler_read_last", 0L)
-                                    + firstGlobalStatus.getOrDefault("Handler_read_next", 0L)
-                                    + firstGlobalStatus.getOrDefault("Handler_read_prev", 0L);
-
-            // 计算Handler_read总和（第二次查询）
-            long secondHandlerReadTotal = secondGlobalStatus.getOrDefault("Handler_read_first", 0L)
-                                     + secondGlobalStatus.getOrDefault("Handler_read_key", 0L)
-                                     + secondGlobalStatus.getOrDefault("Handler_read_last", 0L)
-                                     + secondGlobalStatus.getOrDefault("Handler_read_next", 0L)
-                                     + secondGlobalStatus.getOrDefault("Handler_read_prev", 0L);
-
-            // 检查每个关键指标
-            for (String metric : keyMetrics) {
-                long firstValue = firstGlobalStatus.getOrDefault(metric, 0L);
-                long secondValue = secondGlobalStatus.getOrDefault(metric, 0L);
-                long value = secondValue - firstValue;
-                if (metric.equals("Created_tmp_disk_tables") || metric.equals("Innodb_buffer_pool_wait_free") || 
-                    metric.equals("Innodb_log_waits") || metric.equals("Innodb_row_lock_current_waits") ||
-                    metric.equals("Select_full_join") || metric.equals("Select_scan") || metric.equals("Sort_merge_passes")) {
-                    if (value > 20) {
-                        results.put(metric + "_Warning", "严重级潜在性能风险: " + metric + " = " + value);
-                    } else if (value > 5) {
-                        results.put(metric + "_Warning", "一般级潜在性能风险: " + metric + " = " + value);
-                    }
-                } else if (metric.equals("Handler_read_rnd") || metric.equals("Handler_read_rnd_next")) {
-                    long handlerReadRndTotal = secondGlobalStatus.getOrDefault("Handler_read_rnd", 0L)
-                                            + secondGlobalStatus.getOrDefault("Handler_read_rnd_next", 0L);
-                    double ratio = (double) handlerReadRndTotal / secondHandlerReadTotal;
+                if (handlerReadTotal > 0) {
+                    double ratio = (double) handlerReadRndTotal / handlerReadTotal;
                     if (ratio > 0.4) {
                         results.put("HandlerReadRndRatio_Warning", "严重级潜在性能风险: Handler_read_rnd + Handler_read_rnd_next 占比 " + (ratio * 100) + "%");
                     } else if (ratio > 0.2) {
@@ -569,7 +1049,6 @@ public class DatabaseService {
                     }
                 }
             }
-
         } catch (SQLException e) {
             results.put("GlobalStatusError", "检查全局状态失败: " + e.getMessage());
         }
@@ -587,6 +1066,53 @@ public class DatabaseService {
     
 
     
+    @Tool(name = "getStatusHistory", description = "根据后台采样的全局状态历史，计算指定时间窗口内状态变量的增量和每秒速率")
+    public Map<String, Object> getStatusHistory(
+            @ToolParam(description = "状态变量名列表，用逗号分隔，默认为需要关注的关键指标", required = false) String variables,
+            @ToolParam(description = "统计窗口，单位秒，默认60", required = false) Integer windowSeconds) {
+        String[] names = variables == null || variables.isBlank()
+                ? NOTABLE_STATUS
+                : Arrays.stream(variables.split(",")).map(String::trim).filter(v -> !v.isEmpty()).toArray(String[]::new);
+        long windowMs = (windowSeconds == null || windowSeconds <= 0 ? 60 : windowSeconds) * 1000L;
+
+        StatusHistory.StatusWindow window;
+        try {
+            window = statusSampler.window(names, windowMs);
+        } catch (SQLException e) {
+            throw new RuntimeException("获取全局状态历史时出错：" + e.getMessage(), e);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sampleCount", statusSampler.sampleCount());
+        result.put("sampleIntervalMs", statusSampler.intervalMs());
+        if (window == null) {
+            return result;
+        }
+        result.put("windowStart", window.startMs());
+        result.put("windowEnd", window.endMs());
+        result.put("elapsedMs", window.elapsedMs());
+        if (!window.hasBaseline()) {
+            result.put("notice", "采样历史不足 " + StatusHistory.MIN_BASELINE_MS + " ms，暂时无法计算增量和速率，请稍后重试");
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            if (window.end()[i] == StatusHistory.MISSING) {
+                stats.put(names[i], "未采集到该状态变量");
+                continue;
+            }
+            Map<String, Object> stat = new LinkedHashMap<>();
+            stat.put("latest", window.latest(i));
+            if (window.hasBaseline()) {
+                stat.put("delta", window.delta(i));
+                stat.put("ratePerSecond", window.ratePerSecond(i));
+            }
+            stats.put(names[i], stat);
+        }
+        result.put("variables", stats);
+        return result;
+    }
+
     private void checkUndoLogPurge(Connection conn, Map<String, String> results) throws SQLException {
         String sql = "SELECT COUNT, COMMENT FROM INFORMATION_SCHEMA.INNODB_METRICS " +
                      "WHERE NAME = 'trx_rseg_history_len'";
@@ -603,6 +1129,11 @@ public class DatabaseService {
         }
     }
 
+    @Tool(name = "getMGRTopology", description = "查看后台维护的MGR拓扑快照：当前主节点、写连接指向的节点、各成员的状态、事务队列和回放延迟")
+    public MgrTopology getMGRTopology() {
+        return connectionService.getTopology();
+    }
+
     @Tool(name = "checkMGRStatus", description = "监控MGR集群状态")
     public Map<String, String> checkMGRStatus() {
         Map<String, String> results = new HashMap<>();
@@ -682,11 +1213,16 @@ public class DatabaseService {
 
     @Tool(name = "findAbnormalMemoryIssue", description = "检查数据库中是否存在内存异常情况")
     public Map<String, String> findAbnormalMemoryIssue() {
+        return findAbnormalMemoryIssue(null);
+    }
+
+    // snapshot不为空时直接从中读取innodb_buffer_pool_size，避免重复查询global_variables
+    public Map<String, String> findAbnormalMemoryIssue(DiagnosticSnapshot snapshot) {
         Map<String, String> results = new HashMap<>();
         
         try (Connection conn = connectionService.getConnection()) {
             // 1. 检查全局内存模块异常
-            checkGlobalMemoryEvents(conn, results);
+            checkGlobalMemoryEvents(conn, snapshot, results);
             
             // 2. 检查线程内存异常
             checkThreadMemoryEvents(conn, results);
@@ -698,7 +1234,7 @@ public class DatabaseService {
         return results;
     }
     
-    private void checkGlobalMemoryEvents(Connection conn, Map<String, String> results) throws SQLException {
+    private void checkGlobalMemoryEvents(Connection conn, DiagnosticSnapshot snapshot, Map<String, String> results) throws SQLException {
         String sql = "SELECT EVENT_NAME, SUM_NUMBER_OF_BYTES_ALLOC FROM " +
                      "performance_schema.memory_summary_global_by_event_name " +
                      "WHERE SUM_NUMBER_OF_BYTES_ALLOC >= 1073741824 " +
@@ -713,7 +1249,9 @@ public class DatabaseService {
                 
                 if ("memory/innodb/buf_buf_pool".equals(eventName)) {
                     // 检查innodb buffer pool是否异常溢出
-                    long bufferPoolSize = getInnoDBBufferPoolSize(conn);
+                    long bufferPoolSize = snapshot != null
+                            ? snapshot.variableAsLong("innodb_buffer_pool_size")
+                            : getInnoDBBufferPoolSize(conn);
                     if (bytesAlloc > bufferPoolSize * 1.2) {
                         results.put("memory_innodb_buffer_pool", "严重级告警：InnoDB Buffer Pool内存使用量（" + bytesAlloc + " bytes）超过配置值（" + bufferPoolSize + " bytes），可能存在内存泄漏风险");
                     }
@@ -762,64 +1300,69 @@ public class DatabaseService {
         }
     }
     
+    @Tool(name = "findImproperVars", description = "检查数据库系统参数配置是否合理")
     public Map<String, String> findImproperVars() {
+        return findImproperVars(loadDiagnosticSnapshot());
+    }
 
-
-        Map<String, String> results = new HashMap<>();
-        
+    // 一次性读取全局变量和状态，供多个诊断共用
+    public DiagnosticSnapshot loadDiagnosticSnapshot() {
         try (Connection conn = connectionService.getConnection()) {
-            // 查询全局变量和状态
-            Map<String, String> vars = getGlobalVariables(conn);
-            Map<String, String> stats = getGlobalStatus(conn);
-            
-            // 检查连接数配置
-            checkMaxConnections(vars, stats, results);
-            
-            // 检查表缓存配置
-            checkTableCaches(vars, stats, results);
-            
-            // 检查线程缓存配置
-            checkThreadCache(vars, stats, results);
-            
-            // 检查临时表配置
-            checkTempTables(vars, stats, results);
-            
-            // 检查 InnoDB 日志配置
-            checkInnoDBLogs(vars, results);
-            
-            // 检查二进制日志和事务提交配置
-            checkBinaryLogAndFlush(vars, results);
-            
-            // 检查InnoDB日志配置
-            checkInnoDBLogs(vars, results);
-            
-            // 检查并行复制配置
-            checkParallelReplication(vars, results);
-            
-            // 检查IO容量配置
-            checkIOCapacity(vars, results);
-            
-            // 检查并发线程配置
-            checkThreadConcurrency(vars, results);
-            
-            // 检查二进制日志格式
-            checkBinlogFormat(vars, results);
-            
-            // 检查日志缓冲区配置
-            checkLogBuffer(vars, results);
-            
-            // 检查其他推荐配置
-            checkRecommendedSettings(vars, results);
-            
-            // 检查慢查询日志配置
-            checkSlowQuerySettings(vars, results);
-            
-            // 检查缓冲池配置
-            checkBufferPoolSize(vars, results);
-            
+            return new DiagnosticSnapshot(getGlobalVariables(conn), getGlobalStatus(conn));
         } catch (SQLException e) {
             throw new RuntimeException("检查配置参数时出错：" + e.getMessage(), e);
         }
+    }
+
+    public Map<String, String> findImproperVars(DiagnosticSnapshot snapshot) {
+        Map<String, String> results = new HashMap<>();
+        Map<String, String> vars = snapshot.variables();
+        Map<String, String> stats = snapshot.status();
+        
+        // 检查连接数配置
+        checkMaxConnections(vars, stats, results);
+        
+        // 检查表缓存配置
+        checkTableCaches(vars, stats, results);
+        
+        // 检查线程缓存配置
+        checkThreadCache(vars, stats, results);
+        
+        // 检查临时表配置
+        checkTempTables(vars, stats, results);
+        
+        // 检查 InnoDB 日志配置
+        checkInnoDBLogs(vars, results);
+        
+        // 检查二进制日志和事务提交配置
+        checkBinaryLogAndFlush(vars, results);
+        
+        // 检查InnoDB日志配置
+        checkInnoDBLogs(vars, results);
+        
+        // 检查并行复制配置
+        checkParallelReplication(vars, results);
+        
+        // 检查IO容量配置
+        checkIOCapacity(vars, results);
+        
+        // 检查并发线程配置
+        checkThreadConcurrency(vars, results);
+        
+        // 检查二进制日志格式
+        checkBinlogFormat(vars, results);
+        
+        // 检查日志缓冲区配置
+        checkLogBuffer(vars, results);
+        
+        // 检查其他推荐配置
+        checkRecommendedSettings(vars, results);
+        
+        // 检查慢查询日志配置
+        checkSlowQuerySettings(vars, results);
+        
+        // 检查缓冲池配置
+        checkBufferPoolSize(vars, results);
         
         return results;
     }
@@ -1029,6 +1572,7 @@ public class DatabaseService {
         }
     }
 
+    @Tool(name = "monitorReplicationLag", description = "监控主从复制延迟")
     public Map<String, String> monitorReplicationLag() {
         Map<String, String> results = new HashMap<>();
 
@@ -1093,4 +1637,16 @@ public class DatabaseService {
 
         return results;
     }
+
+    // 可缓存的查询超出预算时从缓存加载器中抛出，带出已截断的结果，不放入缓存
+    private static final class ResultTruncatedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final transient QueryOutput output;
+
+        ResultTruncatedException(QueryOutput output) {
+            super("查询结果超出预算", null, false, false);
+            this.output = output;
+        }
+    }
 }
@@ -0,0 +1,19 @@
+package org.greatsql.greatsqlmcp.service;
+
+import java.util.Map;
+
+// 某一时刻的全局变量和全局状态，供多个诊断工具共用，避免各自重复查询
+public record DiagnosticSnapshot(Map<String, String> variables, Map<String, String> status) {
+
+    public long variableAsLong(String name) {
+        String value = variables.get(name);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
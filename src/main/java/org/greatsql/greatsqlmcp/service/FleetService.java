@@ -0,0 +1,179 @@
+package org.greatsql.greatsqlmcp.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.greatsql.greatsqlmcp.config.MonitorConfig;
+import org.greatsql.greatsqlmcp.entity.FleetReport;
+import org.greatsql.greatsqlmcp.entity.FleetTargetResult;
+import org.greatsql.greatsqlmcp.entity.HealthReport;
+import org.greatsql.greatsqlmcp.entity.HealthSeverity;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+// 在所有目标实例上并发执行同一项诊断，按实例汇总结果；单个实例失败或超时只影响它自己的结果
+@Slf4j
+@Service
+public class FleetService {
+    // fleetHealthCheck等待各实例的时间在单项检查超时之外多留的余量，避免与实例内部的超时同时到期
+    private static final long HEALTH_CHECK_GRACE_MS = 1000;
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Autowired
+    private HealthCheckService healthCheckService;
+
+    @Autowired
+    private ConnectionService connectionService;
+
+    @Autowired
+    private MonitorConfig monitorConfig;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Tool(name = "listTargets", description = "列出已配置的GreatSQL实例及其连接池状态，其他工具可通过target参数指定在哪个实例上执行")
+    public List<Map<String, Object>> listTargets() {
+        return connectionService.describeTargets();
+    }
+
+    @Tool(name = "fleetCheckCriticalTransactions", description = "在所有实例上并发检查活跃的大事务或长事务，按实例汇总结果")
+    public FleetReport fleetCheckCriticalTransactions(
+            @ToolParam(description = "单个实例的超时时间，单位毫秒，默认10000", required = false) Integer timeoutMs) {
+        return fanOut("checkCriticalTransactions", () -> databaseService.checkCriticalTransactions(null).value(),
+                rows -> rows instanceof Collection<?> list && !list.isEmpty() ? HealthSeverity.WARNING : HealthSeverity.INFO,
+                timeout(timeoutMs));
+    }
+
+    @Tool(name = "fleetMonitorReplicationLag", description = "在所有实例上并发检查主从复制延迟，按实例汇总结果")
+    public FleetReport fleetMonitorReplicationLag(
+            @ToolParam(description = "单个实例的超时时间，单位毫秒，默认10000", required = false) Integer timeoutMs) {
+        return fanOut("monitorReplicationLag", databaseService::monitorReplicationLag,
+                FleetService::highestSeverity, timeout(timeoutMs));
+    }
+
+    @Tool(name = "fleetHealthCheck", description = "在所有实例上并发执行综合健康检查，按实例汇总各自的健康报告")
+    public FleetReport fleetHealthCheck(
+            @ToolParam(description = "单项检查超时时间，单位毫秒，默认10000", required = false) Integer timeoutMs) {
+        long timeout = timeout(timeoutMs);
+        return fanOut("healthCheck", () -> healthCheckService.healthCheck((int) timeout),
+                HealthReport::getOverall, timeout + HEALTH_CHECK_GRACE_MS);
+    }
+
+    private long timeout(Integer timeoutMs) {
+        return timeoutMs == null || timeoutMs <= 0 ? monitorConfig.getHealthCheckTimeoutMs() : timeoutMs;
+    }
+
+    // 每个实例在各自的虚拟线程上以该实例为目标执行检查，所有实例共用同一个截止时间
+    private <T> FleetReport fanOut(String check, Callable<T> task, Function<T, HealthSeverity> severity, long timeoutMs) {
+        long start = System.nanoTime();
+        Map<String, Future<Outcome<T>>> futures = new LinkedHashMap<>();
+        for (String target : connectionService.targetNames()) {
+            futures.put(target, executor.submit(() -> {
+                long begin = System.nanoTime();
+                try {
+                    T value = ToolCallContext.callWith(ToolCallContext.forTarget(target), task);
+                    return new Outcome<>(value, null, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+                } catch (Exception e) {
+                    return new Outcome<>(null, e, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+                }
+            }));
+        }
+
+        ToolCallContext context = ToolCallContext.current();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        List<FleetTargetResult> results = new ArrayList<>();
+        int done = 0;
+        try {
+            for (Map.Entry<String, Future<Outcome<T>>> entry : futures.entrySet()) {
+                FleetTargetResult result = collect(check, entry.getKey(), entry.getValue(), severity, start, deadline);
+                results.add(result);
+                done++;
+                context.reportProgress(done, (double) futures.size(), entry.getKey() + " " + result.getStatus()
+                        + "，耗时 " + result.getElapsedMs() + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.values().forEach(future -> future.cancel(true));
+            throw new RuntimeException(check + "被取消", e);
+        }
+
+        // 稳定排序，同一严重程度内保持实例的配置顺序
+        results.sort(Comparator.comparing(FleetTargetResult::getSeverity));
+
+        FleetReport report = new FleetReport();
+        report.setCheck(check);
+        report.setOverall(results.get(0).getSeverity());
+        report.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        report.setSucceeded((int) results.stream().filter(r -> "OK".equals(r.getStatus())).count());
+        report.setFailed((int) results.stream().filter(r -> "ERROR".equals(r.getStatus())).count());
+        report.setTimedOut((int) results.stream().filter(r -> "TIMEOUT".equals(r.getStatus())).count());
+        report.setTargets(results);
+        return report;
+    }
+
+    private <T> FleetTargetResult collect(String check, String target, Future<Outcome<T>> future,
+                                          Function<T, HealthSeverity> severity, long start, long deadline)
+            throws InterruptedException {
+        FleetTargetResult result = new FleetTargetResult();
+        result.setTarget(target);
+        try {
+            Outcome<T> outcome = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            result.setElapsedMs(outcome.elapsedMs());
+            if (outcome.error() != null) {
+                fail(check, result, outcome.error().getMessage());
+                return result;
+            }
+            result.setStatus("OK");
+            result.setSeverity(severity.apply(outcome.value()));
+            result.setResult(outcome.value());
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            result.setStatus("TIMEOUT");
+            result.setSeverity(HealthSeverity.WARNING);
+            result.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            result.setError("检查超时未完成，已取消");
+        } catch (ExecutionException e) {
+            result.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            fail(check, result, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        }
+        return result;
+    }
+
+    private static void fail(String check, FleetTargetResult result, String message) {
+        result.setStatus("ERROR");
+        result.setSeverity(HealthSeverity.WARNING);
+        result.setError(message);
+        log.warn("实例 {} 执行 {} 失败：{}", result.getTarget(), check, message);
+    }
+
+    private static HealthSeverity highestSeverity(Map<String, String> results) {
+        return results.values().stream()
+                .map(HealthSeverity::classify)
+                .min(Comparator.naturalOrder())
+                .orElse(HealthSeverity.INFO);
+    }
+
+    private record Outcome<T>(T value, Exception error, long elapsedMs) {
+    }
+}
@@ -0,0 +1,176 @@
+package org.greatsql.greatsqlmcp.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.greatsql.greatsqlmcp.config.MonitorConfig;
+import org.greatsql.greatsqlmcp.entity.HealthCheckTiming;
+import org.greatsql.greatsqlmcp.entity.HealthFinding;
+import org.greatsql.greatsqlmcp.entity.HealthReport;
+import org.greatsql.greatsqlmcp.entity.HealthSeverity;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// 在虚拟线程上并行执行各项诊断，合并为一份按严重程度排序的健康报告
+@Slf4j
+@Service
+public class HealthCheckService {
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Autowired
+    private MonitorConfig monitorConfig;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Tool(name = "healthCheck", description = "并行执行事务、全局状态、MGR、内存、参数配置和复制延迟诊断，返回按严重程度排序的综合健康报告及各项检查耗时")
+    public HealthReport healthCheck(
+            @ToolParam(description = "单项检查超时时间，单位毫秒，默认10000", required = false) Integer timeoutMs) {
+        long timeout = timeoutMs == null || timeoutMs <= 0 ? monitorConfig.getHealthCheckTimeoutMs() : timeoutMs;
+        long start = System.nanoTime();
+
+        // 全局变量和状态只读取一次，由参数检查和内存检查共用
+        Future<DiagnosticSnapshot> snapshot = executor.submit(ToolCallContext.inCurrentTarget(databaseService::loadDiagnosticSnapshot));
+
+        Map<String, Future<CheckResult>> checks = new LinkedHashMap<>();
+        checks.put("checkCriticalTransactions", submit(this::criticalTransactions));
+        checks.put("trackNotableStats", submit(databaseService::trackNotableStats));
+        checks.put("checkMGRStatus", submit(databaseService::checkMGRStatus));
+        // 共享快照失败时内存检查退回到自行查询innodb_buffer_pool_size
+        checks.put("findAbnormalMemoryIssue", submit(() -> databaseService.findAbnormalMemoryIssue(awaitQuietly(snapshot))));
+        checks.put("findImproperVars", submit(() -> databaseService.findImproperVars(await(snapshot))));
+        checks.put("monitorReplicationLag", submit(databaseService::monitorReplicationLag));
+
+        ToolCallContext context = ToolCallContext.current();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+        List<HealthFinding> findings = new ArrayList<>();
+        List<HealthCheckTiming> timings = new ArrayList<>();
+        int done = 0;
+        try {
+            for (Map.Entry<String, Future<CheckResult>> entry : checks.entrySet()) {
+                String name = entry.getKey();
+                HealthCheckTiming timing = collect(name, entry.getValue(), start, deadline, findings);
+                timings.add(timing);
+                done++;
+                context.reportProgress(done, (double) checks.size(), name + " " + timing.getStatus() + "，耗时 " + timing.getElapsedMs() + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            checks.values().forEach(future -> future.cancel(true));
+            throw new RuntimeException("健康检查被取消", e);
+        } finally {
+            snapshot.cancel(true);
+        }
+
+        // 稳定排序，同一严重程度内保持检查项的顺序
+        findings.sort(Comparator.comparing(HealthFinding::getSeverity));
+
+        HealthReport report = new HealthReport();
+        report.setOverall(findings.isEmpty() ? HealthSeverity.INFO : findings.get(0).getSeverity());
+        report.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        report.setFindings(findings);
+        report.setChecks(timings);
+        return report;
+    }
+
+    private Future<CheckResult> submit(Callable<Map<String, String>> check) {
+        return executor.submit(ToolCallContext.inCurrentTarget(() -> {
+            long begin = System.nanoTime();
+            try {
+                return new CheckResult(check.call(), null, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+            } catch (Exception e) {
+                return new CheckResult(null, e, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+            }
+        }));
+    }
+
+    private HealthCheckTiming collect(String name, Future<CheckResult> future, long start, long deadline,
+                                      List<HealthFinding> findings) throws InterruptedException {
+        HealthCheckTiming timing = new HealthCheckTiming();
+        timing.setCheck(name);
+        try {
+            CheckResult result = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            timing.setElapsedMs(result.elapsedMs());
+            if (result.error() != null) {
+                fail(name, timing, result.error().getMessage(), findings);
+                return timing;
+            }
+            timing.setStatus("OK");
+            timing.setFindings(result.results().size());
+            result.results().forEach((key, message) ->
+                    findings.add(new HealthFinding(HealthSeverity.classify(message), name, key, message)));
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timing.setStatus("TIMEOUT");
+            timing.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            findings.add(new HealthFinding(HealthSeverity.WARNING, name, "timeout", "检查超时未完成，已取消"));
+        } catch (ExecutionException e) {
+            timing.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            fail(name, timing, e.getCause() != null ? e.getCause().getMessage() : e.getMessage(), findings);
+        }
+        return timing;
+    }
+
+    private static void fail(String name, HealthCheckTiming timing, String message, List<HealthFinding> findings) {
+        timing.setStatus("ERROR");
+        timing.setError(message);
+        findings.add(new HealthFinding(HealthSeverity.WARNING, name, "error", "检查失败：" + message));
+        log.warn("健康检查项 {} 执行失败：{}", name, message);
+    }
+
+    // 把需要关注的事务逐条转换为结论
+    @SuppressWarnings("unchecked")
+    private Map<String, String> criticalTransactions() {
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) databaseService.checkCriticalTransactions(null).value();
+        Map<String, String> results = new LinkedHashMap<>();
+        for (Map<String, Object> row : rows) {
+            Object trxId = row.get("trx_id");
+            results.put("trx_" + trxId, "一般级告警：事务 " + trxId + " 状态 " + row.get("trx_state")
+                    + "，开始于 " + row.get("trx_started")
+                    + "，锁结构数 " + row.get("trx_lock_structs")
+                    + "，锁定行数 " + row.get("trx_rows_locked")
+                    + "，修改行数 " + row.get("trx_rows_modified"));
+        }
+        return results;
+    }
+
+    private static DiagnosticSnapshot await(Future<DiagnosticSnapshot> snapshot) throws Exception {
+        try {
+            return snapshot.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static DiagnosticSnapshot awaitQuietly(Future<DiagnosticSnapshot> snapshot) throws InterruptedException {
+        try {
+            return snapshot.get();
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private record CheckResult(Map<String, String> results, Exception error, long elapsedMs) {
+    }
+}
@@ -0,0 +1,260 @@
+package org.greatsql.greatsqlmcp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbacks;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// 在虚拟线程上异步执行耗时较长的工具，调用方立即拿到任务ID，之后轮询进度或取消
+@Slf4j
+@Service
+public class JobService {
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Autowired
+    private HealthCheckService healthCheckService;
+
+    @Autowired
+    private FleetService fleetService;
+
+    @Autowired
+    private ConnectionService connectionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${greatsql.job.max-running:16}")
+    private int maxRunningJobs;
+
+    @Value("${greatsql.job.retention-ms:600000}")
+    private long retentionMs;
+
+    private final Map<String, ToolCallback> tools = new ConcurrentHashMap<>();
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // 运行中任务的名额，提交时获取，工作线程结束时归还，并发提交不会超过上限。
+    // 取消只是请求停止，正在执行的语句可能还要一段时间才结束，此时不提前归还名额
+    private Semaphore runningPermits;
+
+    private ScheduledExecutorService reaper;
+
+    @PostConstruct
+    public void init() {
+        for (ToolCallback callback : ToolCallbacks.from(databaseService, healthCheckService, fleetService)) {
+            tools.put(callback.getToolDefinition().name(), callback);
+        }
+        runningPermits = new Semaphore(maxRunningJobs);
+        // 已结束的任务定期清理，不依赖之后是否还有新的提交
+        reaper = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("greatsql-job-reaper").daemon(true).factory());
+        long period = Math.max(1000, retentionMs / 4);
+        reaper.scheduleWithFixedDelay(this::purgeFinishedJobs, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        reaper.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Tool(name = "submitJob", description = "以异步任务方式执行耗时较长的工具（如avgSQLRT），立即返回任务ID，之后通过getJobStatus查询进度和结果")
+    public Map<String, Object> submitJob(
+            @ToolParam(description = "要执行的工具名称") String toolName,
+            @ToolParam(description = "工具参数，JSON对象格式", required = false) String arguments) {
+        ToolCallback callback = tools.get(toolName);
+        if (callback == null) {
+            throw new RuntimeException("未知的工具: " + toolName);
+        }
+        String input = arguments == null || arguments.isBlank() ? "{}" : arguments;
+        String target = jobTarget(input);
+        if (!runningPermits.tryAcquire()) {
+            throw new RuntimeException("运行中的异步任务数量已达上限(" + maxRunningJobs + ")，请稍后重试");
+        }
+        Job job = new Job(UUID.randomUUID().toString(), toolName);
+        ToolCallContext context = new ToolCallContext(target, (progress, total, message) -> {
+            job.progress = progress;
+            job.total = total;
+            job.message = message;
+        }, connectionService.canceller(target));
+        job.context = context;
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job, context, callback, input));
+        } catch (RuntimeException e) {
+            synchronized (job) {
+                job.error = e.getMessage();
+                finish(job, JobStatus.FAILED);
+            }
+            runningPermits.release();
+            throw e;
+        }
+        return describe(job);
+    }
+
+    @Tool(name = "getJobStatus", description = "查询异步任务的状态、进度和执行结果")
+    public Map<String, Object> getJobStatus(
+            @ToolParam(description = "任务ID") String jobId) {
+        return describe(requireJob(jobId));
+    }
+
+    @Tool(name = "cancelJob", description = "取消正在执行的异步任务")
+    public boolean cancelJob(
+            @ToolParam(description = "任务ID") String jobId) {
+        Job job = requireJob(jobId);
+        Thread worker;
+        synchronized (job) {
+            if (job.status != JobStatus.RUNNING) {
+                return false;
+            }
+            finish(job, JobStatus.CANCELLED);
+            worker = job.worker;
+        }
+        // 中断线程只能停在批次边界，正在执行的语句需要单独取消；尚未开始执行的任务由工作线程自行跳过
+        job.context.cancel();
+        if (worker != null) {
+            worker.interrupt();
+        }
+        return true;
+    }
+
+    // 任务参数中的target优先，否则沿用提交任务这次调用的目标实例
+    private String jobTarget(String input) {
+        String target = ToolCallContext.current().target();
+        try {
+            JsonNode node = objectMapper.readTree(input).get("target");
+            if (node != null && node.isTextual() && !node.asText().isBlank()) {
+                target = node.asText();
+            }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("工具参数不是有效的JSON：" + e.getOriginalMessage(), e);
+        }
+        if (target != null && !connectionService.hasTarget(target)) {
+            throw new RuntimeException("未知的目标实例: " + target);
+        }
+        return target;
+    }
+
+    // 无论任务如何结束，名额都在这里归还，包括开始执行前已被取消的任务
+    private void run(Job job, ToolCallContext context, ToolCallback callback, String input) {
+        try {
+            synchronized (job) {
+                if (job.status != JobStatus.RUNNING) {
+                    return;
+                }
+                job.worker = Thread.currentThread();
+            }
+            String output = ToolCallContext.callWith(context, () -> callback.call(input));
+            synchronized (job) {
+                if (job.status == JobStatus.RUNNING) {
+                    job.result = output;
+                    finish(job, JobStatus.SUCCEEDED);
+                }
+            }
+        } catch (Exception e) {
+            synchronized (job) {
+                if (job.status == JobStatus.RUNNING) {
+                    job.error = e.getMessage();
+                    finish(job, JobStatus.FAILED);
+                    log.warn("异步任务 {}({}) 执行失败：{}", job.id, job.tool, e.getMessage());
+                }
+            }
+        } finally {
+            runningPermits.release();
+        }
+    }
+
+    private Job requireJob(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("异步任务不存在或已过期：" + jobId);
+        }
+        return job;
+    }
+
+    // 调用方持有job的锁且任务仍为RUNNING，每个任务只会结束一次
+    private void finish(Job job, JobStatus status) {
+        job.status = status;
+        job.finishedAt = System.currentTimeMillis();
+    }
+
+    void purgeFinishedJobs() {
+        long deadline = System.currentTimeMillis() - retentionMs;
+        jobs.values().removeIf(job -> job.status != JobStatus.RUNNING && job.finishedAt < deadline);
+    }
+
+    private Map<String, Object> describe(Job job) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("jobId", job.id);
+        status.put("tool", job.tool);
+        if (job.context != null && job.context.target() != null) {
+            status.put("target", job.context.target());
+        }
+        status.put("status", job.status);
+        status.put("progress", job.progress);
+        if (job.total != null) {
+            status.put("total", job.total);
+        }
+        if (job.message != null) {
+            status.put("message", job.message);
+        }
+        long end = job.finishedAt > 0 ? job.finishedAt : System.currentTimeMillis();
+        status.put("elapsedMs", end - job.startedAt);
+        if (job.result != null) {
+            try {
+                status.put("result", objectMapper.readTree(job.result));
+            } catch (Exception e) {
+                status.put("result", job.result);
+            }
+        }
+        if (job.error != null) {
+            status.put("error", job.error);
+        }
+        return status;
+    }
+
+    public enum JobStatus {
+        RUNNING, SUCCEEDED, FAILED, CANCELLED
+    }
+
+    private static class Job {
+        private final String id;
+        private final String tool;
+        private final long startedAt = System.currentTimeMillis();
+        private volatile JobStatus status = JobStatus.RUNNING;
+        private volatile double progress;
+        private volatile Double total;
+        private volatile String message;
+        private volatile String result;
+        private volatile String error;
+        private volatile long finishedAt;
+        private volatile Thread worker;
+        private volatile ToolCallContext context;
+
+        private Job(String id, String tool) {
+            this.id = id;
+            this.tool = tool;
+        }
+    }
+}
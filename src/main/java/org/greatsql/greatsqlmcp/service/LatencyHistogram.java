@@ -0,0 +1,85 @@
+package org.greatsql.greatsqlmcp.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// 无锁的对数分桶耗时直方图，以微秒为单位：每个2的幂区间再等分为4个桶，分位数的相对误差不超过25%，
+// 记录一次只需一次原子自增和一次累加。覆盖0到约2^39微秒(约6天)，更长的耗时计入最后一个桶
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 38;
+    static final int BUCKET_COUNT = MAX_EXPONENT * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder sumNanos = new LongAdder();
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(index(value / 1000));
+        sumNanos.add(value);
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            count += counts[i];
+        }
+        return new Snapshot(counts, count, sumNanos.sum());
+    }
+
+    static int index(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        long value = Math.min(micros, (1L << (MAX_EXPONENT + 1)) - 1);
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - 1) * SUB_BUCKETS + sub;
+    }
+
+    // 桶的上界(不含)，单位微秒
+    static long upperBoundMicros(int index) {
+        if (index < SUB_BUCKETS) {
+            return index + 1;
+        }
+        int exponent = index / SUB_BUCKETS + 1;
+        int sub = index % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    public record Snapshot(long[] counts, long count, long sumNanos) {
+
+        // 取包含目标排名的桶的上界，估计值偏大不偏小；没有数据时为NaN
+        public double quantileSeconds(double quantile) {
+            if (count == 0) {
+                return Double.NaN;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return upperBoundMicros(i) / 1_000_000.0;
+                }
+            }
+            return upperBoundMicros(counts.length - 1) / 1_000_000.0;
+        }
+
+        // 耗时小于2^exponent微秒的次数，2的幂正好是桶的边界，因此是精确值
+        public long countBelow(int exponent) {
+            long limit = 1L << exponent;
+            long below = 0;
+            for (int i = 0; i < counts.length && upperBoundMicros(i) <= limit; i++) {
+                below += counts[i];
+            }
+            return below;
+        }
+
+        public double sumSeconds() {
+            return sumNanos / 1_000_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.greatsql.greatsqlmcp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.greatsql.greatsqlmcp.config.CacheConfig;
+import org.greatsql.greatsqlmcp.entity.DatabaseInfo;
+import org.greatsql.greatsqlmcp.entity.TableInfo;
+import org.greatsql.greatsqlmcp.entity.TableSchema;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// listDatabases、listTables和describeSchema的元数据缓存：按TTL过期、按库数量限制大小，
+// 同一个键的并发请求只有一个会真正查询数据库，其余等待其结果。键包含当前调用的目标实例，各实例互不影响
+@Service
+public class MetadataCache {
+    @Autowired
+    private CacheConfig cacheConfig;
+
+    @Autowired
+    private ConnectionService connectionService;
+
+    private Cache<String, List<DatabaseInfo>> databases;
+
+    private Cache<String, List<TableInfo>> tables;
+
+    // 按库缓存整库的表结构，键为表名
+    private Cache<String, Map<String, TableSchema>> schemas;
+
+    @PostConstruct
+    public void init() {
+        Duration ttl = Duration.ofMillis(Math.max(0, cacheConfig.getMetadataTtlMs()));
+        databases = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(connectionService.targetNames().size()).build();
+        tables = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(cacheConfig.getMetadataMaxSchemas()).build();
+        schemas = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(cacheConfig.getMetadataMaxSchemas()).build();
+    }
+
+    public boolean enabled() {
+        return cacheConfig.getMetadataTtlMs() > 0;
+    }
+
+    public List<DatabaseInfo> databases(Supplier<List<DatabaseInfo>> loader) {
+        if (!enabled()) {
+            return loader.get();
+        }
+        return databases.get(connectionService.currentTarget(), key -> List.copyOf(loader.get()));
+    }
+
+    public List<TableInfo> tables(String database, Function<String, List<TableInfo>> loader) {
+        if (!enabled()) {
+            return loader.apply(database);
+        }
+        return tables.get(key(database), key -> List.copyOf(loader.apply(database)));
+    }
+
+    public Map<String, TableSchema> schema(String database, Function<String, Map<String, TableSchema>> loader) {
+        if (!enabled()) {
+            return loader.apply(database);
+        }
+        return schemas.get(key(database), key -> Collections.unmodifiableMap(loader.apply(database)));
+    }
+
+    public void invalidateDatabases() {
+        databases.invalidate(connectionService.currentTarget());
+    }
+
+    public void invalidateTables(String database) {
+        String key = key(database);
+        tables.invalidate(key);
+        schemas.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        databases.invalidateAll();
+        tables.invalidateAll();
+        schemas.invalidateAll();
+    }
+
+    private String key(String database) {
+        return connectionService.currentTarget() + '\u0000' + database;
+    }
+}
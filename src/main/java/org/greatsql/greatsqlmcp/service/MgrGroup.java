@@ -0,0 +1,377 @@
+package org.greatsql.greatsqlmcp.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.greatsql.greatsqlmcp.config.MgrConfig;
+import org.greatsql.greatsqlmcp.config.ReadSplitConfig;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+// 一个实例所在MGR组的拓扑和各成员的连接池。由ConnectionService的后台线程按refresh-ms调用refresh：
+// 先从写连接所在节点读取组成员、角色和事务队列长度，该节点不可用时改用其他成员的视图，再到各从节点上读取回放延迟，
+// 结果发布为不可变的快照。读请求只读取最新快照，不需要加锁；发现主节点变化时由WriteEndpoint切换写连接
+@Slf4j
+final class MgrGroup implements AutoCloseable {
+    private static final String MEMBERS_SQL = "SELECT m.MEMBER_ID, m.MEMBER_HOST, m.MEMBER_PORT, m.MEMBER_STATE, m.MEMBER_ROLE, " +
+            "s.COUNT_TRANSACTIONS_IN_QUEUE, s.COUNT_TRANSACTIONS_REMOTE_IN_APPLIER_QUEUE " +
+            "FROM performance_schema.replication_group_members m " +
+            "LEFT JOIN performance_schema.replication_group_member_stats s ON s.MEMBER_ID = m.MEMBER_ID";
+
+    // 正在回放的事务在源节点提交至今经过的时间，没有正在回放的事务时为0
+    private static final String LAG_SQL = "SELECT IFNULL(MAX(TIMESTAMPDIFF(MICROSECOND, " +
+            "APPLYING_TRANSACTION_ORIGINAL_COMMIT_TIMESTAMP, NOW(6))), 0) " +
+            "FROM performance_schema.replication_applier_status_by_worker " +
+            "WHERE CHANNEL_NAME = 'group_replication_applier' AND APPLYING_TRANSACTION <> ''";
+
+    // 超过这么多个刷新间隔仍未刷新时，不再按旧快照路由读请求
+    private static final int STALE_INTERVALS = 3;
+
+    // 由ConnectionService实现：当前的写连接池及其节点地址，以及把写连接切换到新的主节点
+    interface WriteEndpoint {
+        HikariDataSource pool();
+
+        String address();
+
+        // 已经指向该地址时不做任何事并返回false
+        boolean switchTo(String host, int port);
+    }
+
+    private final String target;
+    private final WriteEndpoint writeEndpoint;
+    private final MgrConfig mgrConfig;
+    private final ReadSplitConfig readSplitConfig;
+    // 参数为成员的主机名和端口，返回指向该成员的连接池
+    private final BiFunction<String, Integer, HikariDataSource> poolFactory;
+
+    // 写连接所在节点之外的成员，以MEMBER_HOST:MEMBER_PORT为键；成员离开组后关闭对应的连接池
+    private final Map<String, Replica> replicas = new ConcurrentHashMap<>();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final AtomicInteger next = new AtomicInteger();
+    // 写连接所在节点的server_uuid，写连接暂时不可用时据此判断主节点是否真的变化
+    private volatile String writeServerUuid;
+    private volatile Routing routing;
+    private volatile boolean closed;
+
+    MgrGroup(String target, WriteEndpoint writeEndpoint, MgrConfig mgrConfig, ReadSplitConfig readSplitConfig,
+             BiFunction<String, Integer, HikariDataSource> poolFactory) {
+        this.target = target;
+        this.writeEndpoint = writeEndpoint;
+        this.mgrConfig = mgrConfig;
+        this.readSplitConfig = readSplitConfig;
+        this.poolFactory = poolFactory;
+    }
+
+    // 最新的快照，尚未完成第一次刷新时为null
+    MgrTopology topology() {
+        Routing current = routing;
+        return current == null ? null : current.topology;
+    }
+
+    // 轮询下一个可用的从节点，没有或快照已过期时返回null
+    Replica pick() {
+        Routing current = routing;
+        if (isStale(current)) {
+            return null;
+        }
+        List<Replica> candidates = current.readable;
+        int size = candidates.size();
+        for (int i = 0; i < size; i++) {
+            Replica replica = candidates.get(Math.floorMod(next.getAndIncrement(), size));
+            if (replica.available) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    // 最新快照中各成员回放延迟的最大值，快照已过期或没有读到任何从节点的延迟时返回-1
+    long maxLagMs() {
+        Routing current = routing;
+        if (isStale(current)) {
+            return -1;
+        }
+        return current.topology.members().stream().mapToLong(MgrTopology.Member::lagMs).max().orElse(-1);
+    }
+
+    private boolean isStale(Routing current) {
+        return current == null || System.currentTimeMillis() - current.topology.refreshedAt()
+                > mgrConfig.getRefreshMs() * STALE_INTERVALS;
+    }
+
+    // 获取连接失败的从节点在下次刷新前不再使用
+    void markUnavailable(Replica replica, SQLException e) {
+        if (replica.available) {
+            replica.available = false;
+            log.warn("实例 {} 的从节点 {} 获取连接失败，下次刷新前读请求改发写连接所在节点：{}", target, replica.key, e.getMessage());
+        }
+    }
+
+    // 连接所在成员的连接池，不属于任何成员时返回null
+    HikariDataSource poolFor(String address) {
+        Replica replica = replicas.get(address);
+        return replica == null ? null : replica.pool;
+    }
+
+    void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("实例 {} 刷新MGR拓扑失败：{}", target, e.getMessage());
+        }
+    }
+
+    void refresh() {
+        refreshLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            List<MgrTopology.Member> members;
+            try {
+                members = discover();
+            } catch (SQLException e) {
+                publish(new MgrTopology(target, null, writeEndpoint.address(), List.of(), System.currentTimeMillis(),
+                        "无法读取MGR组成员：" + e.getMessage()), List.of());
+                log.warn("实例 {} 读取MGR组成员失败：{}", target, e.getMessage());
+                return;
+            }
+
+            // 没有过半成员ONLINE的视图(包括少数派分区中的旧主节点看到的视图)不用来判断主节点
+            boolean quorum = hasQuorum(members);
+            MgrTopology.Member primary = quorum ? primaryOf(members, writeServerUuid) : null;
+            if (primary != null && mgrConfig.isFailoverEnabled() && !primary.id().equals(writeServerUuid)) {
+                String previous = writeEndpoint.address();
+                if (writeEndpoint.switchTo(primary.host(), primary.port())) {
+                    log.warn("实例 {} 的MGR主节点已变为 {}，写连接从 {} 切换到新的主节点", target, primary.address(), previous);
+                }
+                writeServerUuid = primary.id();
+            }
+
+            Set<String> present = new HashSet<>();
+            List<MgrTopology.Member> probed = new ArrayList<>(members.size());
+            List<Replica> readable = new ArrayList<>();
+            for (MgrTopology.Member member : members) {
+                if (member.id().equals(writeServerUuid)) {
+                    probed.add(member);
+                    continue;
+                }
+                Replica replica = replicas.computeIfAbsent(member.address(),
+                        key -> new Replica(key, poolFactory.apply(member.host(), member.port())));
+                present.add(replica.key);
+                MgrTopology.Member result = probe(member, replica);
+                if (!Objects.equals(result.skipReason(), replica.skipReason) && "SECONDARY".equals(member.role())) {
+                    if (result.readable()) {
+                        log.info("实例 {} 的从节点 {} 开始接收只读语句", target, replica.key);
+                    } else {
+                        log.info("实例 {} 的从节点 {} 暂不接收只读语句：{}", target, replica.key, result.skipReason());
+                    }
+                }
+                replica.skipReason = result.skipReason();
+                replica.available = result.readable();
+                probed.add(result);
+                if (result.readable()) {
+                    readable.add(replica);
+                }
+            }
+            replicas.values().removeIf(replica -> {
+                if (present.contains(replica.key)) {
+                    return false;
+                }
+                log.info("实例 {} 的成员 {} 已不在MGR组中或已成为写连接所在节点，关闭其连接池", target, replica.key);
+                replica.pool.close();
+                return true;
+            });
+            publish(new MgrTopology(target, primary == null ? null : primary.address(), writeEndpoint.address(),
+                    List.copyOf(probed), System.currentTimeMillis(),
+                    quorum || members.isEmpty() ? null : "能读到的组成员视图中ONLINE成员都未过半，暂不判断主节点"), readable);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void publish(MgrTopology topology, List<Replica> readable) {
+        routing = new Routing(topology, List.copyOf(readable));
+    }
+
+    // 优先使用写连接所在节点的视图；该节点不可用，或它的视图中ONLINE成员未过半、看不到ONLINE的主节点时，
+    // 依次尝试其他已知成员，由多数派中的成员报告新的主节点
+    private List<MgrTopology.Member> discover() throws SQLException {
+        List<MgrTopology.Member> fallback = null;
+        SQLException failure = null;
+        try (Connection conn = writeEndpoint.pool().getConnection();
+             Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT @@server_uuid")) {
+                if (rs.next()) {
+                    writeServerUuid = rs.getString(1);
+                }
+            }
+            fallback = readMembers(stmt);
+            if (isAuthoritative(fallback, writeServerUuid)) {
+                return fallback;
+            }
+        } catch (SQLException e) {
+            failure = e;
+        }
+        for (Replica replica : replicas.values()) {
+            try (Connection conn = replica.pool.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                List<MgrTopology.Member> members = readMembers(stmt);
+                if (isAuthoritative(members, writeServerUuid)) {
+                    return members;
+                }
+            } catch (SQLException e) {
+                log.debug("实例 {} 的成员 {} 无法读取组成员：{}", target, replica.key, e.getMessage());
+            }
+        }
+        if (fallback != null) {
+            // 未启用MGR、组内没有主节点或找不到多数派，按写连接所在节点看到的情况发布
+            return fallback;
+        }
+        throw failure;
+    }
+
+    private static List<MgrTopology.Member> readMembers(Statement stmt) throws SQLException {
+        List<MgrTopology.Member> members = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery(MEMBERS_SQL)) {
+            while (rs.next()) {
+                members.add(new MgrTopology.Member(rs.getString(1), rs.getString(2), rs.getInt(3), rs.getString(4),
+                        rs.getString(5), rs.getLong(6), rs.getLong(7), -1, false, null));
+            }
+        }
+        return members;
+    }
+
+    // 能据以判断主节点的视图：过半成员ONLINE且其中有ONLINE的主节点。
+    // 被隔离在少数派分区中的旧主节点仍把自己报告为ONLINE的PRIMARY，其他成员为UNREACHABLE，不能采信
+    static boolean isAuthoritative(List<MgrTopology.Member> members, String writeServerUuid) {
+        return hasQuorum(members) && primaryOf(members, writeServerUuid) != null;
+    }
+
+    static boolean hasQuorum(List<MgrTopology.Member> members) {
+        long online = members.stream().filter(member -> "ONLINE".equals(member.state())).count();
+        return online * 2 > members.size();
+    }
+
+    // ONLINE的主节点；多主模式下写连接所在节点本身是主节点时不需要切换，优先返回它
+    static MgrTopology.Member primaryOf(List<MgrTopology.Member> members, String writeServerUuid) {
+        MgrTopology.Member primary = null;
+        for (MgrTopology.Member member : members) {
+            if (member.isOnlinePrimary()) {
+                if (member.id().equals(writeServerUuid)) {
+                    return member;
+                }
+                if (primary == null) {
+                    primary = member;
+                }
+            }
+        }
+        return primary;
+    }
+
+    // 只有ONLINE的从节点才读取回放延迟，并可能接收只读语句；事务队列过长的从节点不接收只读语句，
+    // 但仍读取回放延迟，分批写入据此限速
+    private MgrTopology.Member probe(MgrTopology.Member member, Replica replica) {
+        if (!"SECONDARY".equals(member.role())) {
+            return member.probed(-1, "不是从节点");
+        }
+        String reason = skipReason(member, readSplitConfig.getMaxTrxQueue());
+        if (!"ONLINE".equals(member.state())) {
+            return member.probed(-1, reason);
+        }
+        long lagMs;
+        try (Connection conn = replica.pool.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(LAG_SQL)) {
+            lagMs = rs.next() ? rs.getLong(1) / 1000 : 0;
+        } catch (SQLException e) {
+            return member.probed(-1, "读取回放延迟失败：" + e.getMessage());
+        }
+        if (reason != null) {
+            return member.probed(lagMs, reason);
+        }
+        if (lagMs > readSplitConfig.getMaxLagMs()) {
+            return member.probed(lagMs, "回放延迟 " + lagMs + " ms，超过 " + readSplitConfig.getMaxLagMs() + " ms");
+        }
+        return member.probed(lagMs, null);
+    }
+
+    // 成员状态和事务队列不满足条件时返回原因
+    static String skipReason(MgrTopology.Member member, long maxTrxQueue) {
+        if (!"ONLINE".equals(member.state())) {
+            return "成员状态为 " + member.state();
+        }
+        if (member.trxToCertify() > maxTrxQueue) {
+            return "待认证事务 " + member.trxToCertify() + " 个，超过 " + maxTrxQueue;
+        }
+        if (member.trxToApply() > maxTrxQueue) {
+            return "待回放事务 " + member.trxToApply() + " 个，超过 " + maxTrxQueue;
+        }
+        return null;
+    }
+
+    // 各成员连接池的使用情况，成员状态见topology()
+    List<Map<String, Object>> describe() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Replica replica : replicas.values()) {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("member", replica.key);
+            info.put("available", replica.available);
+            if (replica.skipReason != null) {
+                info.put("skipReason", replica.skipReason);
+            }
+            HikariPoolMXBean pool = replica.pool.getHikariPoolMXBean();
+            if (pool != null) {
+                info.put("activeConnections", pool.getActiveConnections());
+                info.put("idleConnections", pool.getIdleConnections());
+            }
+            result.add(info);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        refreshLock.lock();
+        try {
+            closed = true;
+            routing = null;
+            replicas.values().forEach(replica -> replica.pool.close());
+            replicas.clear();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private record Routing(MgrTopology topology, List<Replica> readable) {
+    }
+
+    static final class Replica {
+        private final String key;
+        private final HikariDataSource pool;
+        private volatile String skipReason = "尚未检查";
+        private volatile boolean available;
+
+        private Replica(String key, HikariDataSource pool) {
+            this.key = key;
+            this.pool = pool;
+        }
+
+        HikariDataSource pool() {
+            return pool;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.greatsql.greatsqlmcp.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+// 一个实例所在MGR组在某一时刻的拓扑快照，创建后不再修改；后台每次刷新生成新的快照并整体替换，
+// 读写路由和工具直接读取最新的快照，不需要加锁。primary为当前ONLINE的主节点，writeEndpoint为写连接实际指向的节点
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record MgrTopology(String target, String primary, String writeEndpoint, List<Member> members,
+                          long refreshedAt, String error) {
+
+    // lagMs为-1表示未读取(不是ONLINE的从节点或读取失败)；readable表示当前接收只读语句
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Member(String id, String host, int port, String state, String role,
+                         long trxToCertify, long trxToApply, long lagMs, boolean readable, String skipReason) {
+
+        public String address() {
+            return host + ":" + port;
+        }
+
+        boolean isOnlinePrimary() {
+            return "PRIMARY".equals(role) && "ONLINE".equals(state);
+        }
+
+        Member probed(long lagMs, String skipReason) {
+            return new Member(id, host, port, state, role, trxToCertify, trxToApply, lagMs, skipReason == null, skipReason);
+        }
+    }
+}
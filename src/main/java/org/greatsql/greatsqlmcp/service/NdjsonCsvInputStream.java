@@ -0,0 +1,167 @@
+package org.greatsql.greatsqlmcp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+// 逐行读取NDJSON并即时转换为CSV字节流，供LOAD DATA LOCAL读取，不落临时文件。
+// 输出格式与bulkLoad的CSV约定一致：逗号分隔、双引号包围且引号加倍转义、未加引号的NULL表示空值
+final class NdjsonCsvInputStream extends InputStream {
+    private final BufferedReader reader;
+    private final ObjectReader jsonReader;
+    private final String[] columns;
+
+    private String pendingLine;
+    private long lineNumber;
+    private byte[] buffer = new byte[0];
+    private int position;
+    private boolean eof;
+    private IOException failure;
+
+    // 未指定字段名时取第一个JSON对象的字段
+    NdjsonCsvInputStream(BufferedReader reader, ObjectMapper objectMapper, String[] columns) throws IOException {
+        this.reader = reader;
+        this.jsonReader = objectMapper.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        if (columns != null) {
+            this.columns = columns;
+            return;
+        }
+        pendingLine = nextLine();
+        if (pendingLine == null) {
+            throw new IOException("NDJSON数据为空");
+        }
+        JsonNode first = parse(pendingLine);
+        if (first.isEmpty()) {
+            throw new IOException("未指定字段名列表时，第一行必须是非空的JSON对象");
+        }
+        String[] names = new String[first.size()];
+        int i = 0;
+        for (var it = first.fieldNames(); it.hasNext(); ) {
+            names[i++] = it.next();
+        }
+        this.columns = names;
+    }
+
+    String[] columns() {
+        return columns;
+    }
+
+    // 转换出错时驱动只会得到一个笼统的IO错误，调用方通过这里取得原始原因
+    IOException failure() {
+        return failure;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int total = 0;
+        while (total < len && fill()) {
+            int n = Math.min(len - total, buffer.length - position);
+            System.arraycopy(buffer, position, b, off + total, n);
+            position += n;
+            total += n;
+        }
+        return total == 0 ? -1 : total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean fill() throws IOException {
+        while (position >= buffer.length) {
+            if (eof) {
+                return false;
+            }
+            String line = pendingLine != null ? pendingLine : nextLine();
+            pendingLine = null;
+            if (line == null) {
+                eof = true;
+                return false;
+            }
+            try {
+                buffer = toCsv(parse(line)).getBytes(StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+            position = 0;
+        }
+        return true;
+    }
+
+    private String nextLine() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (!line.isBlank()) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    private JsonNode parse(String line) throws IOException {
+        JsonNode node;
+        try {
+            node = jsonReader.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new IOException("第 " + lineNumber + " 行不是合法的JSON：" + e.getOriginalMessage(), e);
+        }
+        if (node == null || !node.isObject()) {
+            throw new IOException("第 " + lineNumber + " 行必须是JSON对象");
+        }
+        return node;
+    }
+
+    // 与insertData/batchInsert相同的校验：字段数量一致且每个字段都存在
+    private String toCsv(JsonNode row) throws IOException {
+        if (row.size() != columns.length) {
+            throw new IOException("第 " + lineNumber + " 行的字段数量与字段名列表不匹配");
+        }
+        StringBuilder csv = new StringBuilder();
+        for (int c = 0; c < columns.length; c++) {
+            if (!row.has(columns[c])) {
+                throw new IOException("第 " + lineNumber + " 行缺少字段 " + columns[c]);
+            }
+            if (c > 0) {
+                csv.append(',');
+            }
+            appendValue(csv, row.get(columns[c]));
+        }
+        return csv.append('\n').toString();
+    }
+
+    private static void appendValue(StringBuilder csv, JsonNode value) {
+        if (value.isNull()) {
+            csv.append("NULL");
+        } else if (value.isBoolean()) {
+            csv.append(value.booleanValue() ? '1' : '0');
+        } else if (value.isBigDecimal()) {
+            csv.append(value.decimalValue().toPlainString());
+        } else if (value.isNumber()) {
+            csv.append(value.asText());
+        } else {
+            // 字符串按原文，嵌套的对象和数组按JSON文本
+            String text = value.isTextual() ? value.textValue() : value.toString();
+            csv.append('"').append(text.replace("\"", "\"\"")).append('"');
+        }
+    }
+}
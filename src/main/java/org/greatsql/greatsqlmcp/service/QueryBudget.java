@@ -0,0 +1,19 @@
+package org.greatsql.greatsqlmcp.service;
+
+// 单次工具调用的执行预算，0表示不限制
+public record QueryBudget(long maxExecutionMs, long maxRows, long maxBytes) {
+
+    public static final QueryBudget UNLIMITED = new QueryBudget(0, 0, 0);
+
+    // JDBC查询超时以秒为单位，比服务端的MAX_EXECUTION_TIME多留1秒，SELECT优先由服务端中断并返回明确的错误
+    public int queryTimeoutSeconds() {
+        if (maxExecutionMs <= 0) {
+            return 0;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, (maxExecutionMs + 999) / 1000 + 1);
+    }
+
+    public ResultLimit newLimit() {
+        return new ResultLimit(maxRows, maxBytes);
+    }
+}
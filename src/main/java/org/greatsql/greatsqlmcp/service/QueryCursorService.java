@@ -0,0 +1,247 @@
+package org.greatsql.greatsqlmcp.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.greatsql.greatsqlmcp.config.QueryConfig;
+import org.greatsql.greatsqlmcp.entity.QueryPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+public class QueryCursorService {
+    @Autowired
+    private ConnectionService connectionService;
+
+    @Autowired
+    private QueryConfig queryConfig;
+
+    @Autowired
+    private QueryGuard queryGuard;
+
+    private final Map<String, QueryCursor> cursors = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService reaper;
+
+    @PostConstruct
+    public void init() {
+        reaper = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("greatsql-cursor-reaper").daemon(true).factory());
+        long period = Math.max(1000, queryConfig.getCursorIdleTimeoutMs() / 4);
+        reaper.scheduleWithFixedDelay(this::closeIdleCursors, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        reaper.shutdownNow();
+        cursors.values().forEach(QueryCursor::close);
+        cursors.clear();
+    }
+
+    // 预算只限制打开游标时的执行时间，行数和字节数由分页控制
+    public QueryPage open(String database, String query, Integer pageRows, Long maxBytes, ResultFormat format, QueryBudget budget) {
+        if (format == ResultFormat.COLUMNAR) {
+            throw new RuntimeException("流式查询仅支持rows和compact格式");
+        }
+        if (cursors.size() >= queryConfig.getMaxOpenCursors()) {
+            throw new RuntimeException("打开的查询游标数量已达上限(" + queryConfig.getMaxOpenCursors()
+                    + ")，请先读完或关闭已有游标");
+        }
+
+        int rows = resolvePageRows(pageRows);
+        long bytes = resolveMaxBytes(maxBytes);
+        QueryCursor cursor = new QueryCursor(UUID.randomUUID().toString(), format);
+        try {
+            cursor.conn = connectionService.getCursorConnection(database);
+            cursor.stmt = cursor.conn.prepareStatement(queryGuard.sql(query, budget),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // fetchSize>0配合useCursorFetch，服务端按批次返回，避免整个结果集进入JVM堆
+            cursor.stmt.setFetchSize(rows);
+            queryGuard.applyTimeout(cursor.stmt, budget);
+            ToolCallContext context = ToolCallContext.current();
+            long start = System.nanoTime();
+            ToolCallContext.Registration registration = context.track(cursor.stmt);
+            try {
+                cursor.rs = cursor.stmt.executeQuery();
+            } finally {
+                registration.close();
+                context.recordPhase(ToolCallContext.Phase.EXECUTE, System.nanoTime() - start);
+            }
+
+            cursor.columns = ResultSetConverter.columnLabels(cursor.rs.getMetaData());
+        } catch (SQLException e) {
+            cursor.close();
+            throw new RuntimeException("执行查询时出错：" + e.getMessage(), e);
+        }
+
+        cursors.put(cursor.id, cursor);
+        return fetch(cursor, rows, bytes);
+    }
+
+    public QueryPage next(String cursorId, Integer pageRows, Long maxBytes) {
+        QueryCursor cursor = cursors.get(cursorId);
+        if (cursor == null) {
+            throw new RuntimeException("查询游标不存在或已过期：" + cursorId);
+        }
+        return fetch(cursor, resolvePageRows(pageRows), resolveMaxBytes(maxBytes));
+    }
+
+    public boolean close(String cursorId) {
+        QueryCursor cursor = cursors.remove(cursorId);
+        if (cursor == null) {
+            return false;
+        }
+        cursor.close();
+        return true;
+    }
+
+    private QueryPage fetch(QueryCursor cursor, int pageRows, long maxBytes) {
+        synchronized (cursor) {
+            if (cursor.closed) {
+                throw new RuntimeException("查询游标已关闭：" + cursor.id);
+            }
+            cursor.lastAccess = System.currentTimeMillis();
+
+            boolean compact = cursor.format == ResultFormat.COMPACT;
+            List<Object> rows = new ArrayList<>(Math.min(pageRows, 1024));
+            long pageBytes = 0;
+            boolean truncatedByBytes = false;
+            long start = System.nanoTime();
+            try {
+                while (rows.size() < pageRows) {
+                    // 上一页为判断hasMore已经预读了一行，这里直接消费
+                    if (!cursor.hasCurrent && !cursor.rs.next()) {
+                        cursor.exhausted = true;
+                        break;
+                    }
+                    cursor.hasCurrent = false;
+
+                    Object[] values = ResultSetConverter.readArray(cursor.rs, cursor.columns.length);
+                    for (int i = 0; i < values.length; i++) {
+                        pageBytes += ResultLimit.estimateBytes(values[i]);
+                        if (!compact) {
+                            pageBytes += cursor.columns[i].length();
+                        }
+                    }
+                    rows.add(compact ? values : ResultSetConverter.toMap(cursor.columns, values));
+
+                    // 至少返回一行以保证游标能向前推进
+                    if (pageBytes >= maxBytes) {
+                        truncatedByBytes = true;
+                        break;
+                    }
+                }
+                if (!cursor.exhausted && !cursor.hasCurrent) {
+                    cursor.hasCurrent = cursor.rs.next();
+                    cursor.exhausted = !cursor.hasCurrent;
+                }
+            } catch (SQLException e) {
+                close(cursor.id);
+                throw new RuntimeException("读取查询游标时出错：" + e.getMessage(), e);
+            }
+
+            ToolCallContext context = ToolCallContext.current();
+            context.recordPhase(ToolCallContext.Phase.FETCH, System.nanoTime() - start);
+            context.addRows(rows.size());
+            cursor.totalRows += rows.size();
+
+            QueryPage page = new QueryPage();
+            if (compact) {
+                page.setColumns(Arrays.asList(cursor.columns));
+            }
+            page.setRows(rows);
+            page.setPageRows(rows.size());
+            page.setPageBytes(pageBytes);
+            page.setTotalRows(cursor.totalRows);
+            page.setTruncatedByBytes(truncatedByBytes);
+            page.setHasMore(!cursor.exhausted);
+            if (cursor.exhausted) {
+                close(cursor.id);
+            } else {
+                page.setCursorId(cursor.id);
+            }
+            return page;
+        }
+    }
+
+    private int resolvePageRows(Integer pageRows) {
+        if (pageRows == null || pageRows <= 0) {
+            return queryConfig.getDefaultPageRows();
+        }
+        return Math.min(pageRows, queryConfig.getMaxPageRows());
+    }
+
+    private long resolveMaxBytes(Long maxBytes) {
+        if (maxBytes == null || maxBytes <= 0) {
+            return queryConfig.getMaxPageBytes();
+        }
+        return Math.min(maxBytes, queryConfig.getMaxPageBytes());
+    }
+
+    private void closeIdleCursors() {
+        long deadline = System.currentTimeMillis() - queryConfig.getCursorIdleTimeoutMs();
+        for (QueryCursor cursor : cursors.values()) {
+            if (cursor.lastAccess < deadline && close(cursor.id)) {
+                log.info("查询游标 {} 空闲超时，已自动关闭", cursor.id);
+            }
+        }
+    }
+
+    private static class QueryCursor {
+        private final String id;
+        private final ResultFormat format;
+        private Connection conn;
+        private PreparedStatement stmt;
+        private ResultSet rs;
+        private String[] columns;
+        private boolean hasCurrent;
+        private boolean exhausted;
+        private boolean closed;
+        private long totalRows;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private QueryCursor(String id, ResultFormat format) {
+            this.id = id;
+            this.format = format;
+        }
+
+        private synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+                if (stmt != null) {
+                    stmt.close();
+                }
+            } catch (SQLException e) {
+                // 关闭语句失败不影响连接归还
+            } finally {
+                if (conn != null) {
+                    try {
+                        conn.close();
+                    } catch (SQLException ignored) {
+                        // 连接池会回收异常连接
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.greatsql.greatsqlmcp.service;
+
+import jakarta.annotation.PostConstruct;
+import org.greatsql.greatsqlmcp.config.QueryConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+// 查询执行预算：按工具取配置的上限，与调用方传入的值合并，并应用到语句上
+@Service
+public class QueryGuard {
+    // 会返回结果集的语句，只有这些语句设置最大行数
+    private static final Set<String> RESULT_KEYWORDS = Set.of("SELECT", "WITH", "TABLE", "VALUES");
+
+    @Autowired
+    private QueryConfig queryConfig;
+
+    private QueryBudget defaults;
+
+    private Map<String, QueryBudget> toolBudgets = Map.of();
+
+    @PostConstruct
+    public void init() {
+        defaults = new QueryBudget(queryConfig.getMaxExecutionMs(), queryConfig.getMaxRows(), queryConfig.getMaxBytes());
+        toolBudgets = parseToolBudgets(queryConfig.getToolBudgets(), defaults);
+    }
+
+    // 调用方传入的值只能收紧配置的上限，为空或不大于0时使用配置值
+    public QueryBudget budget(String tool, Long maxExecutionMs, Long maxRows, Long maxBytes) {
+        QueryBudget configured = toolBudgets.getOrDefault(tool, defaults);
+        return new QueryBudget(
+                tighten(configured.maxExecutionMs(), maxExecutionMs),
+                tighten(configured.maxRows(), maxRows),
+                tighten(configured.maxBytes(), maxBytes));
+    }
+
+    public String sql(String query, QueryBudget budget) {
+        return SqlStatements.withMaxExecutionTime(query, budget.maxExecutionMs());
+    }
+
+    // 查询超时由驱动计时，到期后另建连接发送KILL QUERY，作为MAX_EXECUTION_TIME之外的兜底
+    public void applyTimeout(Statement stmt, QueryBudget budget) throws SQLException {
+        stmt.setQueryTimeout(budget.queryTimeoutSeconds());
+    }
+
+    // 最大行数多取一行，用来判断结果是否被截断；服务端按SQL_SELECT_LIMIT提前停止返回
+    public void apply(Statement stmt, String query, QueryBudget budget) throws SQLException {
+        applyTimeout(stmt, budget);
+        if (budget.maxRows() > 0 && RESULT_KEYWORDS.contains(SqlStatements.firstKeyword(query))) {
+            stmt.setLargeMaxRows(budget.maxRows() + 1);
+        }
+    }
+
+    static long tighten(long configured, Long requested) {
+        if (requested == null || requested <= 0) {
+            return configured;
+        }
+        return configured > 0 ? Math.min(configured, requested) : requested;
+    }
+
+    // 格式: 工具名.max-execution-ms=值,工具名.max-rows=值,工具名.max-bytes=值，未指定的项沿用全局配置
+    static Map<String, QueryBudget> parseToolBudgets(String config, QueryBudget defaults) {
+        Map<String, QueryBudget> budgets = new HashMap<>();
+        if (config == null || config.isBlank()) {
+            return budgets;
+        }
+        for (String entry : config.split(",")) {
+            String[] pair = entry.split("=");
+            int dot = pair[0].indexOf('.');
+            if (pair.length != 2 || dot <= 0) {
+                throw new IllegalArgumentException("greatsql.query.tool-budgets格式错误: " + entry);
+            }
+            String tool = pair[0].substring(0, dot).trim();
+            String item = pair[0].substring(dot + 1).trim();
+            long value = Long.parseLong(pair[1].trim());
+            QueryBudget budget = budgets.getOrDefault(tool, defaults);
+            budgets.put(tool, switch (item) {
+                case "max-execution-ms" -> new QueryBudget(value, budget.maxRows(), budget.maxBytes());
+                case "max-rows" -> new QueryBudget(budget.maxExecutionMs(), value, budget.maxBytes());
+                case "max-bytes" -> new QueryBudget(budget.maxExecutionMs(), budget.maxRows(), value);
+                default -> throw new IllegalArgumentException("greatsql.query.tool-budgets不支持的配置项: " + item);
+            });
+        }
+        return budgets;
+    }
+}
@@ -0,0 +1,37 @@
+package org.greatsql.greatsqlmcp.service;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.util.RawValue;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// executeQuery和checkCriticalTransactions的返回值，序列化时原样输出value。
+// 结果的形状由请求的格式决定(行对象数组或QueryResult)，但@Tool方法不能声明返回Object：
+// Spring AI会把Object当作函数类型，在stdio/SSE和submitJob中忽略整个工具
+public record QueryOutput(@JsonValue Object value) {
+
+    // 按格式转换结果集：rows为每行一个对象的数组，compact和columnar为QueryResult
+    public static QueryOutput convert(ResultSet rs, ResultFormat format, ResultLimit limit) throws SQLException {
+        return new QueryOutput(ResultSetConverter.convert(rs, format, limit));
+    }
+
+    // 结果缓存中已序列化的JSON，直接写出
+    public static QueryOutput cached(String json) {
+        return new QueryOutput(new RawValue(json));
+    }
+
+    public static QueryOutput updateCount(int updateCount) {
+        return new QueryOutput(Map.of("updateCount", updateCount));
+    }
+
+    // 截断的结果附带截断标记和提示，调用方据此决定是否缩小范围或改用分页游标
+    public QueryOutput truncated(String notice) {
+        Map<String, Object> wrapped = new LinkedHashMap<>();
+        wrapped.put("result", value);
+        wrapped.put("truncated", true);
+        wrapped.put("notice", notice);
+        return new QueryOutput(wrapped);
+    }
+}
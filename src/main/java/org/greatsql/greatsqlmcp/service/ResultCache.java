@@ -0,0 +1,179 @@
+package org.greatsql.greatsqlmcp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PostConstruct;
+import org.greatsql.greatsqlmcp.config.CacheConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// 只读查询的结果缓存，按目标实例+库名+规范化SQL+绑定参数+结果格式缓存序列化后的JSON，按总字节数淘汰。
+// 每个实例的每张表维护一个写入版本号，缓存项记录查询前各表的版本号，读取时版本号不一致即视为失效，
+// 因此查询执行期间发生的写入也不会留下过期结果
+@Service
+public class ResultCache {
+    // 最多跟踪这么多张表的版本号，长时间没有访问或超出数量的表被淘汰
+    private static final long MAX_TRACKED_TABLES = 65536;
+
+    @Autowired
+    private CacheConfig cacheConfig;
+
+    @Autowired
+    private ConnectionService connectionService;
+
+    private Cache<String, Entry> cache;
+
+    // 以目标实例+表名为键。版本号取自全局递增的stamps，被淘汰的表按floor取版本号：
+    // floor不小于任何被淘汰过的版本号，表被淘汰后版本号不会回到写入之前的值，旧的缓存项不会因此被当作有效
+    private Cache<String, Long> tableVersions;
+
+    private final AtomicLong stamps = new AtomicLong();
+
+    private final AtomicLong floor = new AtomicLong();
+
+    private final AtomicLong globalVersion = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        // W-TinyLFU淘汰，单个缓存项按JSON长度计重
+        cache = Caffeine.newBuilder()
+                .maximumWeight(Math.max(1, cacheConfig.getResultMaxBytes()))
+                .weigher((String key, Entry entry) -> key.length() + entry.json.length())
+                .expireAfterWrite(Duration.ofMillis(Math.max(1, cacheConfig.getResultTtlMs())))
+                .recordStats()
+                .build();
+        // evictionListener与淘汰在同一原子操作中执行，查不到版本号时floor已经更新
+        tableVersions = Caffeine.newBuilder()
+                .maximumSize(MAX_TRACKED_TABLES)
+                .expireAfterAccess(Duration.ofMillis(Math.max(1, cacheConfig.getResultTtlMs())))
+                .evictionListener((String table, Long version, RemovalCause cause) -> floor.accumulateAndGet(version, Math::max))
+                .build();
+    }
+
+    public boolean enabled() {
+        return cacheConfig.isResultCacheEnabled();
+    }
+
+    // 返回缓存的JSON；不可缓存的语句返回null，由调用方按原路径执行
+    public String get(String database, String query, String paramsKey, ResultFormat format, Supplier<String> loader) {
+        if (!enabled() || !SqlStatements.isCacheableRead(query)) {
+            return null;
+        }
+        Set<String> tables = SqlStatements.referencedTables(database, query);
+        if (tables.isEmpty() || tables.stream().anyMatch(SqlStatements::isSystemTable)) {
+            return null;
+        }
+
+        String target = connectionService.currentTarget();
+        String key = target + '\u0000' + database + '\u0000' + format + '\u0000' + SqlStatements.normalize(query) + '\u0000' + paramsKey;
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            if (entry.isCurrent()) {
+                hits.increment();
+                return entry.json;
+            }
+            staleHits.increment();
+            cache.invalidate(key);
+        }
+        misses.increment();
+
+        // 先记录版本号再执行查询
+        Entry loaded = new Entry(tables.stream().map(table -> target + '\u0000' + table).toArray(String[]::new),
+                globalVersion.get());
+        for (int i = 0; i < loaded.tables.length; i++) {
+            loaded.versions[i] = versionOf(loaded.tables[i]);
+        }
+        loaded.json = loader.get();
+        if (loaded.isCurrent()) {
+            cache.put(key, loaded);
+        }
+        return loaded.json;
+    }
+
+    // 写入语句执行后调用，表名为小写的"库名.表名"，属于当前调用的目标实例
+    public void invalidateTables(Collection<String> tables) {
+        if (tables.isEmpty()) {
+            invalidateAll();
+            return;
+        }
+        String target = connectionService.currentTarget();
+        for (String table : tables) {
+            tableVersions.asMap().merge(target + '\u0000' + table, stamps.incrementAndGet(), Math::max);
+        }
+        invalidations.increment();
+    }
+
+    public void invalidateTable(String database, String tableName) {
+        // 复用语句解析，统一处理带库名或反引号的表名
+        invalidateTables(SqlStatements.referencedTables(database, "UPDATE " + tableName));
+    }
+
+    public void invalidateAll() {
+        globalVersion.incrementAndGet();
+        cache.invalidateAll();
+        invalidations.increment();
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled());
+        stats.put("entries", cache.estimatedSize());
+        stats.put("weightedBytes", cache.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L));
+        stats.put("maxBytes", cacheConfig.getResultMaxBytes());
+        stats.put("ttlMs", cacheConfig.getResultTtlMs());
+        stats.put("hitCount", hitCount);
+        stats.put("missCount", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("staleCount", staleHits.sum());
+        stats.put("evictionCount", cache.stats().evictionCount());
+        stats.put("invalidationCount", invalidations.sum());
+        stats.put("trackedTables", tableVersions.estimatedSize());
+        return stats;
+    }
+
+    private long versionOf(String table) {
+        Long version = tableVersions.getIfPresent(table);
+        return version != null ? version : floor.get();
+    }
+
+    private final class Entry {
+        private final String[] tables;
+        private final long[] versions;
+        private final long global;
+        private String json;
+
+        private Entry(String[] tables, long global) {
+            this.tables = tables;
+            this.versions = new long[tables.length];
+            this.global = global;
+        }
+
+        private boolean isCurrent() {
+            if (global != globalVersion.get()) {
+                return false;
+            }
+            for (int i = 0; i < tables.length; i++) {
+                if (versions[i] != versionOf(tables[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.greatsql.greatsqlmcp.service;
+
+import java.util.Locale;
+
+public enum ResultFormat {
+    // 每行一个Map，列名随每行重复输出
+    ROWS,
+    // 列名只输出一次，之后每行一个数组
+    COMPACT,
+    // 列名只输出一次，每列一个向量
+    COLUMNAR;
+
+    public static ResultFormat of(String format) {
+        if (format == null || format.isBlank()) {
+            return ROWS;
+        }
+        try {
+            return valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("不支持的结果格式: " + format + "，可选值为 rows、compact、columnar");
+        }
+    }
+}
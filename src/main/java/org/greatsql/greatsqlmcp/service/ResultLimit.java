@@ -0,0 +1,86 @@
+package org.greatsql.greatsqlmcp.service;
+
+// 读取结果集时的行数和字节数上限，超出时停止读取并标记为已截断。字节数按JSON输出的大致长度估算
+public final class ResultLimit {
+    private final long maxRows;
+    private final long maxBytes;
+    private long rows;
+    private long bytes;
+    private boolean truncated;
+
+    public ResultLimit(long maxRows, long maxBytes) {
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+    }
+
+    public static ResultLimit unlimited() {
+        return new ResultLimit(0, 0);
+    }
+
+    // 结果集还有下一行时调用，已达上限则标记截断并返回false；至少会接受一行
+    public boolean admit() {
+        if ((maxRows > 0 && rows >= maxRows) || (maxBytes > 0 && bytes >= maxBytes)) {
+            truncated = true;
+            return false;
+        }
+        return true;
+    }
+
+    // columns不为空时按每行都带列名的rows格式计算
+    public void add(Object[] values, String[] columns) {
+        long rowBytes = 0;
+        for (int i = 0; i < values.length; i++) {
+            rowBytes += measure(values[i], columns == null ? null : columns[i]);
+        }
+        addRow(rowBytes);
+    }
+
+    // 单元格的估算字节数，不限制字节数时不做估算
+    public long measure(Object value, String column) {
+        if (maxBytes <= 0) {
+            return 0;
+        }
+        return estimateBytes(value) + (column == null ? 0 : column.length());
+    }
+
+    public void addRow(long rowBytes) {
+        rows++;
+        bytes += rowBytes;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    // 按行数截断时服务端最多多返回了一行，按字节数截断时可能还有大量未读的行
+    public boolean truncatedByBytes() {
+        return truncated && !(maxRows > 0 && rows >= maxRows);
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    public String notice() {
+        if (!truncated) {
+            return null;
+        }
+        return "结果已截断：仅返回前 " + rows + " 行（约 " + bytes + " 字节），超出了单次调用的最大行数("
+                + (maxRows > 0 ? maxRows : "不限") + ")或最大字节数(" + (maxBytes > 0 ? maxBytes : "不限")
+                + ")，请缩小查询范围、添加LIMIT或使用executeQueryStream分页读取";
+    }
+
+    // 按JSON输出的大致长度估算单元格大小
+    static long estimateBytes(Object value) {
+        if (value == null) {
+            return 4;
+        }
+        if (value instanceof byte[] bytes) {
+            return bytes.length * 4L / 3 + 2;
+        }
+        if (value instanceof CharSequence text) {
+            return text.length() + 2L;
+        }
+        return value.toString().length();
+    }
+}
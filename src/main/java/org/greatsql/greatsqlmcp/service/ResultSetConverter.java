@@ -0,0 +1,277 @@
+package org.greatsql.greatsqlmcp.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.greatsql.greatsqlmcp.entity.QueryResult;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 将ResultSet转换为不同的结果格式，列元数据在每个结果集上只解析一次
+public final class ResultSetConverter {
+    private static final long NUMBER_BYTES = 8;
+
+    private ResultSetConverter() {
+    }
+
+    public static Object convert(ResultSet rs, ResultFormat format) throws SQLException {
+        return convert(rs, format, ResultLimit.unlimited());
+    }
+
+    public static Object convert(ResultSet rs, ResultFormat format, ResultLimit limit) throws SQLException {
+        String[] columns = columnLabels(rs.getMetaData());
+        return switch (format) {
+            case ROWS -> toRows(rs, columns, limit);
+            case COMPACT -> toCompact(rs, columns, limit);
+            case COLUMNAR -> toColumnar(rs, columns, limit);
+        };
+    }
+
+    public static String[] columnLabels(ResultSetMetaData metaData) throws SQLException {
+        String[] columns = new String[metaData.getColumnCount()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = metaData.getColumnLabel(i + 1);
+        }
+        return columns;
+    }
+
+    public static List<Map<String, Object>> toRows(ResultSet rs, String[] columns) throws SQLException {
+        return toRows(rs, columns, ResultLimit.unlimited());
+    }
+
+    private static List<Map<String, Object>> toRows(ResultSet rs, String[] columns, ResultLimit limit) throws SQLException {
+        List<Map<String, Object>> results = new ArrayList<>();
+        while (rs.next() && limit.admit()) {
+            Object[] values = readArray(rs, columns.length);
+            limit.add(values, columns);
+            results.add(toMap(columns, values));
+        }
+        return results;
+    }
+
+    public static Map<String, Object> readRow(ResultSet rs, String[] columns) throws SQLException {
+        return toMap(columns, readArray(rs, columns.length));
+    }
+
+    public static Map<String, Object> toMap(String[] columns, Object[] values) {
+        Map<String, Object> row = new LinkedHashMap<>((int) (columns.length / 0.75f) + 1);
+        for (int i = 0; i < columns.length; i++) {
+            row.put(columns[i], values[i]);
+        }
+        return row;
+    }
+
+    public static Object[] readArray(ResultSet rs, int columnCount) throws SQLException {
+        Object[] row = new Object[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            row[i] = rs.getObject(i + 1);
+        }
+        return row;
+    }
+
+    // 边读边写，不在内存中保留整个结果集
+    public static void write(ResultSet rs, ResultFormat format, JsonGenerator gen) throws SQLException, IOException {
+        write(rs, format, gen, ResultLimit.unlimited());
+    }
+
+    public static void write(ResultSet rs, ResultFormat format, JsonGenerator gen, ResultLimit limit) throws SQLException, IOException {
+        String[] columns = columnLabels(rs.getMetaData());
+        if (format == ResultFormat.COLUMNAR) {
+            // 列式结果必须读完所有行才能输出第一列
+            gen.writeObject(toColumnar(rs, columns, limit));
+            return;
+        }
+
+        int columnCount = columns.length;
+        if (format == ResultFormat.ROWS) {
+            SerializedString[] names = new SerializedString[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                names[i] = new SerializedString(columns[i]);
+            }
+            gen.writeStartArray();
+            while (rs.next() && limit.admit()) {
+                long rowBytes = 0;
+                gen.writeStartObject();
+                for (int i = 0; i < columnCount; i++) {
+                    Object value = rs.getObject(i + 1);
+                    gen.writeFieldName(names[i]);
+                    gen.writeObject(value);
+                    rowBytes += limit.measure(value, columns[i]);
+                }
+                gen.writeEndObject();
+                limit.addRow(rowBytes);
+            }
+            gen.writeEndArray();
+            return;
+        }
+
+        gen.writeStartObject();
+        gen.writeStringField("format", "compact");
+        gen.writeArrayFieldStart("columns");
+        for (String column : columns) {
+            gen.writeString(column);
+        }
+        gen.writeEndArray();
+        gen.writeArrayFieldStart("rows");
+        int rowCount = 0;
+        while (rs.next() && limit.admit()) {
+            long rowBytes = 0;
+            gen.writeStartArray();
+            for (int i = 0; i < columnCount; i++) {
+                Object value = rs.getObject(i + 1);
+                gen.writeObject(value);
+                rowBytes += limit.measure(value, null);
+            }
+            gen.writeEndArray();
+            limit.addRow(rowBytes);
+            rowCount++;
+        }
+        gen.writeEndArray();
+        gen.writeNumberField("rowCount", rowCount);
+        if (limit.isTruncated()) {
+            gen.writeBooleanField("truncated", true);
+        }
+        gen.writeEndObject();
+    }
+
+    private static QueryResult toCompact(ResultSet rs, String[] columns, ResultLimit limit) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        while (rs.next() && limit.admit()) {
+            Object[] values = readArray(rs, columns.length);
+            limit.add(values, null);
+            rows.add(values);
+        }
+
+        QueryResult result = new QueryResult();
+        result.setFormat("compact");
+        result.setColumns(Arrays.asList(columns));
+        result.setRows(rows);
+        result.setRowCount(rows.size());
+        result.setTruncated(limit.isTruncated() ? Boolean.TRUE : null);
+        return result;
+    }
+
+    private static QueryResult toColumnar(ResultSet rs, String[] columns, ResultLimit limit) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = columns.length;
+        List<String> types = new ArrayList<>(columnCount);
+        ColumnVector[] vectors = new ColumnVector[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            types.add(metaData.getColumnTypeName(i + 1));
+            vectors[i] = ColumnVector.create(metaData, i + 1);
+        }
+
+        int rowCount = 0;
+        while (rs.next() && limit.admit()) {
+            long rowBytes = 0;
+            for (int i = 0; i < columnCount; i++) {
+                rowBytes += vectors[i].read(rs, i + 1, limit);
+            }
+            limit.addRow(rowBytes);
+            rowCount++;
+        }
+
+        List<Object> data = new ArrayList<>(columnCount);
+        for (ColumnVector vector : vectors) {
+            data.add(vector.values());
+        }
+
+        QueryResult result = new QueryResult();
+        result.setFormat("columnar");
+        result.setColumns(Arrays.asList(columns));
+        result.setTypes(types);
+        result.setVectors(data);
+        result.setRowCount(rowCount);
+        result.setTruncated(limit.isTruncated() ? Boolean.TRUE : null);
+        return result;
+    }
+
+    private abstract static class ColumnVector {
+        // 返回读到的值按JSON输出的大致字节数，数值列按固定长度估算，避免装箱
+        abstract long read(ResultSet rs, int index, ResultLimit limit) throws SQLException;
+
+        abstract Object values();
+
+        static ColumnVector create(ResultSetMetaData metaData, int index) throws SQLException {
+            // 只有声明为NOT NULL的数值列才能安全地放进基本类型数组
+            if (metaData.isNullable(index) != ResultSetMetaData.columnNoNulls) {
+                return new ObjectVector();
+            }
+            int type = metaData.getColumnType(index);
+            boolean fitsLong = switch (type) {
+                case Types.TINYINT, Types.SMALLINT, Types.INTEGER -> true;
+                // BIGINT UNSIGNED 可能超出long范围
+                case Types.BIGINT -> metaData.isSigned(index);
+                default -> false;
+            };
+            if (fitsLong) {
+                return new LongVector();
+            }
+            if (type == Types.FLOAT || type == Types.REAL || type == Types.DOUBLE) {
+                return new DoubleVector();
+            }
+            return new ObjectVector();
+        }
+    }
+
+    private static final class LongVector extends ColumnVector {
+        private long[] values = new long[64];
+        private int size;
+
+        @Override
+        long read(ResultSet rs, int index, ResultLimit limit) throws SQLException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = rs.getLong(index);
+            return NUMBER_BYTES;
+        }
+
+        @Override
+        Object values() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private static final class DoubleVector extends ColumnVector {
+        private double[] values = new double[64];
+        private int size;
+
+        @Override
+        long read(ResultSet rs, int index, ResultLimit limit) throws SQLException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = rs.getDouble(index);
+            return NUMBER_BYTES;
+        }
+
+        @Override
+        Object values() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private static final class ObjectVector extends ColumnVector {
+        private final List<Object> values = new ArrayList<>();
+
+        @Override
+        long read(ResultSet rs, int index, ResultLimit limit) throws SQLException {
+            Object value = rs.getObject(index);
+            values.add(value);
+            return limit.measure(value, null);
+        }
+
+        @Override
+        Object values() {
+            return values;
+        }
+    }
+}
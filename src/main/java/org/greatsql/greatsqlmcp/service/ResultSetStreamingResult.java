@@ -0,0 +1,74 @@
+package org.greatsql.greatsqlmcp.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class ResultSetStreamingResult implements StreamingResult {
+    private final Connection conn;
+    private final Statement stmt;
+    private final ResultSet rs;
+    private final ResultFormat format;
+    private final ResultLimit limit;
+    private final ToolCallContext.Registration registration;
+    private final Runnable killQuery;
+    private boolean complete;
+
+    public ResultSetStreamingResult(Connection conn, Statement stmt, ResultSet rs, ResultFormat format,
+                                    ResultLimit limit, ToolCallContext.Registration registration, Runnable killQuery) {
+        this.conn = conn;
+        this.stmt = stmt;
+        this.rs = rs;
+        this.format = format;
+        this.limit = limit;
+        this.registration = registration;
+        this.killQuery = killQuery;
+    }
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        try {
+            ResultSetConverter.write(rs, format, generator, limit);
+            complete = true;
+        } catch (SQLException e) {
+            throw new IOException("读取查询结果时出错：" + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String notice() {
+        return limit.notice();
+    }
+
+    @Override
+    public long rowCount() {
+        return limit.rows();
+    }
+
+    @Override
+    public void close() {
+        // 没有读完(写出失败或客户端断开)或按字节数截断时，服务端可能还在发送剩余的行，先中断再关闭
+        if (!complete || limit.truncatedByBytes()) {
+            killQuery.run();
+        }
+        closeQuietly(rs);
+        closeQuietly(stmt);
+        // 先解除登记再归还连接
+        registration.close();
+        closeQuietly(conn);
+    }
+
+    static void closeQuietly(AutoCloseable resource) {
+        if (resource == null) {
+            return;
+        }
+        try {
+            resource.close();
+        } catch (Exception ignored) {
+            // 释放资源失败时由连接池回收连接
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package org.greatsql.greatsqlmcp.service;
+
+import jakarta.annotation.PreDestroy;
+import org.greatsql.greatsqlmcp.config.QueryConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+// getTableRowCount的估算和精确计数实现
+@Service
+public class RowCountService {
+    private static final List<String> INTEGER_TYPES = List.of("tinyint", "smallint", "mediumint", "int", "bigint");
+
+    // 分片数上限，主键稀疏、跨度很大时按跨度加宽每个分片，避免为空区间提交海量任务
+    static final long MAX_CHUNKS = 256;
+
+    @Autowired
+    private ConnectionService connectionService;
+
+    @Autowired
+    private QueryConfig queryConfig;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    // 优先取INFORMATION_SCHEMA中的统计值，视图等没有统计值时退回到EXPLAIN的预估行数
+    public long estimate(String database, String tableName) {
+        String sql = "SELECT TABLE_ROWS FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA=? AND TABLE_NAME=?";
+        try (Connection conn = connectionService.getReadConnection(database)) {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, database);
+                stmt.setString(2, tableName);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        long rows = rs.getLong(1);
+                        if (!rs.wasNull()) {
+                            return rows;
+                        }
+                    }
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN SELECT * FROM " + tableName);
+                 ResultSet rs = stmt.executeQuery()) {
+                long rows = 0;
+                while (rs.next()) {
+                    rows = Math.max(rows, rs.getLong("rows"));
+                }
+                return rows;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("无法获取表行数：" + e.getMessage(), e);
+        }
+    }
+
+    // 单列整数主键的表按主键范围切分成多个分片并行计数，其他表退回到单条COUNT(*)。
+    // 精确计数都在写连接所在的节点上执行，不受从节点复制延迟影响；但各分片是不同连接上的独立语句，
+    // 不是同一个一致性快照，计数期间有并发写入时结果可能与任一时刻的实际行数略有出入
+    public long countExact(String database, String tableName) {
+        try {
+            String primaryKey = integerPrimaryKey(database, tableName);
+            if (primaryKey == null) {
+                return count(database, "SELECT COUNT(*) FROM " + tableName, null, ToolCallContext.current());
+            }
+            long[] range = keyRange(database, tableName, primaryKey);
+            if (range == null) {
+                return 0;
+            }
+            long chunkRows = Math.max(1, queryConfig.getCountChunkRows());
+            long span = range[1] - range[0];
+            if (span < 0 || span / chunkRows < 2) {
+                // 主键跨度溢出long或者分片太少，没有并行的必要
+                return count(database, "SELECT COUNT(*) FROM " + tableName, null, ToolCallContext.current());
+            }
+            return countChunks(database, tableName, primaryKey, range[0], range[1], Math.max(chunkRows, span / MAX_CHUNKS + 1));
+        } catch (SQLException e) {
+            throw new RuntimeException("无法获取表行数：" + e.getMessage(), e);
+        }
+    }
+
+    private long countChunks(String database, String tableName, String primaryKey,
+                             long min, long max, long chunkRows) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM " + tableName + " WHERE `" + primaryKey + "` >= ? AND `" + primaryKey + "` <= ?";
+        Semaphore permits = new Semaphore(Math.max(1, queryConfig.getCountParallelism()));
+        CompletionService<Long> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Long>> futures = new ArrayList<>();
+        // 分片语句同时登记到当前调用和本次计数：调用被取消或客户端断开时终止所有分片；
+        // 计数被中断或某个分片失败时只终止本次计数中仍在执行的分片
+        ToolCallContext context = ToolCallContext.current();
+        ToolCallContext chunks = ToolCallContext.forTarget(context.target());
+        for (long lo = min; lo <= max; ) {
+            long hi = max - lo < chunkRows ? max : lo + chunkRows - 1;
+            long[] bounds = {lo, hi};
+            futures.add(completion.submit(ToolCallContext.inCurrentTarget(() -> {
+                permits.acquire();
+                try {
+                    return count(database, sql, bounds, context, chunks);
+                } finally {
+                    permits.release();
+                }
+            })));
+            if (hi == max) {
+                break;
+            }
+            lo = hi + 1;
+        }
+
+        long total = 0;
+        boolean completed = false;
+        try {
+            for (int done = 1; done <= futures.size(); done++) {
+                total += completion.take().get();
+                context.reportProgress(done, (double) futures.size(), "已完成 " + done + "/" + futures.size() + " 个分片，累计 " + total + " 行");
+            }
+            completed = true;
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("计算表行数被取消", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("无法获取表行数：" + e.getCause().getMessage(), e.getCause());
+        } finally {
+            if (!completed) {
+                // 先标记取消，尚未开始的分片不再执行；JDBC语句不响应线程中断，执行中的分片需要KILL
+                chunks.cancel();
+            }
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private long count(String database, String sql, long[] bounds, ToolCallContext... contexts) throws SQLException {
+        try (Connection conn = connectionService.getConnection(database);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            List<ToolCallContext.Registration> registrations = new ArrayList<>();
+            try {
+                for (ToolCallContext context : contexts) {
+                    registrations.add(context.track(stmt));
+                }
+                if (bounds != null) {
+                    stmt.setLong(1, bounds[0]);
+                    stmt.setLong(2, bounds[1]);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? rs.getLong(1) : 0;
+                }
+            } finally {
+                registrations.forEach(ToolCallContext.Registration::close);
+            }
+        }
+    }
+
+    private long[] keyRange(String database, String tableName, String primaryKey) throws SQLException {
+        String sql = "SELECT MIN(`" + primaryKey + "`), MAX(`" + primaryKey + "`) FROM " + tableName;
+        try (Connection conn = connectionService.getConnection(database);
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            if (!rs.next() || rs.getString(1) == null) {
+                return null;
+            }
+            try {
+                return new long[]{Long.parseLong(rs.getString(1)), Long.parseLong(rs.getString(2))};
+            } catch (NumberFormatException e) {
+                // BIGINT UNSIGNED超出long范围
+                return new long[]{0, -1};
+            }
+        }
+    }
+
+    // 只查这一张表的主键列，不加载整个库的表结构；主键不是单个整数列时返回null
+    private String integerPrimaryKey(String database, String tableName) throws SQLException {
+        String sql = "SELECT k.COLUMN_NAME, c.DATA_TYPE FROM INFORMATION_SCHEMA.KEY_COLUMN_USAGE k "
+                + "JOIN INFORMATION_SCHEMA.COLUMNS c ON c.TABLE_SCHEMA = k.TABLE_SCHEMA "
+                + "AND c.TABLE_NAME = k.TABLE_NAME AND c.COLUMN_NAME = k.COLUMN_NAME "
+                + "WHERE k.TABLE_SCHEMA = ? AND k.TABLE_NAME = ? AND k.CONSTRAINT_NAME = 'PRIMARY'";
+        try (Connection conn = connectionService.getConnection(database);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, database);
+            stmt.setString(2, tableName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                String primaryKey = rs.getString(1);
+                String type = rs.getString(2).toLowerCase(Locale.ROOT);
+                if (rs.next() || !INTEGER_TYPES.contains(type)) {
+                    return null;
+                }
+                return primaryKey;
+            }
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package org.greatsql.greatsqlmcp.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// 轻量的SQL语句分类，只看跳过注释和括号后的第一个关键字，不做完整解析
+public final class SqlStatements {
+    private static final Set<String> DDL_KEYWORDS = Set.of("CREATE", "ALTER", "DROP", "RENAME", "TRUNCATE");
+
+    private static final Set<String> DML_KEYWORDS = Set.of("INSERT", "REPLACE", "UPDATE", "DELETE");
+
+    // 只读语句的第一个关键字
+    private static final Set<String> READ_KEYWORDS = Set.of(
+            "SELECT", "WITH", "SHOW", "DESC", "DESCRIBE", "EXPLAIN", "TABLE", "VALUES", "HELP");
+
+    // 后面紧跟表名的关键字
+    private static final Set<String> TABLE_INTRODUCERS = Set.of("FROM", "JOIN", "INTO", "UPDATE");
+
+    // 表名后面可能出现、但不是别名的关键字
+    private static final Set<String> NOT_ALIAS = Set.of(
+            "WHERE", "JOIN", "INNER", "LEFT", "RIGHT", "CROSS", "NATURAL", "STRAIGHT_JOIN", "OUTER",
+            "ON", "USING", "SET", "VALUES", "VALUE", "SELECT", "GROUP", "ORDER", "HAVING", "LIMIT",
+            "UNION", "EXCEPT", "INTERSECT", "WINDOW", "FOR", "LOCK", "PARTITION", "USE", "IGNORE",
+            "FORCE", "INTO", "AS", "TABLESAMPLE", "RETURNING");
+
+    // 结果随时间、会话或随机数变化的函数，以及加锁读、SELECT INTO等不能缓存的写法
+    private static final Set<String> VOLATILE_TOKENS = Set.of(
+            "NOW", "SYSDATE", "CURDATE", "CURTIME", "CURRENT_DATE", "CURRENT_TIME", "CURRENT_TIMESTAMP",
+            "LOCALTIME", "LOCALTIMESTAMP", "UNIX_TIMESTAMP", "UTC_DATE", "UTC_TIME", "UTC_TIMESTAMP",
+            "RAND", "UUID", "UUID_SHORT", "CONNECTION_ID", "LAST_INSERT_ID", "FOUND_ROWS", "ROW_COUNT",
+            "USER", "CURRENT_USER", "SESSION_USER", "SYSTEM_USER", "DATABASE", "SCHEMA",
+            "SLEEP", "GET_LOCK", "RELEASE_LOCK", "IS_FREE_LOCK", "IS_USED_LOCK", "BENCHMARK",
+            "NEXTVAL", "LASTVAL", "FOR", "LOCK", "INTO", "@");
+
+    // 加锁读、SELECT INTO、用户变量，以及结果取决于当前会话或需要在主节点上加锁的函数，这些SELECT不能发往从节点
+    private static final Set<String> PRIMARY_ONLY_TOKENS = Set.of(
+            "FOR", "LOCK", "INTO", "@", "CONNECTION_ID", "LAST_INSERT_ID", "FOUND_ROWS", "ROW_COUNT",
+            "GET_LOCK", "RELEASE_LOCK", "IS_FREE_LOCK", "IS_USED_LOCK", "NEXTVAL", "LASTVAL");
+
+    // 内容随服务器运行状态变化的系统库
+    private static final Set<String> SYSTEM_SCHEMAS = Set.of("information_schema", "performance_schema", "mysql", "sys");
+
+    private SqlStatements() {
+    }
+
+    public static String firstKeyword(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        int i = skipIgnorable(sql, 0);
+        int start = i;
+        while (i < sql.length() && Character.isLetter(sql.charAt(i))) {
+            i++;
+        }
+        return sql.substring(start, i).toUpperCase(Locale.ROOT);
+    }
+
+    public static boolean isDdl(String sql) {
+        return DDL_KEYWORDS.contains(firstKeyword(sql));
+    }
+
+    public static boolean isDml(String sql) {
+        return DML_KEYWORDS.contains(firstKeyword(sql));
+    }
+
+    // 可执行注释/*!...*/、/*M!...*/中的内容服务端会照常执行，分类时无法按注释跳过，含有这类注释的语句一律不按只读处理。
+    // WITH和EXPLAIN ANALYZE后面也可以跟UPDATE/DELETE，SELECT ... INTO会写文件或变量，这些都按写语句处理
+    // (FOR UPDATE是加锁读，INSERT(...)、REPLACE(...)是字符串函数，不算)
+    public static boolean isReadOnly(String sql) {
+        String keyword = firstKeyword(sql);
+        if (!READ_KEYWORDS.contains(keyword) || hasExecutableComment(sql)) {
+            return false;
+        }
+        if (keyword.equals("SHOW") || keyword.equals("HELP")) {
+            return true;
+        }
+        List<String> tokens = tokens(sql);
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (token.equals("INTO")) {
+                return false;
+            }
+            boolean lockingRead = token.equals("UPDATE") && i > 0 && tokens.get(i - 1).equals("FOR");
+            boolean function = i + 1 < tokens.size() && tokens.get(i + 1).equals("(");
+            if (DML_KEYWORDS.contains(token) && !lockingRead && !function) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 字面量之外是否有/*!或/*M!开头的可执行注释
+    static boolean hasExecutableComment(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                i = quotedEnd(sql, i, c);
+            } else if (sql.startsWith("/*!", i) || sql.startsWith("/*M!", i)) {
+                return true;
+            } else {
+                int next = skipComments(sql, i);
+                i = next == i ? i + 1 : next;
+            }
+        }
+        return false;
+    }
+
+    // 只读且结果只取决于表数据的SELECT才能缓存
+    public static boolean isCacheableRead(String sql) {
+        if (!"SELECT".equals(firstKeyword(sql)) || hasExecutableComment(sql)) {
+            return false;
+        }
+        for (String token : tokens(sql)) {
+            if (VOLATILE_TOKENS.contains(token)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 开启读写分离时可以在从节点上执行的只读SELECT
+    public static boolean isReplicaSafeRead(String sql) {
+        if (!"SELECT".equals(firstKeyword(sql)) || hasExecutableComment(sql)) {
+            return false;
+        }
+        for (String token : tokens(sql)) {
+            if (PRIMARY_ONLY_TOKENS.contains(token)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 给顶层SELECT加上MAX_EXECUTION_TIME优化器提示，由服务端在超时后中断执行；
+    // 提示对整条语句(含UNION和子查询)生效，不是SELECT或已自带该提示时原样返回
+    public static String withMaxExecutionTime(String sql, long maxExecutionMs) {
+        if (maxExecutionMs <= 0 || !"SELECT".equals(firstKeyword(sql))
+                || sql.toUpperCase(Locale.ROOT).contains("MAX_EXECUTION_TIME")) {
+            return sql;
+        }
+        int at = skipIgnorable(sql, 0) + "SELECT".length();
+        String hint = "MAX_EXECUTION_TIME(" + maxExecutionMs + ")";
+        int next = at;
+        while (next < sql.length() && Character.isWhitespace(sql.charAt(next))) {
+            next++;
+        }
+        // 服务端只识别SELECT后的第一个提示注释，已有提示时合并进去
+        if (sql.startsWith("/*+", next)) {
+            return sql.substring(0, next + 3) + " " + hint + sql.substring(next + 3);
+        }
+        return sql.substring(0, at) + " /*+ " + hint + " */" + sql.substring(at);
+    }
+
+    public static boolean isSystemTable(String qualifiedName) {
+        int dot = qualifiedName.indexOf('.');
+        return dot > 0 && SYSTEM_SCHEMAS.contains(qualifiedName.substring(0, dot));
+    }
+
+    // 语句引用到的表，统一为小写的"库名.表名"，未指定库名的使用当前库
+    public static Set<String> referencedTables(String database, String sql) {
+        List<String> tokens = tokens(sql);
+        Set<String> tables = new LinkedHashSet<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            String keyword = tokens.get(i);
+            if (!TABLE_INTRODUCERS.contains(keyword)) {
+                continue;
+            }
+            boolean list = keyword.equals("FROM") || keyword.equals("UPDATE");
+            int j = i + 1;
+            while (j < tokens.size() && isIdentifier(tokens.get(j))) {
+                String schema = database;
+                String table = identifier(tokens.get(j++));
+                if (j + 1 < tokens.size() && tokens.get(j).equals(".") && isIdentifier(tokens.get(j + 1))) {
+                    schema = table;
+                    table = identifier(tokens.get(j + 1));
+                    j += 2;
+                }
+                tables.add(qualify(schema, table));
+                // 跳过别名
+                if (j < tokens.size() && tokens.get(j).equals("AS")) {
+                    j++;
+                }
+                if (j < tokens.size() && isIdentifier(tokens.get(j))) {
+                    j++;
+                }
+                if (!list || j >= tokens.size() || !tokens.get(j).equals(",")) {
+                    break;
+                }
+                j++;
+            }
+            i = j - 1;
+        }
+        return tables;
+    }
+
+    // 合并字面量和注释之外的连续空白、去掉末尾分号，作为结果缓存的键
+    public static String normalize(String sql) {
+        StringBuilder normalized = new StringBuilder(sql.length());
+        int i = 0;
+        int length = sql.length();
+        boolean pendingSpace = false;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+                i++;
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            int end = c == '\'' || c == '"' || c == '`' ? quotedEnd(sql, i, c) : i + 1;
+            normalized.append(sql, i, end);
+            i = end;
+        }
+        while (normalized.length() > 0 && normalized.charAt(normalized.length() - 1) == ';') {
+            normalized.setLength(normalized.length() - 1);
+        }
+        return normalized.toString().trim();
+    }
+
+    // 拆分出大写的关键字、以`开头的引用标识符和标点，跳过字符串字面量与注释
+    static List<String> tokens(String sql) {
+        List<String> tokens = new ArrayList<>();
+        if (sql == null) {
+            return tokens;
+        }
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            i = skipComments(sql, i);
+            if (i >= length) {
+                break;
+            }
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '\'' || c == '"') {
+                i = quotedEnd(sql, i, c);
+            } else if (c == '`') {
+                int end = quotedEnd(sql, i, c);
+                tokens.add(sql.substring(i, Math.max(i + 1, end - 1)).replace("``", "`"));
+                i = end;
+            } else if (Character.isLetterOrDigit(c) || c == '_' || c == '$') {
+                int start = i;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_' || sql.charAt(i) == '$')) {
+                    i++;
+                }
+                tokens.add(sql.substring(start, i).toUpperCase(Locale.ROOT));
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isIdentifier(String token) {
+        if (token.startsWith("`")) {
+            return true;
+        }
+        char c = token.charAt(0);
+        return (Character.isLetter(c) || c == '_' || c == '$') && !NOT_ALIAS.contains(token);
+    }
+
+    private static String identifier(String token) {
+        return token.startsWith("`") ? token.substring(1) : token;
+    }
+
+    private static String qualify(String schema, String table) {
+        String qualified = (schema == null ? "" : schema) + "." + table;
+        return qualified.toLowerCase(Locale.ROOT);
+    }
+
+    private static int quotedEnd(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\\' && quote != '`') {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return sql.length();
+    }
+
+    // 跳过空白、左括号以及 /* */、-- 、# 三种注释
+    private static int skipIgnorable(String sql, int from) {
+        int i = from;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c) || c == '(') {
+                i++;
+                continue;
+            }
+            int next = skipComments(sql, i);
+            if (next == i) {
+                break;
+            }
+            i = next;
+        }
+        return i;
+    }
+
+    private static int skipComments(String sql, int from) {
+        int length = sql.length();
+        char c = sql.charAt(from);
+        if (c == '/' && from + 1 < length && sql.charAt(from + 1) == '*') {
+            int end = sql.indexOf("*/", from + 2);
+            return end < 0 ? length : end + 2;
+        }
+        if (c == '#' || (c == '-' && from + 2 < length && sql.charAt(from + 1) == '-'
+                && Character.isWhitespace(sql.charAt(from + 2)))) {
+            int end = sql.indexOf('\n', from);
+            return end < 0 ? length : end + 1;
+        }
+        return from;
+    }
+}
@@ -0,0 +1,151 @@
+package org.greatsql.greatsqlmcp.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// 全局状态的环形历史缓冲区：每个状态变量一条long[]序列，按变量名建立下标
+public class StatusHistory {
+    public static final long MISSING = Long.MIN_VALUE;
+
+    // 起止样本相隔不足这么久时不计算增量和速率，几毫秒内的差值没有参考意义
+    public static final long MIN_BASELINE_MS = 1000;
+
+    private final int capacity;
+    private final long[] timestamps;
+    private final Map<String, Integer> index = new HashMap<>();
+    private long[][] series = new long[0][];
+    private int head = -1;
+    private int count;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public StatusHistory(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2");
+        }
+        this.capacity = capacity;
+        this.timestamps = new long[capacity];
+    }
+
+    public void record(long timestamp, String[] names, long[] values, int size) {
+        lock.writeLock().lock();
+        try {
+            head = (head + 1) % capacity;
+            count = Math.min(count + 1, capacity);
+            timestamps[head] = timestamp;
+            for (long[] column : series) {
+                column[head] = MISSING;
+            }
+            for (int i = 0; i < size; i++) {
+                seriesOf(names[i])[head] = values[i];
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long[] seriesOf(String name) {
+        Integer idx = index.get(name);
+        if (idx == null) {
+            idx = series.length;
+            long[] values = new long[capacity];
+            Arrays.fill(values, MISSING);
+            series = Arrays.copyOf(series, idx + 1);
+            series[idx] = values;
+            index.put(name, idx);
+        }
+        return series[idx];
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 最新样本的时间戳，还没有样本时返回-1
+    public long newestTimestamp() {
+        lock.readLock().lock();
+        try {
+            return count == 0 ? -1 : timestamps[head];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 取最新样本与窗口起点样本；窗口超出历史时退回到最早的样本
+    public StatusWindow window(String[] names, long windowMs) {
+        lock.readLock().lock();
+        try {
+            if (count == 0) {
+                return null;
+            }
+            long endTs = timestamps[head];
+            int from = head;
+            for (int step = 1; step < count; step++) {
+                int slot = Math.floorMod(head - step, capacity);
+                from = slot;
+                if (timestamps[slot] <= endTs - windowMs) {
+                    break;
+                }
+            }
+
+            long[] start = new long[names.length];
+            long[] end = new long[names.length];
+            for (int i = 0; i < names.length; i++) {
+                Integer idx = index.get(names[i]);
+                start[i] = idx == null ? MISSING : series[idx][from];
+                end[i] = idx == null ? MISSING : series[idx][head];
+            }
+            return new StatusWindow(timestamps[from], endTs, names, start, end);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public record StatusWindow(long startMs, long endMs, String[] names, long[] start, long[] end) {
+
+        public long elapsedMs() {
+            return endMs - startMs;
+        }
+
+        public boolean hasBaseline() {
+            return endMs - startMs >= MIN_BASELINE_MS;
+        }
+
+        public long latest(int i) {
+            return end[i] == MISSING ? 0 : end[i];
+        }
+
+        public long delta(int i) {
+            if (start[i] == MISSING || end[i] == MISSING) {
+                return 0;
+            }
+            return end[i] - start[i];
+        }
+
+        public double ratePerSecond(int i) {
+            return hasBaseline() ? delta(i) * 1000.0 / elapsedMs() : 0;
+        }
+    }
+
+    // 不经过正则和装箱直接解析非负整数，非数值返回MISSING
+    public static long parseCounter(String value) {
+        if (value == null || value.isEmpty() || value.length() > 18) {
+            return MISSING;
+        }
+        long result = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return MISSING;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+}
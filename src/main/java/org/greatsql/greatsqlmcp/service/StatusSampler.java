@@ -0,0 +1,160 @@
+package org.greatsql.greatsqlmcp.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.greatsql.greatsqlmcp.config.MonitorConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// 后台定期采集各实例的performance_schema.global_status，按需计算任意窗口内的增量和速率
+@Slf4j
+@Service
+public class StatusSampler {
+    private static final String GLOBAL_STATUS_QUERY =
+            "SELECT VARIABLE_NAME, VARIABLE_VALUE FROM performance_schema.global_status";
+
+    @Autowired
+    private ConnectionService connectionService;
+
+    @Autowired
+    private MonitorConfig monitorConfig;
+
+    // 每个目标实例各自的采样历史，启动后不再变化
+    private final Map<String, TargetSampler> samplers = new LinkedHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        for (String target : connectionService.targetNames()) {
+            samplers.put(target, new TargetSampler(target, new StatusHistory(Math.max(2, monitorConfig.getStatusHistorySize()))));
+        }
+        if (!monitorConfig.isStatusSamplerEnabled()) {
+            return;
+        }
+        // 实例较多时由几个线程分担，个别实例响应慢不会推迟其他实例的采样
+        scheduler = Executors.newScheduledThreadPool(Math.min(samplers.size(), 4), Thread.ofPlatform()
+                .name("greatsql-status-sampler-", 0).daemon(true).factory());
+        for (TargetSampler sampler : samplers.values()) {
+            scheduler.scheduleAtFixedRate(sampler::sampleQuietly, 0,
+                    monitorConfig.getStatusSampleIntervalMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    // 采样当前调用的目标实例
+    public void sample() throws SQLException {
+        sampler().sample();
+    }
+
+    // 还没有样本时立即补采一次；未开启后台采样时，最新样本早于一个采样间隔也在调用时补采，
+    // 相邻两次调用之间的变化即为增量。起止样本相隔太近时窗口没有基线，由调用方提示稍后重试
+    public StatusHistory.StatusWindow window(String[] variableNames, long windowMs) throws SQLException {
+        TargetSampler sampler = sampler();
+        sampler.sampleIfOlderThan(monitorConfig.isStatusSamplerEnabled() ? Long.MAX_VALUE : intervalMs());
+        return sampler.history.window(variableNames, windowMs);
+    }
+
+    public int sampleCount() {
+        TargetSampler sampler = samplers.get(connectionService.currentTarget());
+        return sampler != null ? sampler.history.size() : 0;
+    }
+
+    public long intervalMs() {
+        return monitorConfig.getStatusSampleIntervalMs();
+    }
+
+    private TargetSampler sampler() throws SQLException {
+        TargetSampler sampler = samplers.get(connectionService.currentTarget());
+        if (sampler == null) {
+            throw new SQLException("未知的目标实例：" + connectionService.currentTarget());
+        }
+        return sampler;
+    }
+
+    private final class TargetSampler {
+        private final String target;
+        private final StatusHistory history;
+        private volatile boolean lastSampleFailed;
+
+        // 采样缓冲区只在持有sampleLock时复用
+        private final Object sampleLock = new Object();
+        private String[] names = new String[512];
+        private long[] values = new long[512];
+
+        private TargetSampler(String target, StatusHistory history) {
+            this.target = target;
+            this.history = history;
+        }
+
+        // 后台线程不在工具调用中，以该实例为目标执行采样
+        private void sampleQuietly() {
+            try {
+                ToolCallContext.callWith(ToolCallContext.forTarget(target), () -> {
+                    sample();
+                    return null;
+                });
+                if (lastSampleFailed) {
+                    log.info("实例 {} 的全局状态采样已恢复", target);
+                }
+                lastSampleFailed = false;
+            } catch (Exception e) {
+                if (!lastSampleFailed) {
+                    log.warn("实例 {} 的全局状态采样失败：{}", target, e.getMessage());
+                }
+                lastSampleFailed = true;
+            }
+        }
+
+        // 在锁内检查，并发调用不会连续补采几个相隔只有几毫秒的样本
+        private void sampleIfOlderThan(long maxAgeMs) throws SQLException {
+            synchronized (sampleLock) {
+                long newest = history.newestTimestamp();
+                if (newest < 0 || System.currentTimeMillis() - newest >= maxAgeMs) {
+                    sample();
+                }
+            }
+        }
+
+        private void sample() throws SQLException {
+            synchronized (sampleLock) {
+                int size = 0;
+                try (Connection conn = connectionService.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(GLOBAL_STATUS_QUERY);
+                     ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        long value = StatusHistory.parseCounter(rs.getString(2));
+                        if (value == StatusHistory.MISSING) {
+                            continue;
+                        }
+                        if (size == names.length) {
+                            names = Arrays.copyOf(names, size << 1);
+                            values = Arrays.copyOf(values, size << 1);
+                        }
+                        names[size] = rs.getString(1);
+                        values[size] = value;
+                        size++;
+                    }
+                }
+                history.record(System.currentTimeMillis(), names, values, size);
+            }
+        }
+    }
+}
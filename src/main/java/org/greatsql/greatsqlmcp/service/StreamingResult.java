@@ -0,0 +1,23 @@
+package org.greatsql.greatsqlmcp.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+
+// 持有尚未读取的查询结果，由调用方直接写入响应流后关闭
+public interface StreamingResult extends AutoCloseable {
+
+    void writeTo(JsonGenerator generator) throws IOException;
+
+    // 写入完成后附加给调用方的提示，例如结果被截断
+    default String notice() {
+        return null;
+    }
+
+    // 已写出的行数
+    default long rowCount() {
+        return 0;
+    }
+
+    @Override
+    void close();
+}
@@ -0,0 +1,179 @@
+package org.greatsql.greatsqlmcp.service;
+
+import lombok.extern.slf4j.Slf4j;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+// 单次工具调用的上下文，通过ThreadLocal传递给工具实现，用于选择目标实例、上报进度、登记正在执行的语句以便取消等
+@Slf4j
+public final class ToolCallContext {
+    private static final ThreadLocal<ToolCallContext> CURRENT = new ThreadLocal<>();
+
+    private static final ToolCallContext NONE = new ToolCallContext(null);
+
+    // 目标实例名称，null表示默认实例
+    private final String target;
+
+    private static final Registration NOOP = () -> {
+    };
+
+    private final ProgressListener progressListener;
+
+    private final StatementCanceller canceller;
+
+    // 登记、解除登记和取消都在this上同步：解除登记先于归还连接，取消时不会终止到已被其他调用复用的连接
+    private final Set<Statement> statements = new HashSet<>();
+
+    private volatile boolean cancelled;
+
+    // 各阶段累计耗时和返回行数，由执行调用的线程记录，调用结束后汇总到按工具的指标
+    private final long[] phaseNanos = new long[Phase.values().length];
+
+    private long rows;
+
+    public ToolCallContext(ProgressListener progressListener) {
+        this(progressListener, Statement::cancel);
+    }
+
+    public ToolCallContext(ProgressListener progressListener, StatementCanceller canceller) {
+        this(null, progressListener, canceller);
+    }
+
+    public ToolCallContext(String target, ProgressListener progressListener, StatementCanceller canceller) {
+        this.target = target;
+        this.progressListener = progressListener;
+        this.canceller = canceller;
+    }
+
+    // 不属于任何工具调用、只指定目标实例的上下文，例如后台采样
+    public static ToolCallContext forTarget(String target) {
+        return new ToolCallContext(target, null, Statement::cancel);
+    }
+
+    public static ToolCallContext current() {
+        ToolCallContext context = CURRENT.get();
+        return context != null ? context : NONE;
+    }
+
+    public static <T> T callWith(ToolCallContext context, Callable<T> task) throws Exception {
+        ToolCallContext previous = CURRENT.get();
+        CURRENT.set(context);
+        try {
+            return task.call();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    // 在其他线程上执行当前调用的子任务(分片计数、健康检查的各项检查)：子任务使用相同的目标实例，
+    // 但各自有独立的上下文，阶段耗时和语句登记不计入当前调用
+    public static <T> Callable<T> inCurrentTarget(Callable<T> task) {
+        String target = current().target;
+        if (target == null) {
+            return task;
+        }
+        return () -> callWith(forTarget(target), task);
+    }
+
+    public String target() {
+        return target;
+    }
+
+    public void reportProgress(double progress, Double total, String message) {
+        if (progressListener != null) {
+            progressListener.onProgress(progress, total, message);
+        }
+    }
+
+    // 登记正在执行的语句，调用被取消时由cancel()终止；语句执行完毕后关闭返回值解除登记。
+    // 调用已被取消时不再执行新的语句：在执行前取消对驱动来说是空操作，语句仍会照常执行
+    public Registration track(Statement stmt) throws SQLException {
+        if (this == NONE) {
+            return NOOP;
+        }
+        synchronized (this) {
+            if (cancelled) {
+                throw new SQLException("调用已取消");
+            }
+            statements.add(stmt);
+        }
+        return () -> {
+            synchronized (this) {
+                statements.remove(stmt);
+            }
+        };
+    }
+
+    // 客户端断开或取消调用时执行，终止所有已登记的语句
+    public void cancel() {
+        if (this == NONE) {
+            return;
+        }
+        synchronized (this) {
+            cancelled = true;
+            statements.forEach(this::cancelQuietly);
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // 未在工具调用中(NONE)时不记录，例如并行统计行数的工作线程
+    public void recordPhase(Phase phase, long nanos) {
+        if (this != NONE) {
+            phaseNanos[phase.ordinal()] += nanos;
+        }
+    }
+
+    public void addRows(long count) {
+        if (this != NONE) {
+            rows += count;
+        }
+    }
+
+    public long phaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    private void cancelQuietly(Statement stmt) {
+        try {
+            canceller.cancel(stmt);
+        } catch (SQLException e) {
+            log.warn("取消正在执行的语句失败：{}", e.getMessage());
+        }
+    }
+
+    // 从连接池取连接、执行语句、读取结果集、序列化响应
+    public enum Phase {
+        ACQUIRE, EXECUTE, FETCH, SERIALIZE
+    }
+
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(double progress, Double total, String message);
+    }
+
+    // 默认由驱动的Statement.cancel()另建连接发送KILL QUERY
+    @FunctionalInterface
+    public interface StatementCanceller {
+        void cancel(Statement stmt) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
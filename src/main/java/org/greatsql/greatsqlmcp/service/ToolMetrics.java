@@ -0,0 +1,142 @@
+package org.greatsql.greatsqlmcp.service;
+
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// 按工具统计调用次数、出错次数、耗时分布、各阶段耗时、返回行数和响应字节数，以Prometheus文本格式输出。
+// 记录路径只有计数器累加和直方图的原子自增，不加锁；分位数和累计桶在抓取时才计算
+@Service
+public class ToolMetrics {
+    // 直方图的le边界取2^7到2^26微秒(约0.13毫秒到67秒)，正好落在LatencyHistogram的桶边界上
+    private static final int MIN_BUCKET_EXPONENT = 7;
+    private static final int MAX_BUCKET_EXPONENT = 26;
+
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private static final ToolCallContext.Phase[] PHASES = ToolCallContext.Phase.values();
+
+    private final Map<String, ToolStats> tools = new ConcurrentHashMap<>();
+
+    // tool应当是已注册的工具名，否则标签数量会随客户端输入无限增长
+    public void record(String tool, long elapsedNanos, boolean failed, ToolCallContext context, long responseBytes) {
+        ToolStats stats = tools.get(tool);
+        if (stats == null) {
+            stats = tools.computeIfAbsent(tool, name -> new ToolStats());
+        }
+        stats.calls.increment();
+        if (failed) {
+            stats.errors.increment();
+        }
+        stats.latency.record(elapsedNanos);
+        for (ToolCallContext.Phase phase : PHASES) {
+            long nanos = context.phaseNanos(phase);
+            if (nanos > 0) {
+                stats.phases[phase.ordinal()].record(nanos);
+            }
+        }
+        stats.rows.add(context.rows());
+        stats.responseBytes.add(responseBytes);
+    }
+
+    public void writePrometheus(Writer out) throws IOException {
+        Map<String, ToolStats> sorted = new TreeMap<>(tools);
+        Map<String, LatencyHistogram.Snapshot> latencies = new TreeMap<>();
+        sorted.forEach((tool, stats) -> latencies.put(tool, stats.latency.snapshot()));
+
+        header(out, "greatsql_mcp_tool_calls_total", "counter", "工具调用次数");
+        for (Map.Entry<String, ToolStats> entry : sorted.entrySet()) {
+            sample(out, "greatsql_mcp_tool_calls_total", entry.getKey(), entry.getValue().calls.sum());
+        }
+        header(out, "greatsql_mcp_tool_errors_total", "counter", "工具调用出错次数");
+        for (Map.Entry<String, ToolStats> entry : sorted.entrySet()) {
+            sample(out, "greatsql_mcp_tool_errors_total", entry.getKey(), entry.getValue().errors.sum());
+        }
+
+        header(out, "greatsql_mcp_tool_duration_seconds", "histogram", "工具调用耗时分布，从收到请求到响应写完");
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : latencies.entrySet()) {
+            String tool = escape(entry.getKey());
+            LatencyHistogram.Snapshot snapshot = entry.getValue();
+            for (int exponent = MIN_BUCKET_EXPONENT; exponent <= MAX_BUCKET_EXPONENT; exponent++) {
+                String le = BigDecimal.valueOf(1L << exponent, 6).stripTrailingZeros().toPlainString();
+                out.write("greatsql_mcp_tool_duration_seconds_bucket{tool=\"" + tool + "\",le=\"" + le + "\"} "
+                        + snapshot.countBelow(exponent) + "\n");
+            }
+            out.write("greatsql_mcp_tool_duration_seconds_bucket{tool=\"" + tool + "\",le=\"+Inf\"} " + snapshot.count() + "\n");
+            out.write("greatsql_mcp_tool_duration_seconds_sum{tool=\"" + tool + "\"} " + snapshot.sumSeconds() + "\n");
+            out.write("greatsql_mcp_tool_duration_seconds_count{tool=\"" + tool + "\"} " + snapshot.count() + "\n");
+        }
+
+        header(out, "greatsql_mcp_tool_latency_seconds", "summary", "工具调用耗时分位数(取所在桶的上界，误差不超过25%)");
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : latencies.entrySet()) {
+            summary(out, "greatsql_mcp_tool_latency_seconds", "tool=\"" + escape(entry.getKey()) + "\"", entry.getValue());
+        }
+
+        header(out, "greatsql_mcp_tool_phase_seconds", "summary",
+                "工具调用各阶段耗时：acquire取连接、execute执行语句、fetch读取结果集、serialize序列化响应");
+        for (Map.Entry<String, ToolStats> entry : sorted.entrySet()) {
+            for (ToolCallContext.Phase phase : PHASES) {
+                LatencyHistogram.Snapshot snapshot = entry.getValue().phases[phase.ordinal()].snapshot();
+                if (snapshot.count() > 0) {
+                    summary(out, "greatsql_mcp_tool_phase_seconds", "tool=\"" + escape(entry.getKey())
+                            + "\",phase=\"" + phase.name().toLowerCase(Locale.ROOT) + "\"", snapshot);
+                }
+            }
+        }
+
+        header(out, "greatsql_mcp_tool_rows_total", "counter", "工具调用从结果集读取的行数");
+        for (Map.Entry<String, ToolStats> entry : sorted.entrySet()) {
+            sample(out, "greatsql_mcp_tool_rows_total", entry.getKey(), entry.getValue().rows.sum());
+        }
+        header(out, "greatsql_mcp_tool_response_bytes_total", "counter", "工具调用写出的响应字节数");
+        for (Map.Entry<String, ToolStats> entry : sorted.entrySet()) {
+            sample(out, "greatsql_mcp_tool_response_bytes_total", entry.getKey(), entry.getValue().responseBytes.sum());
+        }
+    }
+
+    private static void header(Writer out, String name, String type, String help) throws IOException {
+        out.write("# HELP " + name + " " + help + "\n");
+        out.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static void sample(Writer out, String name, String tool, long value) throws IOException {
+        out.write(name + "{tool=\"" + escape(tool) + "\"} " + value + "\n");
+    }
+
+    private static void summary(Writer out, String name, String labels, LatencyHistogram.Snapshot snapshot) throws IOException {
+        for (double quantile : QUANTILES) {
+            out.write(name + "{" + labels + ",quantile=\"" + quantile + "\"} " + format(snapshot.quantileSeconds(quantile)) + "\n");
+        }
+        out.write(name + "_sum{" + labels + "} " + snapshot.sumSeconds() + "\n");
+        out.write(name + "_count{" + labels + "} " + snapshot.count() + "\n");
+    }
+
+    private static String format(double value) {
+        return Double.isNaN(value) ? "NaN" : Double.toString(value);
+    }
+
+    static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class ToolStats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder responseBytes = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram[] phases = new LatencyHistogram[PHASES.length];
+
+        private ToolStats() {
+            for (int i = 0; i < phases.length; i++) {
+                phases[i] = new LatencyHistogram();
+            }
+        }
+    }
+}
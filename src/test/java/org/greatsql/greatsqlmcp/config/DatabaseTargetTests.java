@@ -0,0 +1,43 @@
+package org.greatsql.greatsqlmcp.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DatabaseTargetTests {
+
+    @Test
+    void namedTargetsInheritSharedSettingsAndDefaultTargetComesFirst() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("greatsql.url", "jdbc:mysql://primary:3306")
+                .withProperty("greatsql.user", "root")
+                .withProperty("greatsql.password", "secret")
+                .withProperty("greatsql.pool.max-size", "8")
+                .withProperty("greatsql.targets", " replica-1, report ")
+                .withProperty("greatsql.target.replica-1.url", "jdbc:mysql://replica:3306")
+                .withProperty("greatsql.target.report.url", "jdbc:mysql://report:3306")
+                .withProperty("greatsql.target.report.user", "reader")
+                .withProperty("greatsql.target.report.pool.max-size", "2")
+                .withProperty("greatsql.default-target", "report");
+
+        List<DatabaseTarget> targets = DatabaseTarget.resolve(environment);
+        assertEquals(List.of("report", "default", "replica-1"), targets.stream().map(DatabaseTarget::name).toList());
+        assertEquals(new DatabaseTarget("report", "jdbc:mysql://report:3306", "reader", "secret", 2), targets.get(0));
+        assertEquals(new DatabaseTarget("replica-1", "jdbc:mysql://replica:3306", "root", "secret", 8), targets.get(2));
+
+        assertEquals("jdbc:mysql://10.0.0.7:3307/shop?useSSL=false", new DatabaseTarget("default",
+                "jdbc:mysql://primary:3306/shop?useSSL=false", "root", "", 8).withHost("10.0.0.7", 3307).jdbcUrl());
+        assertEquals("jdbc:mysql://[fe80::1]:3306", targets.get(1).withHost("fe80::1", 3306).jdbcUrl());
+
+        assertThrows(IllegalStateException.class, () -> DatabaseTarget.resolve(new MockEnvironment()));
+        assertThrows(IllegalStateException.class, () -> DatabaseTarget.resolve(new MockEnvironment()
+                .withProperty("greatsql.targets", "missing")));
+        assertThrows(IllegalStateException.class, () -> DatabaseTarget.resolve(new MockEnvironment()
+                .withProperty("greatsql.url", "jdbc:mysql://primary:3306")
+                .withProperty("greatsql.default-target", "other")));
+    }
+}
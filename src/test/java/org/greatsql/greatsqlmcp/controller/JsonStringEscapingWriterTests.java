@@ -0,0 +1,35 @@
+package org.greatsql.greatsqlmcp.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JsonStringEscapingWriterTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void embeddedJsonMatchesDoubleSerialization() throws Exception {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("name", "quote\" backslash\\ newline\n tab\t ctrl\u0001 中文");
+        row.put("value", 42);
+        List<Object> result = List.of(row);
+
+        StringWriter out = new StringWriter();
+        out.write('"');
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(new JsonStringEscapingWriter(out));
+        generator.writeObject(result);
+        generator.flush();
+        out.write('"');
+
+        String expected = objectMapper.writeValueAsString(objectMapper.writeValueAsString(result));
+        assertEquals(expected, out.toString());
+        assertEquals(objectMapper.writeValueAsString(result), objectMapper.readValue(out.toString(), String.class));
+    }
+}
@@ -0,0 +1,131 @@
+package org.greatsql.greatsqlmcp.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.greatsql.greatsqlmcp.service.StreamingResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+// 连接池initializationFailTimeout=-1，没有可用的数据库时上下文照常启动，这里只验证/mcp接口本身的行为
+@SpringBootTest(properties = {"mcp.auth.enabled=false", "mcp.batch.max-size=4", "mcp.batch.parallelism=4"})
+@AutoConfigureMockMvc
+@DirtiesContext
+class McpControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ToolRegistry toolRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private JsonNode postMcp(String body) throws Exception {
+        String response = mockMvc.perform(post("/mcp").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    @Test
+    void failureWhileStreamingResultStillEndsWithValidEnvelope() throws Exception {
+        toolRegistry.override("listDatabases", arguments -> new StreamingResult() {
+            @Override
+            public void writeTo(JsonGenerator generator) throws IOException {
+                generator.writeStartArray();
+                generator.writeString("db\"1");
+                throw new IOException("连接已断开");
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        JsonNode response = postMcp("""
+                {"jsonrpc":"2.0","id":7,"method":"tools/call","params":{"name":"listDatabases","arguments":{}}}""");
+
+        assertThat(response.path("id").asInt()).isEqualTo(7);
+        JsonNode result = response.path("result");
+        assertThat(result.path("isError").asBoolean()).isTrue();
+        assertThat(result.path("content")).hasSize(2);
+        assertThat(result.path("content").get(0).path("text").asText()).isEqualTo("[\"db\\\"1\"");
+        assertThat(result.path("content").get(1).path("text").asText()).contains("连接已断开");
+    }
+
+    @Test
+    void batchResponsesKeepRequestOrder() throws Exception {
+        // 前面的请求执行得更久，完成顺序与请求顺序相反
+        toolRegistry.override("listTables", arguments -> {
+            Thread.sleep(Long.parseLong((String) arguments.get("database")));
+            return List.of(Map.of("slept", arguments.get("database")));
+        });
+
+        JsonNode responses = postMcp("""
+                [{"jsonrpc":"2.0","id":1,"method":"tools/call","params":{"name":"listTables","arguments":{"database":"300"}}},
+                 {"jsonrpc":"2.0","id":2,"method":"tools/call","params":{"name":"listTables","arguments":{"database":"200"}}},
+                 {"jsonrpc":"2.0","id":3,"method":"tools/call","params":{"name":"listTables","arguments":{"database":"100"}}},
+                 {"jsonrpc":"2.0","id":4,"method":"tools/call","params":{"name":"listTables","arguments":{"database":"0"}}}]""");
+
+        assertThat(responses).hasSize(4);
+        String[] slept = {"300", "200", "100", "0"};
+        for (int i = 0; i < 4; i++) {
+            assertThat(responses.get(i).path("id").asInt()).isEqualTo(i + 1);
+            JsonNode text = objectMapper.readTree(responses.get(i).at("/result/content/0/text").asText());
+            assertThat(text.at("/0/slept").asText()).isEqualTo(slept[i]);
+        }
+    }
+
+    @Test
+    void notificationOnlyBatchIsAccepted() throws Exception {
+        mockMvc.perform(post("/mcp").contentType(MediaType.APPLICATION_JSON).content("""
+                        [{"jsonrpc":"2.0","method":"notifications/initialized"},
+                         {"jsonrpc":"2.0","method":"notifications/cancelled","params":{"requestId":99}}]"""))
+                .andExpect(status().isAccepted())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void invalidElementsGetTheirOwnErrorAndOthersStillRun() throws Exception {
+        JsonNode responses = postMcp("""
+                [{"jsonrpc":"2.0","id":1,"method":"initialize"},
+                 {"jsonrpc":"2.0","id":2},
+                 3,
+                 {"jsonrpc":"2.0","method":"notifications/initialized"}]""");
+
+        assertThat(responses).hasSize(3);
+        assertThat(responses.get(0).path("id").asInt()).isEqualTo(1);
+        assertThat(responses.get(0).path("result").path("serverInfo").isObject()).isTrue();
+        assertThat(responses.get(1).path("id").asInt()).isEqualTo(2);
+        assertThat(responses.get(1).at("/error/code").asInt()).isEqualTo(-32600);
+        assertThat(responses.get(2).path("id").asText()).isEqualTo("unknown");
+        assertThat(responses.get(2).at("/error/code").asInt()).isEqualTo(-32600);
+    }
+
+    @Test
+    void batchSizeIsLimited() throws Exception {
+        String element = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\"}";
+        String oversized = "[" + String.join(",", List.of(element, element, element, element, element)) + "]";
+        for (String body : List.of(oversized, "[]")) {
+            JsonNode response = postMcp(body);
+            assertThat(response.isObject()).isTrue();
+            assertThat(response.at("/error/code").asInt()).isEqualTo(-32600);
+        }
+        assertThat(postMcp("[" + String.join(",", List.of(element, element, element, element)) + "]")).hasSize(4);
+    }
+}
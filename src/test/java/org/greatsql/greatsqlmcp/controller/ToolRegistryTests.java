@@ -0,0 +1,127 @@
+package org.greatsql.greatsqlmcp.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.greatsql.greatsqlmcp.service.DatabaseService;
+import org.greatsql.greatsqlmcp.service.FleetService;
+import org.greatsql.greatsqlmcp.service.HealthCheckService;
+import org.greatsql.greatsqlmcp.service.JobService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+// 服务用mock代替，只验证注册表从注解生成的工具定义和参数转换，不需要数据库
+class ToolRegistryTests {
+
+    // 改为注解驱动之前/mcp接口手写的工具清单，这些工具必须一直可用
+    private static final Set<String> BASELINE_TOOLS = Set.of(
+            "avgSQLRT", "checkCriticalTransactions", "checkMGRStatus", "createDB", "deleteData", "executeQuery",
+            "findAbnormalMemoryIssue", "findImproperVars", "getTableRowCount", "insertData", "listDatabases",
+            "listTables", "monitorReplicationLag", "trackNotableStats", "updateData");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private DatabaseService databaseService;
+
+    private JobService jobService;
+
+    private ToolRegistry registry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        databaseService = mock(DatabaseService.class);
+        jobService = mock(JobService.class);
+        registry = new ToolRegistry();
+        ReflectionTestUtils.setField(registry, "databaseService", databaseService);
+        ReflectionTestUtils.setField(registry, "healthCheckService", mock(HealthCheckService.class));
+        ReflectionTestUtils.setField(registry, "jobService", jobService);
+        ReflectionTestUtils.setField(registry, "fleetService", mock(FleetService.class));
+        ReflectionTestUtils.setField(registry, "objectMapper", objectMapper);
+        registry.init();
+    }
+
+    private Map<String, JsonNode> toolsByName() throws Exception {
+        Map<String, JsonNode> tools = new HashMap<>();
+        for (JsonNode tool : objectMapper.readTree(registry.toolsList()).path("tools")) {
+            tools.put(tool.path("name").asText(), tool);
+        }
+        return tools;
+    }
+
+    @Test
+    void everyBaselineToolIsStillListed() throws Exception {
+        Set<String> listed = toolsByName().keySet();
+        Set<String> missing = new HashSet<>(BASELINE_TOOLS);
+        missing.removeAll(listed);
+        assertTrue(missing.isEmpty(), "缺少工具: " + missing);
+        BASELINE_TOOLS.forEach(name -> assertTrue(registry.contains(name), name));
+    }
+
+    @Test
+    void targetPropertyOnlyOnSingleInstanceTools() throws Exception {
+        Map<String, JsonNode> tools = toolsByName();
+        for (String name : List.of("executeQuery", "checkMGRStatus", "submitJob")) {
+            JsonNode target = tools.get(name).path("inputSchema").path("properties").path("target");
+            assertEquals("string", target.path("type").asText(), name);
+            assertFalse(tools.get(name).path("inputSchema").path("required").toString().contains("target"), name);
+        }
+        for (String name : List.of("getJobStatus", "cancelJob")) {
+            assertTrue(tools.get(name).path("inputSchema").path("properties").path("target").isMissingNode(), name);
+        }
+    }
+
+    @Test
+    void jsonArgumentsKeepTheirSchemaType() throws Exception {
+        Map<String, JsonNode> tools = toolsByName();
+        assertEquals("array", tools.get("executeQuery").at("/inputSchema/properties/params/type").asText());
+        assertEquals("integer", tools.get("executeQuery").at("/inputSchema/properties/timeoutMs/type").asText());
+        assertEquals("object", tools.get("submitJob").at("/inputSchema/properties/arguments/type").asText());
+    }
+
+    @Test
+    void coercesNumbersAndStrings() throws Exception {
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put("database", 42);
+        arguments.put("query", "SELECT ?");
+        arguments.put("timeoutMs", " 250 ");
+        arguments.put("maxRows", 10);
+        arguments.put("maxBytes", 1.0e6);
+        registry.call("executeQuery", arguments);
+        verify(databaseService).executeQuery("42", "SELECT ?", null, null, 250L, 10L, 1000000L);
+    }
+
+    @Test
+    void jsonValuedStringArgumentsAcceptJsonDirectly() throws Exception {
+        registry.call("executeQuery", Map.of("database", "db", "query", "SELECT ?", "params", List.of(1, "a")));
+        verify(databaseService).executeQuery("db", "SELECT ?", null, "[1,\"a\"]", null, null, null);
+
+        registry.call("submitJob", Map.of("toolName", "avgSQLRT", "arguments", Map.of("target", "replica1")));
+        verify(jobService).submitJob("avgSQLRT", "{\"target\":\"replica1\"}");
+
+        // 已经是JSON文本的字符串原样传入
+        registry.call("submitJob", Map.of("toolName", "avgSQLRT", "arguments", "{}"));
+        verify(jobService).submitJob("avgSQLRT", "{}");
+    }
+
+    @Test
+    void missingRequiredArgumentIsAnErrorResult() throws Exception {
+        assertEquals(Map.of("error", "参数query不能为空"), registry.call("executeQuery", Map.of("database", "db")));
+        verify(databaseService, never()).executeQuery(anyString(), anyString(), any(), any(), any(), any(), any());
+        assertEquals(Map.of("error", "未知的工具: dropEverything"), registry.call("dropEverything", Map.of()));
+    }
+}
@@ -0,0 +1,20 @@
+package org.greatsql.greatsqlmcp.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HealthSeverityTests {
+
+    @Test
+    void classifiesDiagnosticMessagesByPrefix() {
+        assertEquals(HealthSeverity.CRITICAL, HealthSeverity.classify("严重级告警：MGR已启用但无ONLINE状态的成员"));
+        assertEquals(HealthSeverity.WARNING, HealthSeverity.classify("一般级关注：节点 db1:3306 待认证事务队列大小 20"));
+        assertEquals(HealthSeverity.WARNING, HealthSeverity.classify("警告：sync_binlog参数设置为0"));
+        assertEquals(HealthSeverity.WARNING, HealthSeverity.classify("检查线程状态失败: timeout"));
+        assertEquals(HealthSeverity.NOTICE, HealthSeverity.classify("建议：long_query_time参数值(10.0)较大"));
+        assertEquals(HealthSeverity.NOTICE, HealthSeverity.classify("InnoDB Redo 空间可能不够用，会影响性能"));
+        assertEquals(HealthSeverity.INFO, HealthSeverity.classify("MGR运行正常"));
+        assertEquals(HealthSeverity.INFO, HealthSeverity.classify(null));
+    }
+}
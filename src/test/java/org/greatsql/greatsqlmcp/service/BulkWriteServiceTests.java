@@ -0,0 +1,246 @@
+package org.greatsql.greatsqlmcp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.greatsql.greatsqlmcp.config.WriteConfig;
+import org.greatsql.greatsqlmcp.entity.BulkWriteResult;
+import org.greatsql.greatsqlmcp.entity.ChunkResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkWriteServiceTests {
+
+    private BulkWriteService service;
+
+    private ConnectionService connectionService;
+
+    private WriteConfig writeConfig;
+
+    @BeforeEach
+    void setUp() {
+        service = new BulkWriteService();
+        connectionService = mock(ConnectionService.class);
+        writeConfig = new WriteConfig();
+        ReflectionTestUtils.setField(writeConfig, "chunkRows", 1000);
+        ReflectionTestUtils.setField(writeConfig, "maxBatchRows", 100000);
+        ReflectionTestUtils.setField(writeConfig, "throttleMaxHistoryLen", 5000L);
+        ReflectionTestUtils.setField(writeConfig, "throttleMaxReplicaLagSeconds", 10L);
+        ReflectionTestUtils.setField(service, "connectionService", connectionService);
+        ReflectionTestUtils.setField(service, "resultCache", mock(ResultCache.class));
+        ReflectionTestUtils.setField(service, "writeConfig", writeConfig);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+    }
+
+    @Test
+    void toValuesMatchesBacktickedColumnsToObjectKeys() {
+        List<Object[]> values = service.toValues(new String[]{"`id`", "name", "`a``b`"}, List.of(
+                Map.of("id", 1, "name", "x", "a`b", Map.of("k", true)),
+                List.of(2, "y", List.of(1, 2))));
+        assertArrayEquals(new Object[]{1, "x", "{\"k\":true}"}, values.get(0));
+        assertArrayEquals(new Object[]{2, "y", "[1,2]"}, values.get(1));
+
+        RuntimeException missing = assertThrows(RuntimeException.class,
+                () -> service.toValues(new String[]{"`id`", "name"}, List.of(Map.of("id", 1, "title", "x"))));
+        assertEquals("第 1 行缺少字段 name", missing.getMessage());
+        assertThrows(RuntimeException.class, () -> service.toValues(new String[]{"id"}, List.of(List.of(1, 2))));
+        assertThrows(RuntimeException.class, () -> service.toValues(new String[]{"id"}, List.of("1")));
+    }
+
+    @Test
+    void sumCountsSuccessNoInfoAsTheWholeChunk() {
+        assertEquals(3, BulkWriteService.sum(new int[]{1, 0, 2}, 3));
+        assertEquals(500, BulkWriteService.sum(new int[]{Statement.SUCCESS_NO_INFO}, 500));
+        assertEquals(4, BulkWriteService.sum(new int[]{1, Statement.SUCCESS_NO_INFO, 1}, 4));
+        assertEquals(0, BulkWriteService.sum(new int[0], 0));
+    }
+
+    @Test
+    void batchInsertSplitsRowsIntoChunksAndCommitsEach() throws Exception {
+        Connection conn = mock(Connection.class);
+        PreparedStatement stmt = mock(PreparedStatement.class);
+        when(connectionService.getConnection("db")).thenReturn(conn);
+        when(conn.prepareStatement(anyString())).thenReturn(stmt);
+        // 驱动改写为多行VALUES后只返回SUCCESS_NO_INFO
+        when(stmt.executeBatch()).thenReturn(new int[]{Statement.SUCCESS_NO_INFO});
+
+        List<Object> rows = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            rows.add(Map.of("id", i));
+        }
+        BulkWriteResult result = service.batchInsert("db", "t", "`id`", rows, 2);
+
+        assertTrue(result.isCompleted());
+        assertEquals(5, result.getAffectedRows());
+        List<ChunkResult> chunks = result.getChunks();
+        assertEquals(3, chunks.size());
+        long[][] expected = {{0, 2}, {2, 2}, {4, 1}};
+        for (int i = 0; i < chunks.size(); i++) {
+            assertEquals(i, chunks.get(i).getChunk());
+            assertEquals(expected[i][0], chunks.get(i).getFirstRow());
+            assertEquals(expected[i][1], chunks.get(i).getRows());
+            assertEquals(expected[i][1], chunks.get(i).getAffectedRows());
+            assertEquals("COMMITTED", chunks.get(i).getStatus());
+        }
+        verify(stmt, times(5)).addBatch();
+        verify(stmt, times(5)).setObject(anyInt(), any());
+        verify(conn, times(3)).commit();
+    }
+
+    // JSON对象的键名和指定的字段名都加反引号后拼入语句，键名中的反引号转义，不能借此拼接任意SQL
+    @Test
+    void batchInsertQuotesColumnNames() throws Exception {
+        Connection conn = mock(Connection.class);
+        PreparedStatement stmt = mock(PreparedStatement.class);
+        when(connectionService.getConnection("db")).thenReturn(conn);
+        when(conn.prepareStatement(anyString())).thenReturn(stmt);
+        when(stmt.executeBatch()).thenReturn(new int[]{1});
+
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 1);
+        row.put("a`) VALUES (1); DROP TABLE t; -- ", "x");
+        service.batchInsert("db", "t", null, List.of(row), null);
+        verify(conn).prepareStatement("INSERT INTO t (`id`, `a``) VALUES (1); DROP TABLE t; -- `) VALUES (?, ?)");
+        verify(stmt).setObject(2, "x");
+
+        service.batchInsert("db", "t", "id, `order`", List.of(Map.of("id", 2, "order", 3)), null);
+        verify(conn).prepareStatement("INSERT INTO t (`id`, `order`) VALUES (?, ?)");
+        verify(stmt).setObject(2, 3);
+    }
+
+    private static final BulkWriteService.ChunkedWrite UPDATE = new BulkWriteService.ChunkedWrite("db", "t", "id",
+            "UPDATE t SET v = ?", List.of("new"), "status = ?", List.of("x"));
+
+    @Test
+    void chunkSqlForFirstMiddleAndLastChunks() {
+        assertEquals("SELECT `id` FROM t WHERE 1 = 1 AND (status = ?) ORDER BY `id` LIMIT 1 OFFSET 999",
+                BulkWriteService.upperKeySql(UPDATE, "`id`", false, 1000));
+        assertEquals("SELECT `id` FROM t WHERE `id` > ? AND (status = ?) ORDER BY `id` LIMIT 1 OFFSET 999",
+                BulkWriteService.upperKeySql(UPDATE, "`id`", true, 1000));
+
+        // 第一批只有上界，中间批次两端都有，最后一批只有下界；只有一批时不限主键范围
+        assertEquals("UPDATE t SET v = ? WHERE 1 = 1 AND `id` <= ? AND (status = ?)",
+                BulkWriteService.rangeSql(UPDATE, "`id`", false, true));
+        assertEquals("UPDATE t SET v = ? WHERE 1 = 1 AND `id` > ? AND `id` <= ? AND (status = ?)",
+                BulkWriteService.rangeSql(UPDATE, "`id`", true, true));
+        assertEquals("UPDATE t SET v = ? WHERE 1 = 1 AND `id` > ? AND (status = ?)",
+                BulkWriteService.rangeSql(UPDATE, "`id`", true, false));
+        assertEquals("DELETE FROM t WHERE 1 = 1", BulkWriteService.rangeSql(new BulkWriteService.ChunkedWrite(
+                "db", "t", "id", "DELETE FROM t", List.of(), null, List.of()), "`id`", false, false));
+    }
+
+    // 记录执行过的语句和绑定的参数；上界查询依次返回upperKeys中的值，没有剩余值时表示最后一批
+    private record Executed(String sql, List<Object> params) {
+    }
+
+    private static Connection recordingConnection(List<Executed> executed, Deque<String> upperKeys, long rowsPerChunk) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (conn, method, args) -> switch (method.getName()) {
+                    case "prepareStatement" -> {
+                        Executed statement = new Executed((String) args[0], new ArrayList<>());
+                        executed.add(statement);
+                        yield Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                                new Class<?>[]{PreparedStatement.class}, (stmt, m, a) -> switch (m.getName()) {
+                                    case "setString" -> statement.params().add(a[1]);
+                                    case "executeLargeUpdate" -> rowsPerChunk;
+                                    case "executeQuery" -> resultSet(statement.sql().startsWith("SELECT `id`")
+                                            ? upperKeys.poll() : null);
+                                    default -> null;
+                                });
+                    }
+                    default -> null;
+                });
+    }
+
+    private static ResultSet resultSet(String value) {
+        boolean[] read = {false};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (rs, method, args) -> switch (method.getName()) {
+                    case "next" -> {
+                        boolean hasRow = value != null && !read[0];
+                        read[0] = true;
+                        yield hasRow;
+                    }
+                    case "getString" -> value;
+                    default -> null;
+                });
+    }
+
+    @Test
+    void chunkedWriteResumesAfterGivenKeyOnTheWriterConnection() throws Exception {
+        List<Executed> executed = new ArrayList<>();
+        when(connectionService.getConnection("db"))
+                .thenReturn(recordingConnection(executed, new ArrayDeque<>(List.of("10")), 3));
+
+        BulkWriteResult result = service.chunkedWrite(UPDATE, 2, "5");
+
+        assertTrue(result.isCompleted());
+        assertEquals(6, result.getAffectedRows());
+        assertEquals(2, result.getChunkCount());
+        assertEquals("10", result.getLastKey());
+        assertEquals("5", result.getChunks().get(0).getAfterKey());
+        assertEquals("10", result.getChunks().get(0).getLastKey());
+        assertNull(result.getChunks().get(1).getLastKey());
+
+        List<Executed> writes = executed.stream().filter(e -> e.sql().startsWith("UPDATE")).toList();
+        assertEquals(List.of(
+                new Executed(BulkWriteService.rangeSql(UPDATE, "`id`", true, true), List.of("new", "5", "10", "x")),
+                new Executed(BulkWriteService.rangeSql(UPDATE, "`id`", true, false), List.of("new", "10", "x"))), writes);
+        assertEquals(List.of("5", "x"), executed.stream()
+                .filter(e -> e.sql().startsWith("SELECT `id`")).findFirst().orElseThrow().params());
+        // 限速检查在写入连接上执行，不另外占用连接
+        assertEquals(2, executed.stream().filter(e -> e.sql().contains("INNODB_METRICS")).count());
+        verify(connectionService, never()).getConnection();
+    }
+
+    // 从节点回放延迟超过阈值时暂停写入，延迟恢复后继续；一直超过阈值时等待超时后停止，不执行任何写入
+    @Test
+    void chunkedWritePausesWhileReplicaLagIsHigh() throws Exception {
+        ReflectionTestUtils.setField(writeConfig, "throttleSleepMs", 5L);
+        ReflectionTestUtils.setField(writeConfig, "throttleMaxWaitMs", 20L);
+        List<Executed> executed = new ArrayList<>();
+        when(connectionService.getConnection("db")).thenReturn(recordingConnection(executed, new ArrayDeque<>(), 3));
+        when(connectionService.maxReplicaLagMs()).thenReturn(30000L, 30000L, -1L);
+
+        BulkWriteResult resumed = service.chunkedWrite(UPDATE, 2, null);
+
+        assertTrue(resumed.isCompleted());
+        assertEquals(10, resumed.getThrottledMs());
+        assertEquals(3, resumed.getAffectedRows());
+
+        executed.clear();
+        when(connectionService.maxReplicaLagMs()).thenReturn(30000L);
+
+        BulkWriteResult stopped = service.chunkedWrite(UPDATE, 2, null);
+
+        assertEquals("THROTTLED", stopped.getStopReason());
+        assertEquals(20, stopped.getThrottledMs());
+        assertEquals(0, stopped.getAffectedRows());
+        assertTrue(executed.stream().noneMatch(e -> e.sql().startsWith("UPDATE")));
+    }
+}
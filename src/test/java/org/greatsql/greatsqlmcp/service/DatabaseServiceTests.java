@@ -0,0 +1,53 @@
+package org.greatsql.greatsqlmcp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.greatsql.greatsqlmcp.config.QueryConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tool.ToolCallbacks;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatabaseServiceTests {
+
+    // 声明返回Object的@Tool方法会被Spring AI当作函数类型忽略，stdio/SSE和submitJob都无法调用
+    @Test
+    void queryToolsAreRegisteredAsToolCallbacks() {
+        Set<String> names = Arrays.stream(ToolCallbacks.from(new DatabaseService(), new HealthCheckService()))
+                .map(callback -> callback.getToolDefinition().name())
+                .collect(Collectors.toSet());
+        assertTrue(names.containsAll(Set.of("executeQuery", "checkCriticalTransactions")), names.toString());
+    }
+
+    // 默认配置下写语句在取连接之前就被拒绝，这里的服务没有连接池也不会执行到数据库
+    @Test
+    void executeQueryRejectsWritesByDefault() {
+        DatabaseService service = new DatabaseService();
+        ReflectionTestUtils.setField(service, "queryConfig", new QueryConfig());
+        QueryBudget budget = new QueryBudget(0, 0, 0);
+        for (String sql : List.of("DROP TABLE t", "TRUNCATE t", "DELETE FROM t", "ALTER TABLE t ADD c INT",
+                "/*!DELETE FROM t WHERE id IN */ (SELECT 1)", "SELECT * FROM t INTO OUTFILE '/tmp/t.csv'")) {
+            RuntimeException e = assertThrows(RuntimeException.class,
+                    () -> service.executeQuery("db", sql, null, List.of(), budget));
+            assertTrue(e.getMessage().contains("greatsql.query.allow-writes"), e.getMessage());
+            assertThrows(RuntimeException.class, () -> service.streamQuery("db", sql, null, List.of(), budget));
+        }
+    }
+
+    @Test
+    void queryOutputSerializesAsItsValue() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals("[{\"a\":1}]", mapper.writeValueAsString(new QueryOutput(List.of(Map.of("a", 1)))));
+        assertEquals("{\"format\":\"compact\"}", mapper.writeValueAsString(QueryOutput.cached("{\"format\":\"compact\"}")));
+        assertEquals("{\"result\":[],\"truncated\":true,\"notice\":\"n\"}",
+                mapper.writeValueAsString(new QueryOutput(List.of()).truncated("n")));
+    }
+}
@@ -0,0 +1,145 @@
+package org.greatsql.greatsqlmcp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JobServiceTests {
+
+    private JobService jobService;
+
+    // 工具一直阻塞到测试放行，任务保持RUNNING
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    // 不响应中断的工具，模拟取消后仍在执行的语句
+    private final CountDownLatch releaseStubborn = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        jobService = new JobService();
+        ReflectionTestUtils.setField(jobService, "databaseService", mock(DatabaseService.class));
+        ReflectionTestUtils.setField(jobService, "healthCheckService", mock(HealthCheckService.class));
+        ReflectionTestUtils.setField(jobService, "fleetService", mock(FleetService.class));
+        ReflectionTestUtils.setField(jobService, "connectionService", mock(ConnectionService.class));
+        ReflectionTestUtils.setField(jobService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(jobService, "maxRunningJobs", 2);
+        ReflectionTestUtils.setField(jobService, "retentionMs", 0L);
+        jobService.init();
+
+        ToolCallback blocking = mock(ToolCallback.class);
+        when(blocking.call(anyString())).thenAnswer(invocation -> {
+            release.await();
+            return "{}";
+        });
+        @SuppressWarnings("unchecked")
+        Map<String, ToolCallback> tools = (Map<String, ToolCallback>) ReflectionTestUtils.getField(jobService, "tools");
+        tools.put("blocking", blocking);
+
+        ToolCallback stubborn = mock(ToolCallback.class);
+        when(stubborn.call(anyString())).thenAnswer(invocation -> {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    releaseStubborn.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return "{}";
+        });
+        tools.put("stubborn", stubborn);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        releaseStubborn.countDown();
+        jobService.destroy();
+    }
+
+    @Test
+    void concurrentSubmitsNeverExceedTheRunningLimit() throws Exception {
+        ExecutorService submitters = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(submitters.submit(() -> {
+                start.await();
+                try {
+                    jobService.submitJob("blocking", null);
+                    accepted.incrementAndGet();
+                } catch (RuntimeException e) {
+                    assertTrue(e.getMessage().contains("上限"), e.getMessage());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        submitters.shutdown();
+        assertEquals(2, accepted.get());
+    }
+
+    // 取消后工作线程仍在执行时名额不归还，线程结束后才能提交新的任务
+    @Test
+    void cancelledJobFreesItsSlotWhenItsWorkerEndsAndFinishedJobsArePurged() throws InterruptedException {
+        String first = (String) jobService.submitJob("stubborn", null).get("jobId");
+        jobService.submitJob("blocking", null);
+        assertThrows(RuntimeException.class, () -> jobService.submitJob("blocking", null));
+
+        assertTrue(jobService.cancelJob(first));
+        assertEquals(JobService.JobStatus.CANCELLED, jobService.getJobStatus(first).get("status"));
+        assertThrows(RuntimeException.class, () -> jobService.submitJob("blocking", null));
+
+        releaseStubborn.countDown();
+        submitWhenSlotFrees();
+
+        // 保留时间为0，结束时间早于当前时刻的任务清理后不再能查询，运行中的任务不受影响
+        Thread.sleep(5);
+        jobService.purgeFinishedJobs();
+        RuntimeException e = assertThrows(RuntimeException.class, () -> jobService.getJobStatus(first));
+        assertTrue(e.getMessage().contains("不存在或已过期"), e.getMessage());
+    }
+
+    private void submitWhenSlotFrees() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            try {
+                jobService.submitJob("blocking", null);
+                return;
+            } catch (RuntimeException e) {
+                if (System.nanoTime() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.greatsql.greatsqlmcp.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTests {
+
+    @Test
+    void bucketsAreContiguousAndAlignedToPowersOfTwo() {
+        long lower = 0;
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            long upper = LatencyHistogram.upperBoundMicros(i);
+            assertEquals(i, LatencyHistogram.index(lower));
+            assertEquals(i, LatencyHistogram.index(upper - 1));
+            // 同一个桶内上下界相差不超过25%
+            assertTrue(lower < 4 || upper - lower <= lower / 4);
+            lower = upper;
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.index(Long.MAX_VALUE / 1000));
+    }
+
+    @Test
+    void estimatesQuantilesFromBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 990; i++) {
+            histogram.record(1_000_000);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(100_000_000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.count());
+        assertEquals(0.001024, snapshot.quantileSeconds(0.5), 1e-9);
+        assertEquals(0.001024, snapshot.quantileSeconds(0.99), 1e-9);
+        assertEquals(0.114688, snapshot.quantileSeconds(0.999), 1e-9);
+        assertEquals(990, snapshot.countBelow(11));
+        assertEquals(1000, snapshot.countBelow(27));
+        assertEquals(1.99, snapshot.sumSeconds(), 1e-9);
+    }
+}
@@ -0,0 +1,216 @@
+package org.greatsql.greatsqlmcp.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.greatsql.greatsqlmcp.config.MgrConfig;
+import org.greatsql.greatsqlmcp.config.ReadSplitConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MgrGroupTests {
+    // 各节点看到的组成员视图，以及MCP Server连不上的节点
+    private final Map<String, List<Object[]>> views = new HashMap<>();
+    private final Set<String> unreachable = new HashSet<>();
+
+    @Test
+    void secondariesAreSkippedWhenNotOnlineOrQueuesAreTooLong() {
+        assertNull(MgrGroup.skipReason(member("b", "ONLINE", "SECONDARY", 10, 100), 100));
+        assertEquals("成员状态为 RECOVERING", MgrGroup.skipReason(member("b", "RECOVERING", "SECONDARY", 0, 0), 100));
+        assertEquals("待认证事务 101 个，超过 100", MgrGroup.skipReason(member("b", "ONLINE", "SECONDARY", 101, 0), 100));
+        assertEquals("待回放事务 250 个，超过 100", MgrGroup.skipReason(member("b", "ONLINE", "SECONDARY", 0, 250), 100));
+    }
+
+    @Test
+    void primaryIsTheOnlinePrimaryPreferringTheWriteEndpoint() {
+        MgrTopology.Member a = member("a", "ONLINE", "PRIMARY", 0, 0);
+        MgrTopology.Member b = member("b", "ONLINE", "PRIMARY", 0, 0);
+        MgrTopology.Member unreachablePrimary = member("c", "UNREACHABLE", "PRIMARY", 0, 0);
+        MgrTopology.Member secondary = member("d", "ONLINE", "SECONDARY", 0, 0);
+
+        assertEquals(a, MgrGroup.primaryOf(List.of(unreachablePrimary, a, secondary), "c"));
+        // 多主模式下写连接所在节点仍是主节点时不切换
+        assertEquals(b, MgrGroup.primaryOf(List.of(a, b), "b"));
+        assertEquals(a, MgrGroup.primaryOf(List.of(a, b), null));
+        assertNull(MgrGroup.primaryOf(List.of(unreachablePrimary, secondary), "c"));
+    }
+
+    @Test
+    void viewOfAPrimaryCutOffInAMinorityPartitionIsNotTrusted() {
+        List<MgrTopology.Member> minority = List.of(member("a", "ONLINE", "PRIMARY", 0, 0),
+                member("b", "UNREACHABLE", "SECONDARY", 0, 0), member("c", "UNREACHABLE", "SECONDARY", 0, 0));
+        assertFalse(MgrGroup.hasQuorum(minority));
+        assertFalse(MgrGroup.isAuthoritative(minority, "a"));
+        assertTrue(MgrGroup.isAuthoritative(List.of(member("b", "ONLINE", "PRIMARY", 0, 0),
+                member("c", "ONLINE", "SECONDARY", 0, 0)), "a"));
+    }
+
+    @Test
+    void failsOverWhenTheMajorityElectsANewPrimary() {
+        FakeWriteEndpoint endpoint = new FakeWriteEndpoint();
+        MgrGroup group = new MgrGroup("default", endpoint, mgrConfig(), readSplitConfig(),
+                (host, port) -> pool(host.substring("db-".length())));
+        List<Object[]> healthy = List.of(row("a", "ONLINE", "PRIMARY"), row("b", "ONLINE", "SECONDARY"),
+                row("c", "ONLINE", "SECONDARY"));
+        views.put("a", healthy);
+        views.put("b", healthy);
+        views.put("c", healthy);
+        group.refresh();
+        assertEquals("db-a:3306", group.topology().primary());
+        assertEquals(2, group.topology().members().stream().filter(MgrTopology.Member::readable).count());
+
+        // a被隔离在少数派中，仍把自己报告为ONLINE的主节点；b和c组成的多数派已把a移出组并选出b
+        views.put("a", List.of(row("a", "ONLINE", "PRIMARY"), row("b", "UNREACHABLE", "SECONDARY"),
+                row("c", "UNREACHABLE", "SECONDARY")));
+        List<Object[]> majority = List.of(row("b", "ONLINE", "PRIMARY"), row("c", "ONLINE", "SECONDARY"));
+        views.put("b", majority);
+        views.put("c", majority);
+        group.refresh();
+        assertEquals(List.of("db-b:3306"), endpoint.switches);
+        assertEquals("db-b:3306", group.topology().primary());
+        assertEquals("db-b:3306", group.topology().writeEndpoint());
+        assertNull(group.topology().error());
+    }
+
+    @Test
+    void keepsTheWriteEndpointWhenNoMajorityIsReachable() {
+        FakeWriteEndpoint endpoint = new FakeWriteEndpoint();
+        MgrGroup group = new MgrGroup("default", endpoint, mgrConfig(), readSplitConfig(),
+                (host, port) -> pool(host.substring("db-".length())));
+        List<Object[]> healthy = List.of(row("a", "ONLINE", "PRIMARY"), row("b", "ONLINE", "SECONDARY"),
+                row("c", "ONLINE", "SECONDARY"));
+        views.put("a", healthy);
+        views.put("b", healthy);
+        views.put("c", healthy);
+        group.refresh();
+
+        views.put("a", List.of(row("a", "ONLINE", "PRIMARY"), row("b", "UNREACHABLE", "SECONDARY"),
+                row("c", "UNREACHABLE", "SECONDARY")));
+        unreachable.addAll(Set.of("b", "c"));
+        group.refresh();
+        assertTrue(endpoint.switches.isEmpty());
+        assertNull(group.topology().primary());
+        assertNotNull(group.topology().error());
+        assertEquals(0, group.topology().members().stream().filter(MgrTopology.Member::readable).count());
+    }
+
+    private static MgrTopology.Member member(String id, String state, String role, long certifyQueue, long applierQueue) {
+        return new MgrTopology.Member(id, "db-" + id, 3306, state, role, certifyQueue, applierQueue, -1, false, null);
+    }
+
+    private static Object[] row(String id, String state, String role) {
+        return new Object[]{id, "db-" + id, 3306, state, role, 0L, 0L};
+    }
+
+    private static MgrConfig mgrConfig() {
+        MgrConfig config = new MgrConfig();
+        ReflectionTestUtils.setField(config, "refreshMs", 2000L);
+        ReflectionTestUtils.setField(config, "failoverEnabled", true);
+        return config;
+    }
+
+    private static ReadSplitConfig readSplitConfig() {
+        ReadSplitConfig config = new ReadSplitConfig();
+        ReflectionTestUtils.setField(config, "maxLagMs", 1000L);
+        ReflectionTestUtils.setField(config, "maxTrxQueue", 100L);
+        return config;
+    }
+
+    // 指向节点id的连接池：server_uuid为id，组成员为该节点的视图，回放延迟为0
+    private HikariDataSource pool(String id) {
+        return new HikariDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                if (unreachable.contains(id)) {
+                    throw new SQLException("无法连接到 db-" + id);
+                }
+                Statement stmt = proxy(Statement.class, (name, args) -> name.equals("executeQuery")
+                        ? resultSet(rows(id, (String) args[0])) : null);
+                return proxy(Connection.class, (name, args) -> name.equals("createStatement") ? stmt : null);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private List<Object[]> rows(String id, String sql) {
+        if (sql.contains("@@server_uuid")) {
+            return List.<Object[]>of(new Object[]{id});
+        }
+        if (sql.contains("replication_group_members")) {
+            return views.get(id);
+        }
+        return List.<Object[]>of(new Object[]{0L});
+    }
+
+    private static ResultSet resultSet(List<Object[]> rows) {
+        int[] cursor = {-1};
+        return proxy(ResultSet.class, (name, args) -> switch (name) {
+            case "next" -> ++cursor[0] < rows.size();
+            case "getString" -> String.valueOf(rows.get(cursor[0])[(int) args[0] - 1]);
+            case "getInt" -> ((Number) rows.get(cursor[0])[(int) args[0] - 1]).intValue();
+            case "getLong" -> ((Number) rows.get(cursor[0])[(int) args[0] - 1]).longValue();
+            default -> null;
+        });
+    }
+
+    private interface Handler {
+        Object invoke(String name, Object[] args);
+    }
+
+    // 只实现用到的方法，其余方法返回null或基本类型的默认值
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            Object result = handler.invoke(method.getName(), args);
+            if (result == null && method.getReturnType() == boolean.class) {
+                return false;
+            }
+            return result;
+        });
+    }
+
+    private final class FakeWriteEndpoint implements MgrGroup.WriteEndpoint {
+        private String node = "a";
+        private final List<String> switches = new ArrayList<>();
+
+        @Override
+        public HikariDataSource pool() {
+            return MgrGroupTests.this.pool(node);
+        }
+
+        @Override
+        public String address() {
+            return "db-" + node + ":3306";
+        }
+
+        @Override
+        public boolean switchTo(String host, int port) {
+            String id = host.substring("db-".length());
+            if (id.equals(node)) {
+                return false;
+            }
+            node = id;
+            switches.add(host + ":" + port);
+            return true;
+        }
+    }
+}
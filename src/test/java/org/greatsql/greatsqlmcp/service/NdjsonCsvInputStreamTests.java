@@ -0,0 +1,51 @@
+package org.greatsql.greatsqlmcp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NdjsonCsvInputStreamTests {
+
+    private static NdjsonCsvInputStream stream(String ndjson, String[] columns) throws IOException {
+        return new NdjsonCsvInputStream(new BufferedReader(new StringReader(ndjson)), new ObjectMapper(), columns);
+    }
+
+    @Test
+    void convertsObjectsToCsvUsingFirstRowColumns() throws IOException {
+        NdjsonCsvInputStream in = stream("""
+                {"id": 1, "name": "say \\"hi\\"", "price": 0.10, "active": true, "note": null}
+
+                {"note": "a,b\\nc", "active": false, "price": 12345678901234567890.5, "name": "x", "id": 2}
+                """, null);
+        assertArrayEquals(new String[]{"id", "name", "price", "active", "note"}, in.columns());
+        assertEquals("1,\"say \"\"hi\"\"\",0.1,1,NULL\n2,\"x\",12345678901234567890.5,0,\"a,b\nc\"\n",
+                new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void rejectsRowsThatDoNotMatchColumns() throws IOException {
+        NdjsonCsvInputStream in = stream("{\"a\": 1, \"b\": 2}\n{\"a\": 1, \"c\": 2}\n", new String[]{"a", "b"});
+        IOException e = assertThrows(IOException.class, in::readAllBytes);
+        assertTrue(e.getMessage().contains("第 2 行缺少字段 b"));
+        assertEquals(e, in.failure());
+    }
+
+    @Test
+    void buildsLoadStatementAndParsesCsvHeader() {
+        assertArrayEquals(new String[]{"id", "full name", "a\"b"},
+                BulkWriteService.csvHeader("﻿id, \"full name\",\"a\"\"b\"\r\n1,x,y\r\n", true));
+        assertEquals("LOAD DATA LOCAL INFILE 'stream' INTO TABLE t CHARACTER SET utf8mb4"
+                        + " FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY ''"
+                        + " LINES TERMINATED BY 0x0d0a IGNORE 1 LINES (`id`, `full name`, `a``b`)",
+                BulkWriteService.loadSql("t", new String[]{"id", "`full name`", "a`b"}, true, true));
+    }
+}
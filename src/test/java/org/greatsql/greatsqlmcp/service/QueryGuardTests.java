@@ -0,0 +1,26 @@
+package org.greatsql.greatsqlmcp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QueryGuardTests {
+
+    @Test
+    void toolBudgetsOverrideDefaultsAndCallsOnlyTighten() {
+        QueryBudget defaults = new QueryBudget(30000, 10000, 1024);
+        Map<String, QueryBudget> budgets = QueryGuard.parseToolBudgets(
+                " executeQuery.max-rows=500, executeQuery.max-execution-ms=0,executeQueryStream.max-bytes=2048", defaults);
+        assertEquals(new QueryBudget(0, 500, 1024), budgets.get("executeQuery"));
+        assertEquals(new QueryBudget(30000, 10000, 2048), budgets.get("executeQueryStream"));
+        assertThrows(IllegalArgumentException.class, () -> QueryGuard.parseToolBudgets("executeQuery.rows=1", defaults));
+
+        assertEquals(100, QueryGuard.tighten(500, 100L));
+        assertEquals(500, QueryGuard.tighten(500, 1000L));
+        assertEquals(500, QueryGuard.tighten(500, null));
+        assertEquals(1000, QueryGuard.tighten(0, 1000L));
+    }
+}
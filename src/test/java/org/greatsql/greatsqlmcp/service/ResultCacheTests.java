@@ -0,0 +1,67 @@
+package org.greatsql.greatsqlmcp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.greatsql.greatsqlmcp.config.CacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ResultCacheTests {
+
+    private static final String QUERY = "SELECT * FROM a WHERE id = ?";
+
+    private ResultCache resultCache;
+
+    // 每次执行查询返回递增的结果，据此判断是否命中缓存
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        resultCache = new ResultCache();
+        CacheConfig cacheConfig = new CacheConfig();
+        ReflectionTestUtils.setField(cacheConfig, "resultCacheEnabled", true);
+        ReflectionTestUtils.setField(cacheConfig, "resultMaxBytes", 1L << 20);
+        ReflectionTestUtils.setField(cacheConfig, "resultTtlMs", 60000L);
+        ConnectionService connectionService = mock(ConnectionService.class);
+        when(connectionService.currentTarget()).thenReturn("default");
+        ReflectionTestUtils.setField(resultCache, "cacheConfig", cacheConfig);
+        ReflectionTestUtils.setField(resultCache, "connectionService", connectionService);
+        resultCache.init();
+    }
+
+    private String get() {
+        return resultCache.get("db", QUERY, "1", ResultFormat.ROWS, () -> String.valueOf(loads.incrementAndGet()));
+    }
+
+    @Test
+    void writesInvalidateCachedResults() {
+        assertEquals("1", get());
+        assertEquals("1", get());
+
+        resultCache.invalidateTable("db", "a");
+        assertEquals("2", get());
+        assertEquals("2", get());
+    }
+
+    // 表的版本号被淘汰后，写入之前缓存的结果仍然失效；版本号的数量有上限
+    @Test
+    void evictedTableVersionsNeverRevalidateStaleResults() {
+        assertEquals("1", get());
+        resultCache.invalidateTable("db", "a");
+
+        @SuppressWarnings("unchecked")
+        Cache<String, Long> tableVersions = (Cache<String, Long>) ReflectionTestUtils.getField(resultCache, "tableVersions");
+        tableVersions.policy().eviction().orElseThrow().setMaximum(0);
+        tableVersions.cleanUp();
+        assertEquals(0, tableVersions.estimatedSize());
+
+        assertEquals("2", get());
+        assertEquals("2", get());
+    }
+}
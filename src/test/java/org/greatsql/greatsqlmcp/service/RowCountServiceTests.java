@@ -0,0 +1,119 @@
+package org.greatsql.greatsqlmcp.service;
+
+import org.greatsql.greatsqlmcp.config.QueryConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RowCountServiceTests {
+
+    private RowCountService service;
+
+    private ConnectionService connectionService;
+
+    // 执行过的分片计数的主键范围
+    private final List<long[]> chunks = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new RowCountService();
+        connectionService = mock(ConnectionService.class);
+        QueryConfig queryConfig = new QueryConfig();
+        ReflectionTestUtils.setField(queryConfig, "countParallelism", 4);
+        ReflectionTestUtils.setField(queryConfig, "countChunkRows", 1000L);
+        ReflectionTestUtils.setField(service, "connectionService", connectionService);
+        ReflectionTestUtils.setField(service, "queryConfig", queryConfig);
+        when(connectionService.getConnection("db")).thenAnswer(invocation -> fakeConnection("1", "10000000000000"));
+    }
+
+    // 每个分片计1行，主键很稀疏时分片数被限制在上限内，且分片首尾相接覆盖整个主键范围
+    @Test
+    void sparseKeyRangeIsSplitIntoAtMostMaxChunks() {
+        long total = service.countExact("db", "t");
+
+        assertTrue(chunks.size() > 1 && chunks.size() <= RowCountService.MAX_CHUNKS, String.valueOf(chunks.size()));
+        assertEquals(chunks.size(), total);
+        chunks.sort(Comparator.comparingLong(bounds -> bounds[0]));
+        assertEquals(1, chunks.get(0)[0]);
+        assertEquals(10000000000000L, chunks.get(chunks.size() - 1)[1]);
+        for (int i = 1; i < chunks.size(); i++) {
+            assertEquals(chunks.get(i - 1)[1] + 1, chunks.get(i)[0]);
+        }
+    }
+
+    // 分片语句登记到调用的上下文，调用已取消时分片不再执行
+    @Test
+    void cancelledCallStopsChunkCounts() {
+        ToolCallContext context = new ToolCallContext(null);
+        context.cancel();
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> ToolCallContext.callWith(context, () -> service.countExact("db", "t")));
+
+        assertTrue(e.getMessage().contains("调用已取消"), e.getMessage());
+        assertEquals(0, chunks.size());
+    }
+
+    private Connection fakeConnection(String min, String max) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (conn, method, args) -> switch (method.getName()) {
+                    case "prepareStatement" -> statement((String) args[0], min, max);
+                    default -> null;
+                });
+    }
+
+    private PreparedStatement statement(String sql, String min, String max) {
+        long[] bounds = new long[2];
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (stmt, method, args) -> switch (method.getName()) {
+                    case "setLong" -> {
+                        bounds[(int) args[0] - 1] = (long) args[1];
+                        yield null;
+                    }
+                    case "executeQuery" -> {
+                        if (sql.contains("INFORMATION_SCHEMA")) {
+                            yield resultSet("id", "bigint");
+                        }
+                        if (sql.startsWith("SELECT MIN")) {
+                            yield resultSet(min, max);
+                        }
+                        chunks.add(bounds.clone());
+                        yield resultSet("1", null);
+                    }
+                    // 登记到上下文的语句放在HashSet中
+                    case "hashCode" -> System.identityHashCode(stmt);
+                    case "equals" -> stmt == args[0];
+                    default -> null;
+                });
+    }
+
+    private static ResultSet resultSet(String first, String second) {
+        boolean[] read = {false};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (rs, method, args) -> switch (method.getName()) {
+                    case "next" -> {
+                        boolean hasRow = !read[0];
+                        read[0] = true;
+                        yield hasRow;
+                    }
+                    case "getString" -> (int) args[0] == 1 ? first : second;
+                    case "getLong" -> Long.parseLong(first);
+                    default -> null;
+                });
+    }
+}
@@ -0,0 +1,115 @@
+package org.greatsql.greatsqlmcp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlStatementsTests {
+
+    @Test
+    void firstKeywordSkipsCommentsAndParentheses() {
+        assertEquals("SELECT", SqlStatements.firstKeyword("  (select 1) union (select 2)"));
+        assertEquals("ALTER", SqlStatements.firstKeyword("/* hint */ -- note\n# another\nalter table t add c int"));
+        assertEquals("", SqlStatements.firstKeyword("-- only a comment"));
+        assertEquals("", SqlStatements.firstKeyword(null));
+    }
+
+    @Test
+    void detectsDdl() {
+        assertTrue(SqlStatements.isDdl("CREATE TABLE t (id int)"));
+        assertTrue(SqlStatements.isDdl("truncate t"));
+        assertTrue(SqlStatements.isDdl("RENAME TABLE a TO b"));
+        assertFalse(SqlStatements.isDdl("SELECT * FROM created_items"));
+        assertFalse(SqlStatements.isDdl("INSERT INTO t VALUES (1)"));
+    }
+
+    @Test
+    void detectsReadOnlyStatements() {
+        assertTrue(SqlStatements.isReadOnly("select * from t for update"));
+        assertTrue(SqlStatements.isReadOnly("SHOW TABLES"));
+        assertTrue(SqlStatements.isReadOnly("EXPLAIN SELECT 1"));
+        assertTrue(SqlStatements.isReadOnly("WITH c AS (SELECT 1) SELECT * FROM c FOR UPDATE"));
+        assertFalse(SqlStatements.isReadOnly("WITH c AS (SELECT 1) DELETE FROM t WHERE id IN (SELECT * FROM c)"));
+        assertFalse(SqlStatements.isReadOnly("DROP TABLE t"));
+        assertFalse(SqlStatements.isReadOnly("/* select */ delete from t"));
+        assertFalse(SqlStatements.isReadOnly("SET GLOBAL read_only = 1"));
+        assertTrue(SqlStatements.isReadOnly("SELECT REPLACE(name, 'a', 'b'), INSERT(name, 1, 2, 'x') FROM t"));
+        assertTrue(SqlStatements.isReadOnly("SELECT '/*!DELETE FROM t */' FROM t /*+ NO_INDEX(t) */"));
+        assertTrue(SqlStatements.isReadOnly("SHOW CREATE TABLE t"));
+    }
+
+    // 可执行注释中的语句会被服务端执行，不能当作注释跳过
+    @Test
+    void executableCommentsAreNotReadOnly() {
+        String bypass = "/*!DELETE FROM t WHERE id IN */ (SELECT 1)";
+        assertEquals("SELECT", SqlStatements.firstKeyword(bypass));
+        assertFalse(SqlStatements.isReadOnly(bypass));
+        assertFalse(SqlStatements.isReadOnly("/*M!100101 DROP TABLE t; */ SELECT 1"));
+        assertFalse(SqlStatements.isReadOnly("SELECT 1 /*!50000 INTO OUTFILE '/tmp/x' */"));
+        assertFalse(SqlStatements.isCacheableRead(bypass));
+        assertFalse(SqlStatements.isReplicaSafeRead(bypass));
+    }
+
+    @Test
+    void selectIntoIsNotReadOnly() {
+        assertFalse(SqlStatements.isReadOnly("SELECT * FROM t INTO OUTFILE '/tmp/t.csv'"));
+        assertFalse(SqlStatements.isReadOnly("select password from mysql.user into dumpfile '/tmp/x'"));
+        assertFalse(SqlStatements.isReadOnly("SELECT COUNT(*) INTO @n FROM t"));
+        assertFalse(SqlStatements.isReadOnly("(SELECT 1) INTO @n"));
+        assertFalse(SqlStatements.isReadOnly("EXPLAIN ANALYZE DELETE t FROM t JOIN u ON t.id = u.id"));
+    }
+
+    @Test
+    void extractsReferencedTables() {
+        assertEquals(Set.of("shop.orders", "shop.customers", "crm.leads"), SqlStatements.referencedTables("shop",
+                "SELECT * FROM orders o, `customers` AS c JOIN crm.leads l ON l.id = c.id WHERE o.note = 'from x'"));
+        assertEquals(Set.of("shop.a", "shop.b"), SqlStatements.referencedTables("shop",
+                "UPDATE a JOIN b ON a.id = b.id SET a.v = b.v"));
+        assertEquals(Set.of("shop.t"), SqlStatements.referencedTables("shop", "INSERT INTO t (a, b) VALUES (1, 2)"));
+        assertEquals(Set.of("shop.t"), SqlStatements.referencedTables("shop",
+                "SELECT * FROM (SELECT id FROM t) AS d"));
+    }
+
+    @Test
+    void onlyDeterministicSelectsAreCacheable() {
+        assertTrue(SqlStatements.isCacheableRead("select id, name from users where id = 1"));
+        assertFalse(SqlStatements.isCacheableRead("SELECT NOW()"));
+        assertFalse(SqlStatements.isCacheableRead("SELECT * FROM t FOR UPDATE"));
+        assertFalse(SqlStatements.isCacheableRead("SELECT @a := 1"));
+        assertFalse(SqlStatements.isCacheableRead("DELETE FROM t"));
+        assertTrue(SqlStatements.isCacheableRead("SELECT 'now()' FROM t"));
+    }
+
+    @Test
+    void lockingAndSessionDependentSelectsStayOnPrimary() {
+        assertTrue(SqlStatements.isReplicaSafeRead("SELECT NOW(), COUNT(*) FROM orders"));
+        assertTrue(SqlStatements.isReplicaSafeRead("(SELECT a FROM t) UNION (SELECT a FROM u)"));
+        assertFalse(SqlStatements.isReplicaSafeRead("SELECT * FROM t WHERE id = 1 FOR UPDATE"));
+        assertFalse(SqlStatements.isReplicaSafeRead("SELECT * FROM t LOCK IN SHARE MODE"));
+        assertFalse(SqlStatements.isReplicaSafeRead("SELECT LAST_INSERT_ID()"));
+        assertFalse(SqlStatements.isReplicaSafeRead("SELECT @@read_only"));
+        assertFalse(SqlStatements.isReplicaSafeRead("UPDATE t SET a = 1"));
+    }
+
+    @Test
+    void normalizeCollapsesWhitespaceOutsideLiterals() {
+        assertEquals("SELECT * FROM t WHERE a = '  x  '",
+                SqlStatements.normalize("  SELECT *\n  FROM t\tWHERE a = '  x  ' ;"));
+    }
+
+    @Test
+    void addsMaxExecutionTimeHintToSelectOnly() {
+        assertEquals("/* c */ select /*+ MAX_EXECUTION_TIME(1500) */ * from t",
+                SqlStatements.withMaxExecutionTime("/* c */ select * from t", 1500));
+        assertEquals("SELECT /*+ MAX_EXECUTION_TIME(10) BKA(t) */ * FROM t",
+                SqlStatements.withMaxExecutionTime("SELECT /*+ BKA(t) */ * FROM t", 10));
+        assertEquals("SELECT /*+ max_execution_time(5) */ 1",
+                SqlStatements.withMaxExecutionTime("SELECT /*+ max_execution_time(5) */ 1", 10));
+        assertEquals("UPDATE t SET a = 1", SqlStatements.withMaxExecutionTime("UPDATE t SET a = 1", 10));
+        assertEquals("SELECT 1", SqlStatements.withMaxExecutionTime("SELECT 1", 0));
+    }
+}
@@ -0,0 +1,65 @@
+package org.greatsql.greatsqlmcp.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatusHistoryTests {
+
+    private static final String[] NAMES = {"Select_scan", "Threads_created"};
+
+    @Test
+    void windowUsesNewestSampleOlderThanWindow() {
+        StatusHistory history = new StatusHistory(4);
+        for (int i = 0; i < 6; i++) {
+            history.record(i * 1000L, NAMES, new long[]{i * 10L, i}, 2);
+        }
+
+        // 容量为4，只保留时间戳2000~5000的样本
+        StatusHistory.StatusWindow window = history.window(NAMES, 2000);
+        assertEquals(3000, window.startMs());
+        assertEquals(5000, window.endMs());
+        assertEquals(20, window.delta(0));
+        assertEquals(10.0, window.ratePerSecond(0), 1e-9);
+
+        StatusHistory.StatusWindow oldest = history.window(NAMES, 60_000);
+        assertEquals(2000, oldest.startMs());
+        assertEquals(3, oldest.delta(1));
+    }
+
+    @Test
+    void missingVariablesHaveNoDelta() {
+        StatusHistory history = new StatusHistory(4);
+        history.record(0, new String[]{"Select_scan"}, new long[]{5}, 1);
+        assertFalse(history.window(NAMES, 1000).hasBaseline());
+
+        history.record(1000, NAMES, new long[]{8, 1}, 2);
+        StatusHistory.StatusWindow window = history.window(NAMES, 1000);
+        assertTrue(window.hasBaseline());
+        assertEquals(3, window.delta(0));
+        assertEquals(0, window.delta(1));
+        assertEquals(1, window.latest(1));
+    }
+
+    @Test
+    void samplesTakenMillisecondsApartAreNoBaseline() {
+        StatusHistory history = new StatusHistory(4);
+        history.record(10_000, NAMES, new long[]{5, 1}, 2);
+        history.record(10_005, NAMES, new long[]{9, 1}, 2);
+        StatusHistory.StatusWindow window = history.window(NAMES, 5000);
+        assertFalse(window.hasBaseline());
+        assertEquals(0.0, window.ratePerSecond(0), 1e-9);
+        assertEquals(10_005, history.newestTimestamp());
+        assertEquals(-1, new StatusHistory(2).newestTimestamp());
+    }
+
+    @Test
+    void parseCounterRejectsNonNumericValues() {
+        assertEquals(12345, StatusHistory.parseCounter("12345"));
+        assertEquals(StatusHistory.MISSING, StatusHistory.parseCounter("ON"));
+        assertEquals(StatusHistory.MISSING, StatusHistory.parseCounter("-1"));
+        assertEquals(StatusHistory.MISSING, StatusHistory.parseCounter(""));
+    }
+}
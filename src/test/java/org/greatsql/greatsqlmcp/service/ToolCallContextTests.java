@@ -0,0 +1,48 @@
+package org.greatsql.greatsqlmcp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ToolCallContextTests {
+
+    private static Statement statement() {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                (proxy, method, args) -> method.getName().equals("equals") ? proxy == args[0]
+                        : method.getName().equals("hashCode") ? System.identityHashCode(proxy) : null);
+    }
+
+    @Test
+    void cancelStopsTrackedStatementsButNotReleasedOnes() throws SQLException {
+        List<Statement> cancelled = new ArrayList<>();
+        ToolCallContext context = new ToolCallContext(null, cancelled::add);
+        Statement running = statement();
+        Statement finished = statement();
+        context.track(running);
+        context.track(finished).close();
+
+        context.cancel();
+
+        assertTrue(context.isCancelled());
+        assertEquals(List.of(running), cancelled);
+    }
+
+    @Test
+    void trackAfterCancelFailsInsteadOfRunningTheStatement() {
+        List<Statement> cancelled = new ArrayList<>();
+        ToolCallContext context = new ToolCallContext(null, cancelled::add);
+        context.cancel();
+
+        SQLException e = assertThrows(SQLException.class, () -> context.track(statement()));
+        assertEquals("调用已取消", e.getMessage());
+        assertTrue(cancelled.isEmpty());
+    }
+}